@@ -0,0 +1,121 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import com.aoapps.tlds.benchmarks.MemoryPreferencesFactory;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.BackingStoreException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the construction of {@link TopLevelDomain.Snapshot} from the bundled list and its round-trip through
+ * {@link java.util.prefs.Preferences}, which is how snapshots are shared between processes by default.
+ *
+ * <p>This is in the {@code com.aoapps.tlds} package for access to the package-private snapshot construction and
+ * persistence.  Preferences are held in memory by {@link MemoryPreferencesFactory}, so the results measure this
+ * library instead of the platform backend, and the preferences of the user are not modified.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = MemoryPreferencesFactory.JVM_ARG)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+  private TopLevelDomain.Snapshot snapshot;
+
+  /**
+   * Parses the bundled list and stores it, so it may be loaded from preferences.
+   */
+  @Setup
+  public void setup() throws IOException, BackingStoreException {
+    snapshot = TopLevelDomain.parseBootstrap();
+    snapshot.saveToPreferences(true);
+    if (TopLevelDomain.Snapshot.loadFromPreferences() == null) {
+      throw new IllegalStateException("Unable to load from preferences");
+    }
+  }
+
+  /**
+   * Parses the bundled list.
+   */
+  @Benchmark
+  public TopLevelDomain.Snapshot parseBootstrap() throws IOException {
+    return TopLevelDomain.parseBootstrap();
+  }
+
+  /**
+   * Reads the bootstrap snapshot compiled at build time.
+   */
+  @Benchmark
+  public TopLevelDomain.Snapshot loadCompiledBootstrap() {
+    return TopLevelDomain.loadCompiledBootstrap();
+  }
+
+  /**
+   * Stores the list and its times, as after a download of a changed list.
+   */
+  @Benchmark
+  public void saveToPreferences() throws IOException, BackingStoreException {
+    snapshot.saveToPreferences(true);
+  }
+
+  /**
+   * Stores only the times, as after a download of an unchanged list.
+   */
+  @Benchmark
+  public void saveTimesToPreferences() throws IOException, BackingStoreException {
+    snapshot.saveToPreferences(false);
+  }
+
+  /**
+   * Loads, parses, and verifies the list.
+   */
+  @Benchmark
+  public TopLevelDomain.Snapshot loadFromPreferences() {
+    return TopLevelDomain.Snapshot.loadFromPreferences();
+  }
+
+  /**
+   * Stores then loads the list.
+   */
+  @Benchmark
+  public TopLevelDomain.Snapshot preferencesRoundTrip() throws IOException, BackingStoreException {
+    snapshot.saveToPreferences(true);
+    return TopLevelDomain.Snapshot.loadFromPreferences();
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds.benchmarks;
+
+import com.aoapps.tlds.TopLevelDomain;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link TopLevelDomain#getSnapshot()} under contention from an increasing number of
+ * threads.  The read path should scale with the number of threads, since it performs no locking once the snapshot is
+ * published.
+ *
+ * <p>The first call starts the background update, which completes or fails during warmup.  It is not measured.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = MemoryPreferencesFactory.JVM_ARG)
+@State(Scope.Benchmark)
+public class GetSnapshotBenchmark {
+
+  /**
+   * Publishes the snapshot before measurement.
+   */
+  @Setup
+  public void setup() {
+    TopLevelDomain.getSnapshot();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public TopLevelDomain.Snapshot threads1() {
+    return TopLevelDomain.getSnapshot();
+  }
+
+  @Benchmark
+  @Threads(2)
+  public TopLevelDomain.Snapshot threads2() {
+    return TopLevelDomain.getSnapshot();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public TopLevelDomain.Snapshot threads4() {
+    return TopLevelDomain.getSnapshot();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public TopLevelDomain.Snapshot threads8() {
+    return TopLevelDomain.getSnapshot();
+  }
+
+  /**
+   * One thread per available processor.
+   */
+  @Benchmark
+  @Threads(Threads.MAX)
+  public TopLevelDomain.Snapshot threadsMax() {
+    return TopLevelDomain.getSnapshot();
+  }
+}
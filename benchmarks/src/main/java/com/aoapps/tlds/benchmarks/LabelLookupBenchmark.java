@@ -0,0 +1,140 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds.benchmarks;
+
+import com.aoapps.tlds.TopLevelDomain;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the compiled perfect hash index used by {@link TopLevelDomain.Snapshot#getByLabel(java.lang.String)}
+ * against the previous lower-cased {@link HashMap} lookup, for hit-heavy and miss-heavy workloads.
+ *
+ * @author  AO Industries, Inc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = MemoryPreferencesFactory.JVM_ARG)
+@State(Scope.Benchmark)
+public class LabelLookupBenchmark {
+
+  /**
+   * The number of labels looked-up per invocation.
+   */
+  private static final int LABELS = 1024;
+
+  /**
+   * Fixed seed so results are comparable across runs.
+   */
+  private static final long SEED = 20260101L;
+
+  /**
+   * The percentage of labels that are top-level domains.
+   */
+  @Param({"100", "10"})
+  public int hitPercent;
+
+  private TopLevelDomain.Snapshot snapshot;
+
+  private Map<String, String> lowerTldMap;
+
+  private String[] labels;
+
+  /**
+   * Builds the mixed-case workload and the {@link HashMap} equivalent of the previous implementation.
+   */
+  @Setup
+  public void setup() {
+    snapshot = TopLevelDomain.getSnapshot();
+    List<String> tlds = snapshot.getTopLevelDomains();
+    lowerTldMap = new HashMap<>();
+    for (String tld : tlds) {
+      lowerTldMap.put(tld.toLowerCase(Locale.ROOT).intern(), tld);
+    }
+    Random random = new Random(SEED);
+    labels = new String[LABELS];
+    for (int i = 0; i < LABELS; i++) {
+      String label = tlds.get(random.nextInt(tlds.size()));
+      if (random.nextInt(100) >= hitPercent) {
+        // Make a miss that is otherwise similar to a real label
+        label = label + (char) ('a' + random.nextInt(26));
+        if (lowerTldMap.containsKey(label.toLowerCase(Locale.ROOT))) {
+          label = label + '-';
+        }
+      }
+      labels[i] = mixCase(label, random);
+    }
+  }
+
+  private static String mixCase(String label, Random random) {
+    char[] chars = label.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = random.nextBoolean() ? Character.toLowerCase(chars[i]) : Character.toUpperCase(chars[i]);
+    }
+    return new String(chars);
+  }
+
+  /**
+   * The previous implementation: lower-case then {@link HashMap} probe.
+   */
+  @Benchmark
+  @OperationsPerInvocation(LABELS)
+  public void hashMap(Blackhole blackhole) {
+    Map<String, String> map = lowerTldMap;
+    for (String label : labels) {
+      blackhole.consume(map.get(label.toLowerCase(Locale.ROOT)));
+    }
+  }
+
+  /**
+   * The compiled minimal perfect hash index.
+   */
+  @Benchmark
+  @OperationsPerInvocation(LABELS)
+  public void labelIndex(Blackhole blackhole) {
+    TopLevelDomain.Snapshot s = snapshot;
+    for (String label : labels) {
+      blackhole.consume(s.getByLabel(label));
+    }
+  }
+}
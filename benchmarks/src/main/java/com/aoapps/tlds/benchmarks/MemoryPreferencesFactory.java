@@ -0,0 +1,120 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.prefs.AbstractPreferences;
+import java.util.prefs.Preferences;
+import java.util.prefs.PreferencesFactory;
+
+/**
+ * An in-memory {@link Preferences} backend, so benchmarks neither read nor modify the preferences of the user running
+ * them.  Each fork starts with empty preferences, which keeps results comparable between runs and releases.
+ *
+ * <p>Selected in forked JVMs by {@link #JVM_ARG}.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class MemoryPreferencesFactory implements PreferencesFactory {
+
+  /**
+   * The JVM argument that selects this factory.
+   */
+  public static final String JVM_ARG = "-Djava.util.prefs.PreferencesFactory=com.aoapps.tlds.benchmarks.MemoryPreferencesFactory";
+
+  private static final Preferences systemRoot = new MemoryPreferences(null, "");
+
+  private static final Preferences userRoot = new MemoryPreferences(null, "");
+
+  @Override
+  public Preferences systemRoot() {
+    return systemRoot;
+  }
+
+  @Override
+  public Preferences userRoot() {
+    return userRoot;
+  }
+
+  /**
+   * A node held only in memory.  {@link AbstractPreferences} performs all locking.
+   */
+  private static final class MemoryPreferences extends AbstractPreferences {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    private final Map<String, MemoryPreferences> children = new HashMap<>();
+
+    private MemoryPreferences(MemoryPreferences parent, String name) {
+      super(parent, name);
+    }
+
+    @Override
+    protected void putSpi(String key, String value) {
+      values.put(key, value);
+    }
+
+    @Override
+    protected String getSpi(String key) {
+      return values.get(key);
+    }
+
+    @Override
+    protected void removeSpi(String key) {
+      values.remove(key);
+    }
+
+    @Override
+    protected void removeNodeSpi() {
+      values.clear();
+      children.clear();
+    }
+
+    @Override
+    protected String[] keysSpi() {
+      return values.keySet().toArray(new String[values.size()]);
+    }
+
+    @Override
+    protected String[] childrenNamesSpi() {
+      return children.keySet().toArray(new String[children.size()]);
+    }
+
+    @Override
+    protected AbstractPreferences childSpi(String name) {
+      return children.computeIfAbsent(name, n -> new MemoryPreferences(this, n));
+    }
+
+    @Override
+    protected void syncSpi() {
+      // Nothing to synchronize
+    }
+
+    @Override
+    protected void flushSpi() {
+      // Nothing to flush
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds.benchmarks;
+
+import com.aoapps.tlds.TopLevelDomain;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the sorted prefix index used by {@link TopLevelDomain.Snapshot#getByPrefix(java.lang.CharSequence)}
+ * against a linear scan of {@link TopLevelDomain.Snapshot#getTopLevelDomains()} with lower-casing and
+ * {@link String#startsWith(java.lang.String)}, as typed prefixes grow.
+ *
+ * @author  AO Industries, Inc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = MemoryPreferencesFactory.JVM_ARG)
+@State(Scope.Benchmark)
+public class PrefixBenchmark {
+
+  /**
+   * The number of prefixes searched per invocation.
+   */
+  private static final int PREFIXES = 256;
+
+  /**
+   * Fixed seed so results are comparable across runs.
+   */
+  private static final long SEED = 20260101L;
+
+  /**
+   * The number of characters typed.
+   */
+  @Param({"1", "2", "4"})
+  public int prefixLength;
+
+  private TopLevelDomain.Snapshot snapshot;
+
+  private String[] prefixes;
+
+  /**
+   * Builds prefixes of top-level domains, in upper-case as typed in a search box with caps lock.
+   */
+  @Setup
+  public void setup() {
+    snapshot = TopLevelDomain.getSnapshot();
+    List<String> tlds = snapshot.getTopLevelDomains();
+    Random random = new Random(SEED);
+    prefixes = new String[PREFIXES];
+    for (int i = 0; i < PREFIXES; i++) {
+      String tld = tlds.get(random.nextInt(tlds.size()));
+      prefixes[i] = tld.substring(0, Math.min(prefixLength, tld.length()));
+    }
+    // Load the index before measurement
+    snapshot.getByPrefix("");
+  }
+
+  /**
+   * The previous approach: lower-case every top-level domain and test with {@link String#startsWith(java.lang.String)}.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PREFIXES)
+  public void linearScan(Blackhole blackhole) {
+    List<String> tlds = snapshot.getTopLevelDomains();
+    for (String prefix : prefixes) {
+      String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+      List<String> matches = new ArrayList<>();
+      for (String tld : tlds) {
+        if (tld.toLowerCase(Locale.ROOT).startsWith(lowerPrefix)) {
+          matches.add(tld);
+        }
+      }
+      blackhole.consume(matches);
+    }
+  }
+
+  /**
+   * The sorted prefix index, consuming every match.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PREFIXES)
+  public void prefixIndex(Blackhole blackhole) {
+    TopLevelDomain.Snapshot s = snapshot;
+    for (String prefix : prefixes) {
+      List<String> matches = s.getByPrefix(prefix);
+      for (int i = 0, size = matches.size(); i < size; i++) {
+        blackhole.consume(matches.get(i));
+      }
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds.benchmarks;
+
+import com.aoapps.tlds.PublicSuffix;
+import com.aoapps.tlds.TopLevelDomain;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to first lookup in a new JVM, which includes class initialization and the loading of the bootstrap
+ * snapshot.  Each fork performs a single lookup, so the result is the cold-start cost seen by the first request
+ * handled after deployment.
+ *
+ * <p>Run with the compiled bootstrap snapshots removed from the ao-tlds JAR to compare against parsing the bundled
+ * lists.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 20, jvmArgsAppend = MemoryPreferencesFactory.JVM_ARG)
+public class StartupBenchmark {
+
+  /**
+   * The first top-level domain lookup.
+   */
+  @Benchmark
+  public String topLevelDomain() {
+    return TopLevelDomain.getSnapshot().getByLabel("com");
+  }
+
+  /**
+   * The first public suffix lookup.
+   */
+  @Benchmark
+  public String publicSuffix() {
+    return PublicSuffix.getSnapshot().getPublicSuffix("www.example.co.uk");
+  }
+}
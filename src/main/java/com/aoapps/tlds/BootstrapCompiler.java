@@ -0,0 +1,65 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compiles the bundled lists into bootstrap snapshots at build time, so the first call to
+ * {@link TopLevelDomain#getSnapshot()} or {@link PublicSuffix#getSnapshot()} reads the compiled index directly instead
+ * of parsing the bundled list.
+ *
+ * <p>This is run by the build in the <code>process-classes</code> phase, after the classes it uses to parse the lists
+ * are compiled.  The snapshots are written in the {@link SnapshotStore} format.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class BootstrapCompiler {
+
+  /** Make no instances. */
+  private BootstrapCompiler() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Compiles the bootstrap snapshots.
+   *
+   * @param  args  the build output directory of the classes
+   */
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("usage: " + BootstrapCompiler.class.getName() + " <output-directory>");
+      System.exit(1);
+      return;
+    }
+    Path directory = Paths.get(args[0], "com", "aoapps", "tlds");
+    TopLevelDomain.compileBootstrap(directory);
+    System.out.println("Compiled " + directory.resolve(TopLevelDomain.BOOTSTRAP_RESOURCE));
+    PublicSuffix.compileBootstrap(directory);
+    System.out.println("Compiled " + directory.resolve(PublicSuffix.BOOTSTRAP_RESOURCE));
+  }
+}
@@ -0,0 +1,456 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The result of a conditional download of a list.
+ *
+ * <p>The {@code ETag} and {@code Last-Modified} validators of the previous download are sent as
+ * {@code If-None-Match} and {@code If-Modified-Since}.  When the server responds with {@code 304 Not Modified},
+ * no content is transferred and the caller may reuse what it already has.</p>
+ *
+ * <p>HTTP and HTTPS are requested asynchronously through {@link HttpClient}, preferring HTTP/2.  The content is
+ * requested with {@code gzip} or {@code deflate} encoding, which is decoded as it is streamed to the caller.</p>
+ *
+ * <p>Each download is bounded by two timeouts, configured by system properties in milliseconds:</p>
+ * <ul>
+ *   <li>{@value #CONNECT_TIMEOUT_PROPERTY} - The time allowed to establish a connection,
+ *       defaults to {@value #DEFAULT_CONNECT_TIMEOUT}.</li>
+ *   <li>{@value #TIMEOUT_PROPERTY} - The time allowed for the entire download, from sending the request
+ *       through reading the last of the content, defaults to {@value #DEFAULT_TIMEOUT}.</li>
+ * </ul>
+ * <p>A stalled server therefore can not hold the background update indefinitely.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class Download implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(Download.class.getName());
+
+  /**
+   * The system property that configures the connect timeout, in milliseconds.
+   */
+  static final String CONNECT_TIMEOUT_PROPERTY = "com.aoapps.tlds.connectTimeout";
+
+  /**
+   * The default connect timeout, in milliseconds.
+   */
+  static final long DEFAULT_CONNECT_TIMEOUT = 30L * 1000;
+
+  /**
+   * The system property that configures the total timeout of a download, in milliseconds.
+   */
+  static final String TIMEOUT_PROPERTY = "com.aoapps.tlds.timeout";
+
+  /**
+   * The default total timeout of a download, in milliseconds.
+   */
+  static final long DEFAULT_TIMEOUT = 2L * 60 * 1000;
+
+  /**
+   * Gets a timeout from a system property, using the default when not set, not a number, or not positive.
+   */
+  static Duration getTimeout(String property, long defaultMillis) {
+    long millis = defaultMillis;
+    String value = System.getProperty(property);
+    if (value != null) {
+      try {
+        millis = Long.parseLong(value.trim());
+        if (millis <= 0) {
+          if (logger.isLoggable(Level.WARNING)) {
+            logger.warning("Timeout must be positive, using default of " + defaultMillis + ": " + property + "=" + value);
+          }
+          millis = defaultMillis;
+        }
+      } catch (NumberFormatException e) {
+        if (logger.isLoggable(Level.WARNING)) {
+          logger.warning("Invalid timeout, using default of " + defaultMillis + ": " + property + "=" + value);
+        }
+      }
+    }
+    return Duration.ofMillis(millis);
+  }
+
+  /**
+   * The client of the most recent download, which is reused while its connect timeout is unchanged.
+   */
+  private static volatile HttpClient client;
+
+  private static HttpClient getClient(Duration connectTimeout) {
+    HttpClient c = client;
+    if (c == null || !c.connectTimeout().equals(Optional.of(connectTimeout))) {
+      c = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_2)
+          .followRedirects(HttpClient.Redirect.NORMAL)
+          .connectTimeout(connectTimeout)
+          .build();
+      client = c;
+    }
+    return c;
+  }
+
+  /**
+   * Downloads the given URL, unless not modified since the given validators, using the timeouts configured by
+   * system properties.
+   *
+   * @param  etag  the {@code ETag} of the previous download or {@code null} when none
+   * @param  lastModified  the {@code Last-Modified} of the previous download or {@code null} when none
+   * @param  defaultCharset  the encoding used when the response does not declare a charset
+   *
+   * @throws  IOException  on any I/O error, on timeout, or when the server responds with an unexpected status
+   *
+   * @see  #CONNECT_TIMEOUT_PROPERTY
+   * @see  #TIMEOUT_PROPERTY
+   */
+  static Download get(URL url, String etag, String lastModified, Charset defaultCharset) throws IOException {
+    return get(
+        url,
+        etag,
+        lastModified,
+        defaultCharset,
+        getTimeout(CONNECT_TIMEOUT_PROPERTY, DEFAULT_CONNECT_TIMEOUT),
+        getTimeout(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT)
+    );
+  }
+
+  /**
+   * Downloads the given URL, unless not modified since the given validators.
+   * The response headers have been received upon return, while the content is streamed through
+   * {@link #getReader()}.  The download must be {@linkplain #close() closed}.
+   *
+   * @param  etag  the {@code ETag} of the previous download or {@code null} when none
+   * @param  lastModified  the {@code Last-Modified} of the previous download or {@code null} when none
+   * @param  defaultCharset  the encoding used when the response does not declare a charset
+   * @param  connectTimeout  the time allowed to establish a connection
+   * @param  timeout  the time allowed for the entire download, including reading the content
+   *
+   * @throws  IOException  on any I/O error, on timeout, or when the server responds with an unexpected status
+   */
+  static Download get(
+      URL url,
+      String etag,
+      String lastModified,
+      Charset defaultCharset,
+      Duration connectTimeout,
+      Duration timeout
+  ) throws IOException {
+    String protocol = url.getProtocol();
+    if (!"http".equalsIgnoreCase(protocol) && !"https".equalsIgnoreCase(protocol)) {
+      // Other protocols, such as file:, are not conditional
+      logger.fine("Opening " + url);
+      return new Download(new InputStreamReader(url.openStream(), defaultCharset), null, null);
+    }
+    final long deadline = System.nanoTime() + timeout.toNanos();
+    HttpRequest.Builder request;
+    try {
+      request = HttpRequest.newBuilder(url.toURI());
+    } catch (URISyntaxException e) {
+      throw new IOException(e);
+    }
+    request.timeout(timeout).header("Accept-Encoding", "gzip, deflate");
+    if (etag != null) {
+      request.header("If-None-Match", etag);
+    }
+    if (lastModified != null) {
+      request.header("If-Modified-Since", lastModified);
+    }
+    logger.fine("Connecting to " + url);
+    CompletableFuture<HttpResponse<InputStream>> future = getClient(connectTimeout).sendAsync(
+        request.build(),
+        HttpResponse.BodyHandlers.ofInputStream()
+    );
+    HttpResponse<InputStream> response;
+    try {
+      response = future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException("Interrupted waiting for " + url);
+      ioErr.initCause(e);
+      throw ioErr;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException(cause);
+    }
+    InputStream body = new DeadlineInputStream(response.body(), deadline, timeout);
+    boolean success = false;
+    try {
+      int statusCode = response.statusCode();
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Got response: " + statusCode + " " + response.version());
+      }
+      if (statusCode == 304) {
+        // Empty content
+        body.close();
+        String newEtag = response.headers().firstValue("ETag").orElse(etag);
+        String newLastModified = response.headers().firstValue("Last-Modified").orElse(lastModified);
+        return new Download(null, newEtag, newLastModified);
+      }
+      if (statusCode != 200) {
+        throw new IOException("Unexpected response from " + url + ": " + statusCode);
+      }
+      String contentEncoding = response.headers().firstValue("Content-Encoding").orElse(null);
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Content encoding: " + contentEncoding);
+      }
+      Charset charset = getCharset(response.headers().firstValue("Content-Type").orElse(null), defaultCharset);
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Using charset: " + charset);
+      }
+      Download download = new Download(
+          new InputStreamReader(decode(body, contentEncoding), charset),
+          response.headers().firstValue("ETag").orElse(null),
+          response.headers().firstValue("Last-Modified").orElse(null)
+      );
+      success = true;
+      return download;
+    } finally {
+      if (!success) {
+        body.close();
+      }
+    }
+  }
+
+  /**
+   * Decodes the content of a response as it is read.
+   *
+   * @param  contentEncoding  the {@code Content-Encoding} or {@code null} when not encoded
+   *
+   * @throws  IOException  when the encoding is not supported
+   */
+  static InputStream decode(InputStream in, String contentEncoding) throws IOException {
+    if (contentEncoding == null) {
+      return in;
+    }
+    switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+      case "":
+      case "identity":
+        return in;
+      case "gzip":
+      case "x-gzip":
+        return new GZIPInputStream(in);
+      case "deflate":
+        {
+          // Some servers send raw deflate instead of the zlib format required by RFC 9110
+          PushbackInputStream pushback = new PushbackInputStream(new BufferedInputStream(in), 2);
+          int b1 = pushback.read();
+          if (b1 == -1) {
+            return pushback;
+          }
+          int b2 = pushback.read();
+          if (b2 != -1) {
+            pushback.unread(b2);
+          }
+          pushback.unread(b1);
+          boolean zlib = b2 != -1 && (b1 & 0x0F) == 8 && ((b1 << 8) | b2) % 31 == 0;
+          return new InflaterInputStream(pushback, new Inflater(!zlib));
+        }
+      default:
+        throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+    }
+  }
+
+  /**
+   * Gets the charset declared in a {@code Content-Type}.
+   *
+   * @return  the declared charset or {@code defaultCharset} when not declared or not supported
+   */
+  static Charset getCharset(String contentType, Charset defaultCharset) {
+    if (contentType != null) {
+      int pos = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+      if (pos != -1) {
+        String name = contentType.substring(pos + "charset=".length());
+        int end = name.indexOf(';');
+        if (end != -1) {
+          name = name.substring(0, end);
+        }
+        name = name.trim();
+        if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+          name = name.substring(1, name.length() - 1);
+        }
+        try {
+          return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+          if (logger.isLoggable(Level.WARNING)) {
+            logger.warning("Unsupported charset, using " + defaultCharset + ": " + name);
+          }
+        }
+      }
+    }
+    return defaultCharset;
+  }
+
+  /**
+   * Closes the content of a response when its deadline passes, which unblocks any thread waiting to read.
+   * Reads after the deadline throw {@link HttpTimeoutException}.
+   */
+  private static final class DeadlineInputStream extends FilterInputStream {
+
+    private final Duration timeout;
+    private final CompletableFuture<Void> timer = new CompletableFuture<>();
+    private volatile boolean timedOut;
+
+    private DeadlineInputStream(InputStream in, long deadline, Duration timeout) {
+      super(in);
+      this.timeout = timeout;
+      timer.orTimeout(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS).whenComplete((v, t) -> {
+        if (t instanceof TimeoutException) {
+          timedOut = true;
+          try {
+            in.close();
+          } catch (IOException e) {
+            logger.log(Level.FINE, "Unable to close timed-out content", e);
+          }
+        }
+      });
+    }
+
+    private IOException timeoutException(IOException e) {
+      if (timedOut) {
+        HttpTimeoutException timeoutErr = new HttpTimeoutException("Download exceeded timeout of " + timeout);
+        timeoutErr.initCause(e);
+        return timeoutErr;
+      }
+      return e;
+    }
+
+    private void checkTimeout() throws HttpTimeoutException {
+      if (timedOut) {
+        throw new HttpTimeoutException("Download exceeded timeout of " + timeout);
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      checkTimeout();
+      try {
+        return in.read();
+      } catch (IOException e) {
+        throw timeoutException(e);
+      }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      checkTimeout();
+      try {
+        return in.read(b, off, len);
+      } catch (IOException e) {
+        throw timeoutException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      timer.complete(null);
+      in.close();
+    }
+  }
+
+  private final Reader reader;
+  private final String etag;
+  private final String lastModified;
+
+  private Download(Reader reader, String etag, String lastModified) {
+    this.reader = reader;
+    this.etag = etag;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   * Checks if the server responded with {@code 304 Not Modified}.
+   */
+  boolean isNotModified() {
+    return reader == null;
+  }
+
+  /**
+   * Gets the downloaded content, which is decoded as read.
+   *
+   * @return  the content or {@code null} when not modified
+   */
+  Reader getReader() {
+    return reader;
+  }
+
+  /**
+   * Gets the {@code ETag} to send with the next download.
+   *
+   * @return  the validator or {@code null} when none
+   */
+  String getEtag() {
+    return etag;
+  }
+
+  /**
+   * Gets the {@code Last-Modified} to send with the next download.
+   *
+   * @return  the validator or {@code null} when none
+   */
+  String getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * Closes the content, releasing the connection.
+   */
+  @Override
+  public void close() throws IOException {
+    if (reader != null) {
+      reader.close();
+    }
+  }
+}
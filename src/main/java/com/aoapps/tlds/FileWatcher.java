@@ -0,0 +1,163 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a single file with a {@link WatchService}, running a task once when started and then whenever the file is
+ * created or modified.  No polling is performed where the platform provides native change notification.
+ *
+ * <p>Since the directory of the file is watched, the file may be replaced by an atomic rename as well as written in
+ * place.  A burst of events, such as from a file being written in several steps, is coalesced into a single run once
+ * no further event is received for {@link #DEFAULT_SETTLE_DELAY} milliseconds.</p>
+ *
+ * <p>The task is run on a thread dedicated to this watcher, which is virtual on Java 21 or later and is otherwise a
+ * daemon platform thread.  An exception thrown by the task is logged, and watching continues.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FileWatcher implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(FileWatcher.class.getName());
+
+  /**
+   * The default number of milliseconds without events before the task is run.
+   */
+  static final long DEFAULT_SETTLE_DELAY = 100;
+
+  private final Path file;
+  private final Path fileName;
+  private final long settleDelay;
+  private final Runnable task;
+  private final WatchService watchService;
+  private final Thread thread;
+
+  /**
+   * Creates a new watcher, which does not run until {@linkplain #start() started}.
+   *
+   * @param  task  Run once when started, then after each change of the file
+   *
+   * @throws  IOException  when the directory of the file can not be watched, such as when it does not exist
+   */
+  FileWatcher(Path file, long settleDelay, Runnable task, String name) throws IOException {
+    this.file = file.toAbsolutePath();
+    this.fileName = this.file.getFileName();
+    this.settleDelay = settleDelay;
+    this.task = task;
+    Path directory = this.file.getParent();
+    watchService = directory.getFileSystem().newWatchService();
+    try {
+      directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (IOException | RuntimeException e) {
+      try {
+        watchService.close();
+      } catch (IOException e2) {
+        e.addSuppressed(e2);
+      }
+      throw e;
+    }
+    thread = UpdateScheduler.newThreadFactory(name).newThread(this::watch);
+  }
+
+  /**
+   * Starts watching, running the task immediately.
+   */
+  void start() {
+    thread.start();
+  }
+
+  private void watch() {
+    try {
+      runTask();
+      while (true) {
+        WatchKey key = watchService.take();
+        boolean changed = false;
+        do {
+          changed |= isChanged(key);
+          if (!key.reset()) {
+            logger.warning("Directory no longer accessible, watching stopped: " + file.getParent());
+            return;
+          }
+          // Wait for the changes to settle
+          key = changed ? watchService.poll(settleDelay, TimeUnit.MILLISECONDS) : null;
+        } while (key != null);
+        if (changed) {
+          runTask();
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      logger.fine("Watching stopped: " + file);
+    } catch (InterruptedException e) {
+      logger.fine("Watching interrupted: " + file);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Checks if any pending event of the given key is a change of the file.  An overflow is assumed to include a
+   * change.
+   */
+  private boolean isChanged(WatchKey key) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (
+          event.kind() == StandardWatchEventKinds.OVERFLOW
+              || fileName.equals(event.context())
+      ) {
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  private void runTask() {
+    try {
+      task.run();
+    } catch (ThreadDeath td) {
+      throw td;
+    } catch (Throwable t) {
+      logger.log(Level.SEVERE, "Unable to process change of file: " + file, t);
+    }
+  }
+
+  /**
+   * Stops watching.  Does not interrupt any run of the task in progress.
+   */
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+}
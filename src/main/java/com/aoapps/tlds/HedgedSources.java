@@ -0,0 +1,296 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An ordered list of sources of a list, such as an internal mirror, a {@code file:} URL, and the authoritative
+ * server, fetched with hedged requests.
+ *
+ * <p>The sources are tried in order of their history: sources without recent failures first, fastest first.  Sources
+ * not yet measured keep their configured order.  When a source has not responded within the hedge delay, the next
+ * source is tried in parallel, and when a source fails, the next source is tried immediately.  The first valid
+ * response wins, and the others are interrupted.</p>
+ *
+ * <p>The sources are configured by a system property per list, as URLs separated by commas or whitespace.  An entry
+ * that is not a URL is a file path.  The hedge delay is configured by the system property
+ * {@value #HEDGE_DELAY_PROPERTY}, in milliseconds, and defaults to {@value #DEFAULT_HEDGE_DELAY}.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class HedgedSources {
+
+  private static final Logger logger = Logger.getLogger(HedgedSources.class.getName());
+
+  /**
+   * The system property that configures the delay before trying the next source, in milliseconds.
+   */
+  static final String HEDGE_DELAY_PROPERTY = "com.aoapps.tlds.hedgeDelay";
+
+  /**
+   * The default delay before trying the next source, in milliseconds.
+   */
+  static final long DEFAULT_HEDGE_DELAY = 3L * 1000;
+
+  /**
+   * The weight of each new latency in the moving average.
+   */
+  private static final double LATENCY_WEIGHT = 0.3;
+
+  /**
+   * Fetches from a single source.
+   */
+  @FunctionalInterface
+  interface Fetcher<T> {
+    /**
+     * @throws  IOException  when the source fails or its response is not valid
+     */
+    T fetch(URL url) throws IOException;
+  }
+
+  /**
+   * A source and its history, guarded by the {@link HedgedSources} it is in.
+   */
+  private static final class Source {
+
+    private final URL url;
+    private final int configuredIndex;
+
+    /**
+     * The moving average of successful latencies, in nanoseconds, or {@code -1} when not yet measured.
+     */
+    private long averageNanos = -1;
+
+    /**
+     * The number of failures since the last success.
+     */
+    private int consecutiveFailures;
+
+    private Source(URL url, int configuredIndex) {
+      this.url = url;
+      this.configuredIndex = configuredIndex;
+    }
+
+    @Override
+    public String toString() {
+      return url + "{averageMillis=" + (averageNanos == -1 ? "?" : Long.toString(averageNanos / 1000000))
+          + ", consecutiveFailures=" + consecutiveFailures + '}';
+    }
+  }
+
+  /**
+   * Orders sources without recent failures first, then the fastest, then the configured order.
+   */
+  private static final Comparator<Source> ORDER =
+      Comparator.<Source>comparingInt(source -> source.consecutiveFailures)
+          .thenComparingLong(source -> source.averageNanos == -1 ? Long.MAX_VALUE : source.averageNanos)
+          .thenComparingInt(source -> source.configuredIndex);
+
+  /**
+   * Parses the sources from a system property.
+   *
+   * @param  defaultUrl  the source used when the property is not set or has no valid sources
+   */
+  static HedgedSources fromProperty(String property, URL defaultUrl) {
+    List<URL> urls = new ArrayList<>();
+    String value = System.getProperty(property);
+    if (value != null) {
+      for (String entry : value.trim().split("[\\s,]+")) {
+        if (!entry.isEmpty()) {
+          try {
+            urls.add(parseSource(entry));
+          } catch (MalformedURLException | InvalidPathException e) {
+            logger.log(Level.WARNING, "Ignoring invalid source: " + property + "=" + entry, e);
+          }
+        }
+      }
+      if (urls.isEmpty() && logger.isLoggable(Level.WARNING)) {
+        logger.warning("No valid sources, using default of " + defaultUrl + ": " + property + "=" + value);
+      }
+    }
+    if (urls.isEmpty()) {
+      urls.add(defaultUrl);
+    }
+    return new HedgedSources(urls, Download.getTimeout(HEDGE_DELAY_PROPERTY, DEFAULT_HEDGE_DELAY).toMillis());
+  }
+
+  /**
+   * Parses a source as a URL, or as a file path when not a URL.
+   */
+  static URL parseSource(String entry) throws MalformedURLException, InvalidPathException {
+    try {
+      return new URL(entry);
+    } catch (MalformedURLException e) {
+      return Paths.get(entry).toAbsolutePath().toUri().toURL();
+    }
+  }
+
+  private final List<Source> sources;
+  private final long hedgeDelay;
+
+  /**
+   * @param  hedgeDelay  the delay before trying the next source, in milliseconds
+   */
+  HedgedSources(List<URL> urls, long hedgeDelay) {
+    if (urls.isEmpty()) {
+      throw new IllegalArgumentException("No sources");
+    }
+    List<Source> newSources = new ArrayList<>(urls.size());
+    for (URL url : urls) {
+      newSources.add(new Source(url, newSources.size()));
+    }
+    this.sources = newSources;
+    this.hedgeDelay = hedgeDelay;
+  }
+
+  /**
+   * Gets the URLs of the sources, in the order they will next be tried.
+   */
+  synchronized List<URL> getOrder() {
+    List<URL> order = new ArrayList<>(sources.size());
+    for (Source source : sources) {
+      order.add(source.url);
+    }
+    return Collections.unmodifiableList(order);
+  }
+
+  private synchronized void recordSuccess(Source source, long nanos) {
+    source.consecutiveFailures = 0;
+    source.averageNanos = source.averageNanos == -1
+        ? nanos
+        : (long) (LATENCY_WEIGHT * nanos + (1 - LATENCY_WEIGHT) * source.averageNanos);
+    sources.sort(ORDER);
+  }
+
+  private synchronized void recordFailure(Source source) {
+    source.consecutiveFailures++;
+    sources.sort(ORDER);
+  }
+
+  /**
+   * Fetches from the sources, hedging as needed, recording the latency or failure of each source that completes
+   * before the first valid response.
+   *
+   * @return  the first valid response
+   *
+   * @throws  IOException  when all sources fail, with the failure of each source suppressed
+   */
+  <T> T fetch(Fetcher<T> fetcher) throws IOException, InterruptedException {
+    List<Source> order;
+    synchronized (this) {
+      order = new ArrayList<>(sources);
+    }
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Fetching from sources in order " + order);
+    }
+    ExecutorService executor = Executors.newCachedThreadPool(
+        UpdateScheduler.newThreadFactory(HedgedSources.class.getName())
+    );
+    try {
+      CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+      submit(completion, executor, order.get(0), fetcher);
+      int next = 1;
+      int running = 1;
+      IOException failure = null;
+      while (running > 0) {
+        Future<T> done = next < order.size()
+            ? completion.poll(hedgeDelay, TimeUnit.MILLISECONDS)
+            : completion.take();
+        if (done == null) {
+          Source source = order.get(next++);
+          if (logger.isLoggable(Level.FINE)) {
+            logger.fine("No response within hedge delay, also trying " + source.url);
+          }
+          submit(completion, executor, source, fetcher);
+          running++;
+        } else {
+          running--;
+          try {
+            return done.get();
+          } catch (ExecutionException e) {
+            failure = addFailure(failure, e);
+            if (next < order.size()) {
+              submit(completion, executor, order.get(next++), fetcher);
+              running++;
+            }
+          }
+        }
+      }
+      throw failure;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private <T> void submit(CompletionService<T> completion, ExecutorService executor, Source source, Fetcher<T> fetcher) {
+    completion.submit(() -> fetch(executor, source, fetcher));
+  }
+
+  /**
+   * Fetches from a single source, recording its latency or failure unless the fetch was abandoned.
+   */
+  private <T> T fetch(ExecutorService executor, Source source, Fetcher<T> fetcher) throws IOException {
+    long startNanos = System.nanoTime();
+    try {
+      T result = fetcher.fetch(source.url);
+      if (!executor.isShutdown()) {
+        recordSuccess(source, System.nanoTime() - startNanos);
+      }
+      return result;
+    } catch (IOException | RuntimeException e) {
+      if (!executor.isShutdown()) {
+        logger.log(Level.WARNING, "Unable to fetch from source: " + source.url, e);
+        recordFailure(source);
+      }
+      throw e;
+    }
+  }
+
+  private static IOException addFailure(IOException failure, ExecutionException e) {
+    if (failure == null) {
+      failure = new IOException("All sources failed");
+    }
+    Throwable cause = e.getCause();
+    failure.addSuppressed(cause == null ? e : cause);
+    return failure;
+  }
+}
@@ -0,0 +1,494 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * An immutable history of the labels of a list, for point-in-time lookups.
+ *
+ * <p>The history is a sequence of versions, each effective from its time until the time of the next version.  Only
+ * the first version holds all of its labels.  Each later version holds only the labels added and removed, so a
+ * version is recorded only when the labels change, and a change of case is a removal and an addition.  The times are
+ * those at which the versions were observed, which may be later than the changes were made by the source of the
+ * list.</p>
+ *
+ * <p>For lookups, the versions are replayed once into the intervals of versions in which each label was present,
+ * compiled into a {@link LabelIndex} by case-folded label.  A lookup is a binary search of the version times and a
+ * single index lookup, without allocation.</p>
+ *
+ * <p>The history is bounded by {@linkplain #prune(int, long) pruning} the oldest versions into a new first version.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class LabelHistory {
+
+  private static final Logger logger = Logger.getLogger(LabelHistory.class.getName());
+
+  /**
+   * The number of bytes in each chunk stored in preferences, which is stored as Base64.
+   */
+  private static final int PREFERENCES_CHUNK_LENGTH = Preferences.MAX_VALUE_LENGTH / 4 * 3;
+
+  /**
+   * Gets a limit from a system property, using the default when not set, not a number, or not positive.
+   */
+  static long getLimit(String property, long defaultValue) {
+    long limit = defaultValue;
+    String value = System.getProperty(property);
+    if (value != null) {
+      try {
+        limit = Long.parseLong(value.trim());
+        if (limit <= 0) {
+          if (logger.isLoggable(Level.WARNING)) {
+            logger.warning("Limit must be positive, using default of " + defaultValue + ": " + property + "=" + value);
+          }
+          limit = defaultValue;
+        }
+      } catch (NumberFormatException e) {
+        if (logger.isLoggable(Level.WARNING)) {
+          logger.warning("Invalid limit, using default of " + defaultValue + ": " + property + "=" + value);
+        }
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * The labels added and removed by one version.
+   */
+  private static final class Delta {
+
+    private final long time;
+    private final String[] added;
+    private final String[] removed;
+
+    private Delta(long time, String[] added, String[] removed) {
+      this.time = time;
+      this.added = added;
+      this.removed = removed;
+    }
+  }
+
+  /**
+   * A range of versions in which a label was present.
+   */
+  private static final class Interval {
+
+    private final String label;
+
+    /**
+     * The first version with the label.
+     */
+    private final int from;
+
+    /**
+     * The first version without the label, or {@link Integer#MAX_VALUE} when present in the last version.
+     */
+    private final int to;
+
+    private Interval(String label, int from, int to) {
+      this.label = label;
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+  private static final String[] EMPTY = new String[0];
+
+  private final List<Delta> deltas;
+  private final UnaryOperator<String> alternateForm;
+
+  /**
+   * The time of each version, strictly increasing.
+   */
+  private final long[] times;
+
+  /**
+   * The labels of the last version, in the order added.
+   */
+  private final Set<String> latest;
+
+  /**
+   * The intervals of each case-folded label, also indexed by the alternate form of each label.
+   */
+  private final LabelIndex<Interval[]> index;
+
+  /**
+   * Replays the versions.
+   *
+   * @param  alternateForm  Gets an alternate form also matched for a label, such as its Unicode form, or the label
+   *                        itself when none
+   *
+   * @throws  IllegalArgumentException  when the versions are not consistent
+   */
+  private LabelHistory(List<Delta> deltas, UnaryOperator<String> alternateForm) throws IllegalArgumentException {
+    if (deltas.isEmpty()) {
+      throw new IllegalArgumentException("No versions");
+    }
+    this.deltas = deltas;
+    this.alternateForm = alternateForm;
+    int numVersions = deltas.size();
+    times = new long[numVersions];
+    Map<String, Integer> open = new LinkedHashMap<>();
+    Map<String, List<Interval>> intervals = new LinkedHashMap<>();
+    for (int version = 0; version < numVersions; version++) {
+      Delta delta = deltas.get(version);
+      if (version > 0 && delta.time <= times[version - 1]) {
+        throw new IllegalArgumentException("Version times not increasing: " + delta.time + " <= " + times[version - 1]);
+      }
+      times[version] = delta.time;
+      for (String label : delta.removed) {
+        Integer from = open.remove(label);
+        if (from == null) {
+          throw new IllegalArgumentException("Removed label not present: " + label);
+        }
+        addInterval(intervals, new Interval(label, from, version));
+      }
+      for (String label : delta.added) {
+        if (open.putIfAbsent(label, version) != null) {
+          throw new IllegalArgumentException("Added label already present: " + label);
+        }
+      }
+    }
+    for (Map.Entry<String, Integer> entry : open.entrySet()) {
+      addInterval(intervals, new Interval(entry.getKey(), entry.getValue(), Integer.MAX_VALUE));
+    }
+    latest = Collections.unmodifiableSet(new LinkedHashSet<>(open.keySet()));
+    List<String> labels = new ArrayList<>();
+    List<Interval[]> labelValues = new ArrayList<>();
+    for (List<Interval> list : intervals.values()) {
+      Interval[] value = list.toArray(new Interval[list.size()]);
+      Set<String> forms = new LinkedHashSet<>();
+      for (Interval interval : value) {
+        forms.add(interval.label);
+        forms.add(alternateForm.apply(interval.label));
+      }
+      for (String form : forms) {
+        labels.add(form);
+        labelValues.add(value);
+      }
+    }
+    index = new LabelIndex<>(labels, labelValues);
+  }
+
+  private static void addInterval(Map<String, List<Interval>> intervals, Interval interval) {
+    intervals.computeIfAbsent(LabelIndex.foldCase(interval.label), k -> new ArrayList<>(1)).add(interval);
+  }
+
+  /**
+   * Creates a new history of a single version.
+   *
+   * @param  alternateForm  Gets an alternate form also matched for a label, such as its Unicode form, or the label
+   *                        itself when none
+   */
+  static LabelHistory of(long time, List<String> labels, UnaryOperator<String> alternateForm) {
+    return new LabelHistory(
+        Collections.singletonList(new Delta(time, new LinkedHashSet<>(labels).toArray(EMPTY), EMPTY)),
+        alternateForm
+    );
+  }
+
+  /**
+   * Gets the number of versions.
+   */
+  int size() {
+    return times.length;
+  }
+
+  /**
+   * Gets the time of the first version.
+   */
+  long getStartTime() {
+    return times[0];
+  }
+
+  /**
+   * Gets the time of the last version.
+   */
+  long getLatestTime() {
+    return times[times.length - 1];
+  }
+
+  /**
+   * Gets the version effective at the given time.
+   *
+   * @return  the version or {@code -1} when before the first version
+   */
+  private int versionAt(long time) {
+    int i = Arrays.binarySearch(times, time);
+    return (i >= 0) ? i : (-i - 2);
+  }
+
+  /**
+   * Gets the label present at the given time (case-insensitive), also matching its alternate form.
+   *
+   * @return  the label, in the case present at the given time, or {@code null} when not present at the given time or
+   *          the time is before the first version
+   */
+  String get(String label, long time) {
+    int version = versionAt(time);
+    if (version == -1) {
+      return null;
+    }
+    Interval[] intervals = index.get(label);
+    if (intervals != null) {
+      for (Interval interval : intervals) {
+        if (version >= interval.from && version < interval.to) {
+          return interval.label;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Adds a version when the labels differ from the last version.  When the time is not after the last version, such
+   * as after a change of the system clock, the version is added one millisecond after the last version.
+   *
+   * @return  the new history or {@code this} when the labels are not changed
+   */
+  LabelHistory append(long time, List<String> labels) {
+    Set<String> next = new LinkedHashSet<>(labels);
+    List<String> added = new ArrayList<>();
+    for (String label : next) {
+      if (!latest.contains(label)) {
+        added.add(label);
+      }
+    }
+    List<String> removed = new ArrayList<>();
+    for (String label : latest) {
+      if (!next.contains(label)) {
+        removed.add(label);
+      }
+    }
+    if (added.isEmpty() && removed.isEmpty()) {
+      return this;
+    }
+    List<Delta> newDeltas = new ArrayList<>(deltas.size() + 1);
+    newDeltas.addAll(deltas);
+    newDeltas.add(new Delta(Math.max(time, getLatestTime() + 1), added.toArray(EMPTY), removed.toArray(EMPTY)));
+    return new LabelHistory(newDeltas, alternateForm);
+  }
+
+  /**
+   * Removes the oldest versions, keeping at most the given number of versions, and no versions replaced before the
+   * given time.  The version effective at the given time is retained.  The oldest version retained becomes the first
+   * version, holding all of its labels.
+   *
+   * @param  maxCount  the maximum number of versions, at least one
+   *
+   * @return  the new history or {@code this} when no versions are removed
+   */
+  LabelHistory prune(int maxCount, long minTime) {
+    int numVersions = deltas.size();
+    int first = Math.max(0, numVersions - Math.max(1, maxCount));
+    while (first < numVersions - 1 && times[first + 1] <= minTime) {
+      first++;
+    }
+    if (first == 0) {
+      return this;
+    }
+    Set<String> labels = new LinkedHashSet<>();
+    for (int version = 0; version <= first; version++) {
+      Delta delta = deltas.get(version);
+      labels.removeAll(Arrays.asList(delta.removed));
+      labels.addAll(Arrays.asList(delta.added));
+    }
+    List<Delta> newDeltas = new ArrayList<>(numVersions - first);
+    newDeltas.add(new Delta(times[first], labels.toArray(EMPTY), EMPTY));
+    newDeltas.addAll(deltas.subList(first + 1, numVersions));
+    return new LabelHistory(newDeltas, alternateForm);
+  }
+
+  /**
+   * Writes the versions.
+   */
+  void writeTo(DataOutputStream out) throws IOException {
+    out.writeInt(deltas.size());
+    for (Delta delta : deltas) {
+      out.writeLong(delta.time);
+      writeLabels(out, delta.added);
+      writeLabels(out, delta.removed);
+    }
+  }
+
+  private static void writeLabels(DataOutputStream out, String[] labels) throws IOException {
+    out.writeInt(labels.length);
+    for (String label : labels) {
+      SnapshotStore.writeString(out, label);
+    }
+  }
+
+  /**
+   * Reads versions written by {@link #writeTo(java.io.DataOutputStream)}.
+   *
+   * @throws  IOException  when the versions are not consistent
+   */
+  static LabelHistory readFrom(ByteBuffer in, UnaryOperator<String> alternateForm) throws IOException, BufferUnderflowException {
+    int numVersions = in.getInt();
+    if (numVersions < 0 || numVersions > in.remaining() / (Long.BYTES + Integer.BYTES + Integer.BYTES)) {
+      throw new BufferUnderflowException();
+    }
+    List<Delta> deltas = new ArrayList<>(numVersions);
+    for (int i = 0; i < numVersions; i++) {
+      long time = in.getLong();
+      String[] added = readLabels(in);
+      String[] removed = readLabels(in);
+      deltas.add(new Delta(time, added, removed));
+    }
+    try {
+      return new LabelHistory(deltas, alternateForm);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Inconsistent history", e);
+    }
+  }
+
+  private static String[] readLabels(ByteBuffer in) throws IOException, BufferUnderflowException {
+    int length = in.getInt();
+    if (length < 0 || length > in.remaining() / Integer.BYTES) {
+      throw new BufferUnderflowException();
+    }
+    String[] labels = new String[length];
+    for (int i = 0; i < length; i++) {
+      String label = SnapshotStore.readString(in);
+      if (label == null) {
+        throw new IOException("Null label in history");
+      }
+      labels[i] = label;
+    }
+    return labels;
+  }
+
+  /**
+   * Stores the versions to a file in the {@link SnapshotStore} format.
+   */
+  void saveToFile(Path file, int magic) throws IOException {
+    SnapshotStore.write(file, magic, this::writeTo);
+  }
+
+  /**
+   * Loads versions from a file in the {@link SnapshotStore} format.
+   *
+   * @return  the history or {@code null} when the file does not exist or is not a valid history
+   */
+  static LabelHistory loadFromFile(Path file, int magic, UnaryOperator<String> alternateForm) throws IOException {
+    return SnapshotStore.read(file, magic, in -> readFrom(in, alternateForm));
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError("MD5 is required on all Java platforms", e);
+    }
+  }
+
+  /**
+   * Stores the versions to preferences, in chunks, with an MD5 sum to detect an inconsistent history, since the
+   * preferences API is not atomic.
+   *
+   * @param  key  the prefix of the keys
+   */
+  void saveToPreferences(Preferences prefs, String key) throws IOException, BackingStoreException {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bout)) {
+      writeTo(out);
+    }
+    byte[] bytes = bout.toByteArray();
+    int numChunks = 0;
+    for (int pos = 0; pos < bytes.length; pos += PREFERENCES_CHUNK_LENGTH) {
+      prefs.putByteArray(
+          key + "." + numChunks++,
+          Arrays.copyOfRange(bytes, pos, Math.min(bytes.length, pos + PREFERENCES_CHUNK_LENGTH))
+      );
+    }
+    prefs.putInt(key + ".numChunks", numChunks);
+    prefs.putByteArray(key + ".md5sum", newDigest().digest(bytes));
+    prefs.flush();
+  }
+
+  /**
+   * Loads versions from preferences.
+   *
+   * @param  key  the prefix of the keys
+   *
+   * @return  the history or {@code null} when not found or not consistent
+   */
+  static LabelHistory loadFromPreferences(Preferences prefs, String key, UnaryOperator<String> alternateForm) {
+    int numChunks = prefs.getInt(key + ".numChunks", Integer.MIN_VALUE);
+    if (numChunks == Integer.MIN_VALUE) {
+      logger.fine("History not found in preferences");
+      return null;
+    }
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    for (int i = 0; i < numChunks; i++) {
+      byte[] chunk = prefs.getByteArray(key + "." + i, null);
+      if (chunk == null) {
+        if (logger.isLoggable(Level.WARNING)) {
+          logger.warning("Unable to load history from preferences, chunk missing: " + i);
+        }
+        return null;
+      }
+      bout.writeBytes(chunk);
+    }
+    byte[] bytes = bout.toByteArray();
+    if (!Arrays.equals(prefs.getByteArray(key + ".md5sum", null), newDigest().digest(bytes))) {
+      logger.warning("Unable to load history from preferences, ignoring: md5sum mismatch");
+      return null;
+    }
+    ByteBuffer in = ByteBuffer.wrap(bytes);
+    try {
+      LabelHistory history = readFrom(in, alternateForm);
+      if (in.hasRemaining()) {
+        logger.warning("Unable to load history from preferences, ignoring: trailing content");
+        return null;
+      }
+      return history;
+    } catch (IOException | BufferUnderflowException e) {
+      logger.log(Level.WARNING, "Unable to load history from preferences, ignoring", e);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,700 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable, case-insensitive index of labels, compiled into a minimal perfect hash.
+ *
+ * <p>The case-folded UTF-8 form of all labels is stored in one contiguous {@code byte[]}, addressed by an
+ * {@code int} offset table.  For ASCII labels, this is one byte per character.  A lookup hashes the label once,
+ * selects a bucket, applies the bucket's displacement seed to find the single candidate slot, and performs a
+ * single comparison against the stored label.</p>
+ *
+ * <p>Case is folded one code point at a time, without allocation.  ASCII characters take a fast path.  Other
+ * characters are folded with {@link Character#toLowerCase(int)}, except that a non-ASCII character is never
+ * folded into ASCII, so that U+212A KELVIN SIGN does not match {@code "k"}.  Lookups over bytes
+ * fold ASCII only, matching UTF-8 encoded non-ASCII labels exactly.</p>
+ *
+ * <p>This uses the "hash, displace, and compress" approach, without the compression step.</p>
+ *
+ * @param  <V>  the type of value stored in each slot
+ *
+ * @author  AO Industries, Inc.
+ */
+final class LabelIndex<V> {
+
+  /**
+   * The average number of keys per bucket.  Lower values use more memory for the seeds while
+   * being faster to construct.
+   */
+  private static final int KEYS_PER_BUCKET = 2;
+
+  /**
+   * The maximum number of seeds tried for a single bucket before giving up on the current salt.
+   */
+  private static final int MAX_SEED = 1 << 20;
+
+  /**
+   * The maximum number of salts tried before giving up construction entirely.  This only happens when
+   * distinct labels have colliding 64-bit hashes for every salt, which is not expected in practice.
+   */
+  private static final int MAX_SALT = 16;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  /**
+   * Folds ASCII upper-case to lower-case, leaving all other characters unchanged.
+   */
+  static int toLowerAscii(int ch) {
+    return (ch >= 'A' && ch <= 'Z') ? (ch + ('a' - 'A')) : ch;
+  }
+
+  /**
+   * Folds the case of a single code point.  A non-ASCII code point is never folded into ASCII.
+   */
+  static int foldCase(int codePoint) {
+    if (codePoint < 0x80) {
+      return toLowerAscii(codePoint);
+    }
+    int lower = Character.toLowerCase(codePoint);
+    return lower < 0x80 ? codePoint : lower;
+  }
+
+  /**
+   * Folds the case of a label, one code point at a time.
+   *
+   * @see  #foldCase(int)
+   */
+  static String foldCase(String label) {
+    StringBuilder sb = new StringBuilder(label.length());
+    for (int i = 0, len = label.length(); i < len; ) {
+      int codePoint = label.codePointAt(i);
+      sb.appendCodePoint(foldCase(codePoint));
+      i += Character.charCount(codePoint);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Finalizes a 64-bit hash.  This is the MurmurHash3 64-bit finalizer.
+   */
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb93fe1a85ec9L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * Maps a 64-bit hash uniformly onto {@code [0, n)} without division.
+   */
+  private static int reduce(long h, int n) {
+    return (int) (((h >>> 32) * n) >>> 32);
+  }
+
+  /**
+   * Adds the UTF-8 encoding of a non-ASCII code point to an FNV-1a hash.
+   */
+  private static long hashUtf8(long h, int codePoint) {
+    if (codePoint < 0x800) {
+      h = (h ^ (0xC0 | (codePoint >> 6))) * FNV_PRIME;
+    } else {
+      if (codePoint < 0x10000) {
+        h = (h ^ (0xE0 | (codePoint >> 12))) * FNV_PRIME;
+      } else {
+        h = (h ^ (0xF0 | (codePoint >> 18))) * FNV_PRIME;
+        h = (h ^ (0x80 | ((codePoint >> 12) & 0x3F))) * FNV_PRIME;
+      }
+      h = (h ^ (0x80 | ((codePoint >> 6) & 0x3F))) * FNV_PRIME;
+    }
+    return (h ^ (0x80 | (codePoint & 0x3F))) * FNV_PRIME;
+  }
+
+  /**
+   * Compares the UTF-8 encoding of a non-ASCII code point against the stored key bytes.
+   *
+   * @return  the position after the matched bytes or {@code -1} when not matched
+   */
+  private static int compareUtf8(byte[] k, int pos, int keyEnd, int codePoint) {
+    if (codePoint < 0x800) {
+      if (keyEnd - pos < 2 || k[pos] != (byte) (0xC0 | (codePoint >> 6))) {
+        return -1;
+      }
+      pos++;
+    } else {
+      if (codePoint < 0x10000) {
+        if (keyEnd - pos < 3 || k[pos] != (byte) (0xE0 | (codePoint >> 12))) {
+          return -1;
+        }
+        pos++;
+      } else {
+        if (
+            keyEnd - pos < 4
+                || k[pos] != (byte) (0xF0 | (codePoint >> 18))
+                || k[pos + 1] != (byte) (0x80 | ((codePoint >> 12) & 0x3F))
+        ) {
+          return -1;
+        }
+        pos += 2;
+      }
+      if (k[pos] != (byte) (0x80 | ((codePoint >> 6) & 0x3F))) {
+        return -1;
+      }
+      pos++;
+    }
+    if (k[pos] != (byte) (0x80 | (codePoint & 0x3F))) {
+      return -1;
+    }
+    return pos + 1;
+  }
+
+  /**
+   * Gets the code point starting at the given index, or {@code -1} for an unpaired surrogate.
+   */
+  private static int codePointAt(CharSequence s, int i, int end) {
+    char ch = s.charAt(i);
+    if (Character.isHighSurrogate(ch)) {
+      if (i + 1 < end) {
+        char low = s.charAt(i + 1);
+        if (Character.isLowSurrogate(low)) {
+          return Character.toCodePoint(ch, low);
+        }
+      }
+      return -1;
+    }
+    if (Character.isLowSurrogate(ch)) {
+      return -1;
+    }
+    return ch;
+  }
+
+  private final long salt;
+
+  /**
+   * The number of labels.
+   */
+  private final int size;
+
+  /**
+   * The length, in {@code char}, of the longest label.
+   */
+  private final int maxLength;
+
+  /**
+   * The length, in UTF-8 bytes, of the longest label.
+   */
+  private final int maxByteLength;
+
+  /**
+   * The displacement seed for each bucket.
+   */
+  private final int[] seeds;
+
+  /**
+   * The case-folded UTF-8 form of all labels, concatenated in slot order.
+   */
+  private final byte[] keys;
+
+  /**
+   * The offset of each slot within {@link #keys}, with one additional trailing offset for the end of the last label.
+   */
+  private final int[] offsets;
+
+  /**
+   * The value for each slot, or {@code null} when compiled without values.
+   */
+  private final Object[] values;
+
+  /**
+   * Compiles a new index.
+   *
+   * @param  labels  The labels to index.  When more than one label has the same case-folded form,
+   *                 the last one is used, matching the behavior of a map.
+   * @param  labelValues  The value for each label, at the same index, or {@code null} to compile without values
+   *
+   * @throws  IllegalArgumentException  when the number of labels and values differ
+   */
+  LabelIndex(List<String> labels, List<? extends V> labelValues) throws IllegalArgumentException {
+    if (labelValues != null && labels.size() != labelValues.size()) {
+      throw new IllegalArgumentException("labels.size() != labelValues.size(): " + labels.size() + " != " + labelValues.size());
+    }
+    // Distinct case-folded keys to their values
+    Map<String, V> distinct = new LinkedHashMap<>();
+    for (int i = 0, len = labels.size(); i < len; i++) {
+      distinct.put(foldCase(labels.get(i)), labelValues == null ? null : labelValues.get(i));
+    }
+    List<byte[]> utf8Keys = new ArrayList<>(distinct.size());
+    int longest = 0;
+    for (String key : distinct.keySet()) {
+      utf8Keys.add(key.getBytes(StandardCharsets.UTF_8));
+      if (key.length() > longest) {
+        longest = key.length();
+      }
+    }
+    this.maxLength = longest;
+    List<V> distinctValues = new ArrayList<>(distinct.values());
+    int n = utf8Keys.size();
+    this.size = n;
+    int numBuckets = Math.max(1, n / KEYS_PER_BUCKET);
+    for (int s = 0; s < MAX_SALT; s++) {
+      long trySalt = FNV_OFFSET_BASIS + s * GOLDEN_GAMMA;
+      int[] slots = new int[n];
+      int[] trySeeds = build(utf8Keys, trySalt, numBuckets, slots);
+      if (trySeeds != null) {
+        this.salt = trySalt;
+        this.seeds = trySeeds;
+        byte[][] slotKeys = new byte[n][];
+        Object[] slotValues = new Object[n];
+        int totalLength = 0;
+        int longestBytes = 0;
+        for (int i = 0; i < n; i++) {
+          byte[] key = utf8Keys.get(i);
+          slotKeys[slots[i]] = key;
+          slotValues[slots[i]] = distinctValues.get(i);
+          totalLength += key.length;
+          if (key.length > longestBytes) {
+            longestBytes = key.length;
+          }
+        }
+        this.maxByteLength = longestBytes;
+        this.keys = new byte[totalLength];
+        this.offsets = new int[n + 1];
+        int pos = 0;
+        for (int i = 0; i < n; i++) {
+          offsets[i] = pos;
+          byte[] key = slotKeys[i];
+          System.arraycopy(key, 0, keys, pos, key.length);
+          pos += key.length;
+        }
+        offsets[n] = pos;
+        this.values = (labelValues == null) ? null : slotValues;
+        return;
+      }
+    }
+    throw new IllegalStateException("Unable to construct perfect hash after " + MAX_SALT + " salts");
+  }
+
+  private LabelIndex(
+      long salt,
+      int size,
+      int maxLength,
+      int maxByteLength,
+      int[] seeds,
+      byte[] keys,
+      int[] offsets,
+      Object[] values
+  ) {
+    this.salt = salt;
+    this.size = size;
+    this.maxLength = maxLength;
+    this.maxByteLength = maxByteLength;
+    this.seeds = seeds;
+    this.keys = keys;
+    this.offsets = offsets;
+    this.values = values;
+  }
+
+  /**
+   * Writes the compiled tables of this index, without its values.  The values must be stored separately, in slot
+   * order.
+   *
+   * @see  #readFrom(java.nio.ByteBuffer, java.lang.Object[])
+   * @see  SnapshotStore
+   */
+  void writeTo(DataOutputStream out) throws IOException {
+    out.writeLong(salt);
+    out.writeInt(size);
+    out.writeInt(maxLength);
+    out.writeInt(maxByteLength);
+    SnapshotStore.writeInts(out, seeds);
+    SnapshotStore.writeBytes(out, keys);
+    SnapshotStore.writeInts(out, offsets);
+  }
+
+  /**
+   * Reads the compiled tables of an index, without constructing its perfect hash again.
+   *
+   * @param  values  The value for each slot, in slot order, or {@code null} for an index without values
+   *
+   * @throws  IOException  when the tables are inconsistent
+   * @throws  BufferUnderflowException  when the tables are truncated
+   *
+   * @see  #writeTo(java.io.DataOutputStream)
+   */
+  static <V> LabelIndex<V> readFrom(ByteBuffer in, Object[] values) throws IOException, BufferUnderflowException {
+    long salt = in.getLong();
+    int size = in.getInt();
+    int maxLength = in.getInt();
+    int maxByteLength = in.getInt();
+    int[] seeds = SnapshotStore.readInts(in);
+    byte[] keys = SnapshotStore.readBytes(in);
+    int[] offsets = SnapshotStore.readInts(in);
+    if (
+        (values != null && size != values.length)
+            || seeds.length != Math.max(1, size / KEYS_PER_BUCKET)
+            || offsets.length != size + 1
+            || offsets[size] != keys.length
+    ) {
+      throw new IOException("Inconsistent index tables");
+    }
+    for (int i = 0; i < size; i++) {
+      if (offsets[i] < 0 || offsets[i] > offsets[i + 1]) {
+        throw new IOException("Inconsistent index offsets");
+      }
+    }
+    for (int seed : seeds) {
+      if (seed < 0) {
+        throw new IOException("Inconsistent index seeds");
+      }
+    }
+    return new LabelIndex<>(salt, size, maxLength, maxByteLength, seeds, keys, offsets, values);
+  }
+
+  /**
+   * Compiles a new index where each label is its own value.
+   *
+   * @see  #LabelIndex(java.util.List, java.util.List)
+   */
+  static LabelIndex<String> of(List<String> labels) {
+    return new LabelIndex<>(labels, labels);
+  }
+
+  /**
+   * Compiles a new index without values, for callers that store the value of each slot more compactly themselves.
+   * The slot of each label is found with {@link #indexOf(java.lang.String)} once compiled.
+   *
+   * @see  #LabelIndex(java.util.List, java.util.List)
+   */
+  static LabelIndex<Void> keysOf(List<String> labels) {
+    return new LabelIndex<>(labels, null);
+  }
+
+  /**
+   * Finds the displacement seed for each bucket.
+   *
+   * @param  slots  Receives the slot assigned to each key
+   *
+   * @return  the seeds or {@code null} when unable to place all keys with this salt
+   */
+  private static int[] build(List<byte[]> utf8Keys, long salt, int numBuckets, int[] slots) {
+    int n = utf8Keys.size();
+    long[] hashes = new long[n];
+    int[] bucketSizes = new int[numBuckets];
+    for (int i = 0; i < n; i++) {
+      long h = hash(utf8Keys.get(i), salt);
+      hashes[i] = h;
+      bucketSizes[reduce(h, numBuckets)]++;
+    }
+    // Group keys by bucket
+    int[] bucketStarts = new int[numBuckets + 1];
+    for (int b = 0; b < numBuckets; b++) {
+      bucketStarts[b + 1] = bucketStarts[b] + bucketSizes[b];
+    }
+    int[] bucketKeys = new int[n];
+    {
+      int[] fill = Arrays.copyOf(bucketStarts, numBuckets);
+      for (int i = 0; i < n; i++) {
+        bucketKeys[fill[reduce(hashes[i], numBuckets)]++] = i;
+      }
+    }
+    // Place largest buckets first
+    Integer[] order = new Integer[numBuckets];
+    for (int b = 0; b < numBuckets; b++) {
+      order[b] = b;
+    }
+    Arrays.sort(order, (b1, b2) -> Integer.compare(bucketSizes[b2], bucketSizes[b1]));
+    int[] newSeeds = new int[numBuckets];
+    boolean[] taken = new boolean[n];
+    int[] candidate = new int[n == 0 ? 0 : Arrays.stream(bucketSizes).max().getAsInt()];
+    for (int b : order) {
+      int bucketSize = bucketSizes[b];
+      if (bucketSize == 0) {
+        break;
+      }
+      int start = bucketStarts[b];
+      boolean placed = false;
+      for (int seed = 0; seed < MAX_SEED && !placed; seed++) {
+        placed = true;
+        for (int k = 0; k < bucketSize; k++) {
+          int slot = slot(hashes[bucketKeys[start + k]], seed, n);
+          if (taken[slot]) {
+            placed = false;
+          } else {
+            for (int j = 0; j < k; j++) {
+              if (candidate[j] == slot) {
+                placed = false;
+                break;
+              }
+            }
+          }
+          if (!placed) {
+            break;
+          }
+          candidate[k] = slot;
+        }
+        if (placed) {
+          newSeeds[b] = seed;
+          for (int k = 0; k < bucketSize; k++) {
+            taken[candidate[k]] = true;
+            slots[bucketKeys[start + k]] = candidate[k];
+          }
+        }
+      }
+      if (!placed) {
+        return null;
+      }
+    }
+    return newSeeds;
+  }
+
+  /**
+   * Computes the slot for a given hash and displacement seed.
+   */
+  private static int slot(long hash, int seed, int size) {
+    return reduce(mix(hash + (seed + 1L) * GOLDEN_GAMMA), size);
+  }
+
+  /**
+   * Computes the hash of an already case-folded key.  This is FNV-1a over the UTF-8 bytes, followed by a finalizer.
+   */
+  private static long hash(byte[] utf8Key, long salt) {
+    long h = salt;
+    for (byte b : utf8Key) {
+      h = (h ^ (b & 0xFF)) * FNV_PRIME;
+    }
+    return mix(h);
+  }
+
+  /**
+   * Gets the number of distinct labels in this index.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Gets the length, in {@code char}, of the longest label in this index.
+   */
+  int getMaxLength() {
+    return maxLength;
+  }
+
+  /**
+   * Gets the length, in UTF-8 bytes, of the longest label in this index.
+   */
+  int getMaxByteLength() {
+    return maxByteLength;
+  }
+
+  /**
+   * Finds the slot containing the given label (case-insensitive).
+   *
+   * @return  the slot or {@code -1} when not found
+   */
+  int indexOf(String label) {
+    return indexOf(label, 0, label.length());
+  }
+
+  /**
+   * Finds the slot containing the given range of characters (case-insensitive).
+   * Case is folded while hashing and comparing, without any allocation.
+   *
+   * @param  start  the index of the first character, inclusive
+   * @param  end  the index of the last character, exclusive
+   *
+   * @return  the slot or {@code -1} when not found
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within the sequence
+   */
+  int indexOf(CharSequence s, int start, int end) throws IndexOutOfBoundsException {
+    Objects.checkFromToIndex(start, end, s.length());
+    int n = size;
+    if (n == 0) {
+      return -1;
+    }
+    long h = salt;
+    for (int i = start; i < end; i++) {
+      char ch = s.charAt(i);
+      if (ch < 0x80) {
+        h = (h ^ toLowerAscii(ch)) * FNV_PRIME;
+      } else {
+        int codePoint = codePointAt(s, i, end);
+        if (codePoint == -1) {
+          return -1;
+        }
+        h = hashUtf8(h, foldCase(codePoint));
+        if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+          i++;
+        }
+      }
+    }
+    h = mix(h);
+    int slot = slot(h, seeds[reduce(h, seeds.length)], n);
+    int pos = offsets[slot];
+    int keyEnd = offsets[slot + 1];
+    byte[] k = keys;
+    for (int i = start; i < end; i++) {
+      char ch = s.charAt(i);
+      if (ch < 0x80) {
+        if (pos == keyEnd || k[pos++] != toLowerAscii(ch)) {
+          return -1;
+        }
+      } else {
+        int codePoint = codePointAt(s, i, end);
+        pos = compareUtf8(k, pos, keyEnd, foldCase(codePoint));
+        if (pos == -1) {
+          return -1;
+        }
+        if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+          i++;
+        }
+      }
+    }
+    return pos == keyEnd ? slot : -1;
+  }
+
+  /**
+   * Finds the slot containing the given range of UTF-8 bytes (ASCII case-insensitive).
+   * ASCII case is folded while hashing and comparing, without any allocation.
+   *
+   * @param  off  the index of the first byte
+   * @param  len  the number of bytes
+   *
+   * @return  the slot or {@code -1} when not found
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within the array
+   */
+  int indexOf(byte[] b, int off, int len) throws IndexOutOfBoundsException {
+    Objects.checkFromIndexSize(off, len, b.length);
+    int n = size;
+    if (n == 0) {
+      return -1;
+    }
+    int end = off + len;
+    long h = salt;
+    for (int i = off; i < end; i++) {
+      h = (h ^ toLowerAscii(b[i] & 0xFF)) * FNV_PRIME;
+    }
+    h = mix(h);
+    int slot = slot(h, seeds[reduce(h, seeds.length)], n);
+    int keyOff = offsets[slot];
+    if (offsets[slot + 1] - keyOff != len) {
+      return -1;
+    }
+    byte[] k = keys;
+    for (int i = off; i < end; i++) {
+      if (k[keyOff++] != (byte) toLowerAscii(b[i] & 0xFF)) {
+        return -1;
+      }
+    }
+    return slot;
+  }
+
+  /**
+   * Finds the slot containing the given range of UTF-8 bytes (ASCII case-insensitive).
+   * Uses absolute gets, so the buffer position and limit are not modified.
+   * ASCII case is folded while hashing and comparing, without any allocation.
+   *
+   * @param  start  the index of the first byte, inclusive
+   * @param  end  the index of the last byte, exclusive
+   *
+   * @return  the slot or {@code -1} when not found
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within the buffer limit
+   */
+  int indexOf(ByteBuffer b, int start, int end) throws IndexOutOfBoundsException {
+    Objects.checkFromToIndex(start, end, b.limit());
+    int n = size;
+    if (n == 0) {
+      return -1;
+    }
+    long h = salt;
+    for (int i = start; i < end; i++) {
+      h = (h ^ toLowerAscii(b.get(i) & 0xFF)) * FNV_PRIME;
+    }
+    h = mix(h);
+    int slot = slot(h, seeds[reduce(h, seeds.length)], n);
+    int keyOff = offsets[slot];
+    if (offsets[slot + 1] - keyOff != end - start) {
+      return -1;
+    }
+    byte[] k = keys;
+    for (int i = start; i < end; i++) {
+      if (k[keyOff++] != (byte) toLowerAscii(b.get(i) & 0xFF)) {
+        return -1;
+      }
+    }
+    return slot;
+  }
+
+  /**
+   * Gets the value in the given slot.
+   *
+   * @throws  NullPointerException  when compiled without values
+   */
+  @SuppressWarnings("unchecked")
+  V getValue(int slot) {
+    return (V) values[slot];
+  }
+
+  /**
+   * Gets the value for the given label (case-insensitive).
+   *
+   * @return  The value or {@code null} if no match.
+   */
+  V get(String label) {
+    int slot = indexOf(label);
+    return slot == -1 ? null : getValue(slot);
+  }
+
+  /**
+   * Gets the value for the given range of characters (case-insensitive).
+   *
+   * @return  The value or {@code null} if no match.
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within the sequence
+   */
+  V get(CharSequence s, int start, int end) throws IndexOutOfBoundsException {
+    int slot = indexOf(s, start, end);
+    return slot == -1 ? null : getValue(slot);
+  }
+}
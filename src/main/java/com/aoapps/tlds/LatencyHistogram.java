@@ -0,0 +1,135 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies, in fixed buckets so that results are comparable between processes and releases.
+ * Recording is lock-free, using striped counters.
+ *
+ * <p>The getters read each counter independently, so a histogram read while latencies are being recorded may be
+ * slightly inconsistent.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class LatencyHistogram {
+
+  /**
+   * The exclusive upper bound of each bucket, in milliseconds.  The last bucket is unbounded.
+   */
+  private static final long[] BUCKET_UPPER_BOUNDS_MILLIS = {
+      1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 20000, 50000, Long.MAX_VALUE
+  };
+
+  private final LongAdder[] buckets = new LongAdder[BUCKET_UPPER_BOUNDS_MILLIS.length];
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+  LatencyHistogram() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records a latency.
+   */
+  void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+    int bucket = 0;
+    while (millis >= BUCKET_UPPER_BOUNDS_MILLIS[bucket]) {
+      bucket++;
+    }
+    buckets[bucket].increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulate(nanos);
+  }
+
+  /**
+   * Records the latency since the given {@link System#nanoTime()}.
+   */
+  void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Gets the number of latencies recorded.
+   */
+  public long getCount() {
+    long count = 0;
+    for (LongAdder bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * Gets the sum of all latencies recorded, in nanoseconds.
+   */
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  /**
+   * Gets the longest latency recorded, in nanoseconds, or {@code 0} when none recorded.
+   */
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  /**
+   * Gets the mean latency, in milliseconds, or {@code 0} when none recorded.
+   */
+  public double getMeanMillis() {
+    long count = getCount();
+    return count == 0 ? 0 : (double) getTotalNanos() / count / 1000000;
+  }
+
+  /**
+   * Gets the exclusive upper bound of each bucket, in milliseconds.  The last bucket is unbounded and has the bound
+   * {@link Long#MAX_VALUE}.
+   */
+  public long[] getBucketUpperBoundsMillis() {
+    return BUCKET_UPPER_BOUNDS_MILLIS.clone();
+  }
+
+  /**
+   * Gets the number of latencies recorded in each bucket.
+   *
+   * @see  #getBucketUpperBoundsMillis()
+   */
+  public long[] getBucketCounts() {
+    long[] counts = new long[buckets.length];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = buckets[i].sum();
+    }
+    return counts;
+  }
+}
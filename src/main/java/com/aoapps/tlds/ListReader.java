@@ -0,0 +1,212 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Reads a list in a single streaming pass, without first buffering it as a {@link String}.
+ *
+ * <p>Each line is passed to a {@link LineHandler} as soon as it is complete, then appended to the UTF-8 encoded source
+ * and to an MD5 digest of the source.  The source and each line are bounded in length, and a list exceeding either
+ * bound, or rejected by the handler, fails as soon as detected, before the rest of the list is read.</p>
+ *
+ * <p>Lines are split as {@link java.io.BufferedReader#readLine()}, and the source retains the line terminators exactly
+ * as read.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class ListReader {
+
+  /**
+   * Receives each line of the list.
+   */
+  @FunctionalInterface
+  interface LineHandler {
+    /**
+     * Handles one line.
+     *
+     * @param  line  the characters of the line, without its terminator, only valid for the duration of this call
+     * @param  lineNumber  the number of the line, starting at {@code 1}
+     * @param  offset  the offset of the start of the line within the UTF-8 encoded source
+     *
+     * @throws  IOException  when the line is malformed, which stops the read
+     */
+    void line(CharSequence line, int lineNumber, int offset) throws IOException;
+  }
+
+  /**
+   * Creates a new MD5 digest.
+   */
+  static MessageDigest newMd5() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError("MD5 is expected to be available on all platforms", e);
+    }
+  }
+
+  /**
+   * Reads a list.
+   *
+   * @param  maxLength  the maximum length of the source, in UTF-8 bytes
+   * @param  maxLineLength  the maximum length of a line, in characters, not including its terminator
+   *
+   * @throws  IOException  when unable to read, when the source or a line exceeds its maximum length, or when a line is
+   *                       rejected by the handler
+   */
+  static ListReader read(Reader in, int maxLength, int maxLineLength, LineHandler handler) throws IOException {
+    ListReader reader = new ListReader(maxLength, maxLineLength, handler);
+    char[] buff = new char[4096];
+    int numChars;
+    while ((numChars = in.read(buff)) != -1) {
+      reader.append(buff, numChars);
+    }
+    reader.finish();
+    return reader;
+  }
+
+  private final int maxLength;
+  private final int maxLineLength;
+  private final LineHandler handler;
+  private final StringBuilder line;
+  private final MessageDigest digest = newMd5();
+  private byte[] source = new byte[4096];
+  private int length;
+  private int lineNumber;
+
+  /**
+   * Set after a carriage return, so a following line feed is part of the same terminator.
+   */
+  private boolean afterCarriageReturn;
+
+  private ListReader(int maxLength, int maxLineLength, LineHandler handler) {
+    this.maxLength = maxLength;
+    this.maxLineLength = maxLineLength;
+    this.handler = handler;
+    this.line = new StringBuilder(Math.min(maxLineLength, 256));
+  }
+
+  private void append(char[] buff, int numChars) throws IOException {
+    for (int i = 0; i < numChars; i++) {
+      char ch = buff[i];
+      if (ch == '\n') {
+        if (afterCarriageReturn) {
+          afterCarriageReturn = false;
+        } else {
+          endLine();
+        }
+        appendByte((byte) '\n');
+      } else if (ch == '\r') {
+        endLine();
+        appendByte((byte) '\r');
+        afterCarriageReturn = true;
+      } else {
+        afterCarriageReturn = false;
+        if (line.length() == maxLineLength) {
+          throw new IOException("Line " + (lineNumber + 1) + " exceeds maximum length of " + maxLineLength + " characters");
+        }
+        line.append(ch);
+      }
+    }
+  }
+
+  /**
+   * Handles the last line when not terminated.
+   */
+  private void finish() throws IOException {
+    if (line.length() > 0) {
+      endLine();
+    }
+  }
+
+  private void endLine() throws IOException {
+    lineNumber++;
+    int offset = length;
+    handler.line(line, lineNumber, offset);
+    int lineLength = line.length();
+    boolean ascii = true;
+    for (int i = 0; i < lineLength; i++) {
+      if (line.charAt(i) >= 0x80) {
+        ascii = false;
+        break;
+      }
+    }
+    if (ascii) {
+      ensureCapacity(lineLength);
+      for (int i = 0; i < lineLength; i++) {
+        source[length++] = (byte) line.charAt(i);
+      }
+    } else {
+      byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, source, length, bytes.length);
+      length += bytes.length;
+    }
+    digest.update(source, offset, length - offset);
+    line.setLength(0);
+  }
+
+  private void appendByte(byte b) throws IOException {
+    ensureCapacity(1);
+    source[length++] = b;
+    digest.update(b);
+  }
+
+  /**
+   * Ensures capacity for the given number of additional bytes, failing when the source would exceed its maximum
+   * length.
+   */
+  private void ensureCapacity(int additional) throws IOException {
+    int required = length + additional;
+    if (required > maxLength || required < 0) {
+      throw new IOException("List exceeds maximum length of " + maxLength + " bytes");
+    }
+    if (required > source.length) {
+      source = Arrays.copyOf(source, (int) Math.min(maxLength, Math.max(required, source.length * 2L)));
+    }
+  }
+
+  /**
+   * Gets the UTF-8 encoded source, trimmed to its length.
+   */
+  byte[] getSource() {
+    if (source.length != length) {
+      source = Arrays.copyOf(source, length);
+    }
+    return source;
+  }
+
+  /**
+   * Gets the digest of the source, which may be updated further by the caller.
+   */
+  MessageDigest getDigest() {
+    return digest;
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import com.aoapps.lang.io.IoUtils;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The state of a snapshot of a list that is stored and updated the same for all lists: its source, the times of its
+ * updates, the validators of its download, and the randomized time of its next update.
+ *
+ * @param  <S>  the type of snapshot
+ *
+ * @see  ListUpdater
+ *
+ * @author  AO Industries, Inc.
+ */
+abstract class ListSnapshot<S extends ListSnapshot<S>> {
+
+  private static final Logger logger = Logger.getLogger(ListSnapshot.class.getName());
+
+  /**
+   * In DEBUG mode, times are greatly shortened for testing.
+   */
+  private static final boolean DEBUG = false;
+
+  /**
+   * The minimum number of milliseconds between updates after a success.
+   */
+  private static final long UPDATE_INTERVAL_SUCCESS_MIN =
+      DEBUG
+          ?          (60L * 60 * 1000)  // 1 hour
+          : (7L * 24 * 60 * 60 * 1000); // 7 days
+
+  /**
+   * The randomized offset number of milliseconds between updates after a success.
+   */
+  private static final int UPDATE_INTERVAL_SUCCESS_DEVIATION =
+      DEBUG
+          ?       (5 * 60 * 1000)  // 5 minutes
+          : (24 * 60 * 60 * 1000); // 1 day
+
+  /**
+   * The minimum number of milliseconds between updates after a failure.
+   */
+  private static final long UPDATE_INTERVAL_FAILURE_MIN =
+      DEBUG
+          ?      (10L * 60 * 1000)  // 10 minutes
+          : (24L * 60 * 60 * 1000); // 1 day
+
+  /**
+   * The randomized offset number of milliseconds between updates after a failure.
+   */
+  private static final int UPDATE_INTERVAL_FAILURE_DEVIATION =
+      DEBUG
+          ?          (60 * 1000)  // 1 minute
+          : (4 * 60 * 60 * 1000); // 4 hours
+
+  /**
+   * A fast pseudo-random number generator for non-cryptographic purposes.
+   */
+  private static final Random fastRandom = new Random(IoUtils.bufferToLong(new SecureRandom().generateSeed(Long.BYTES)));
+
+  /**
+   * The UTF-8 encoded list, exactly as parsed.  Shared by all snapshots of the same list.
+   */
+  final byte[] source;
+
+  /**
+   * The digest of {@link #source}, not yet finished, or {@code null} when not computed while parsing.
+   *
+   * @see  #newDigest()
+   */
+  final MessageDigest sourceDigest;
+
+  final long lastUpdatedTime;
+
+  final boolean isBootstrap;
+
+  final boolean lastUpdateSuccessful;
+
+  final long lastSuccessfulUpdateTime;
+
+  /**
+   * The {@code ETag} of the last download, sent as {@code If-None-Match}, or {@code null} when none.
+   */
+  final String etag;
+
+  /**
+   * The {@code Last-Modified} of the last download, sent as {@code If-Modified-Since}, or {@code null} when none.
+   */
+  final String lastModified;
+
+  /**
+   * MD5 sum to make sure we have a consistent snapshot from preferences.
+   * The preferences API is not atomic so inconsistent states are detected and ignored.
+   * Computed on first use.
+   *
+   * @see  #getMd5sum()
+   */
+  private volatile byte[] md5sum;
+
+  /**
+   * The next time the data will be updated.
+   */
+  final long nextUpdateAfter;
+
+  /**
+   * Bounded time to handle extreme clock changes into the past.
+   */
+  final long nextUpdateBefore;
+
+  ListSnapshot(
+      byte[] source,
+      MessageDigest sourceDigest,
+      long lastUpdatedTime,
+      boolean isBootstrap,
+      boolean lastUpdateSuccessful,
+      long lastSuccessfulUpdateTime,
+      String etag,
+      String lastModified
+  ) {
+    this.source = source;
+    this.sourceDigest = sourceDigest;
+    this.lastUpdatedTime = lastUpdatedTime;
+    this.isBootstrap = isBootstrap;
+    this.lastUpdateSuccessful = lastUpdateSuccessful;
+    this.lastSuccessfulUpdateTime = lastSuccessfulUpdateTime;
+    this.etag = etag;
+    this.lastModified = lastModified;
+    // Random next update time
+    {
+      long updateMin;
+      int updateDeviation;
+      if (lastUpdateSuccessful) {
+        updateMin = UPDATE_INTERVAL_SUCCESS_MIN;
+        updateDeviation = UPDATE_INTERVAL_SUCCESS_DEVIATION;
+      } else {
+        updateMin = UPDATE_INTERVAL_FAILURE_MIN;
+        updateDeviation = UPDATE_INTERVAL_FAILURE_DEVIATION;
+      }
+      int randomDeviation = fastRandom.nextInt(updateDeviation);
+      this.nextUpdateAfter = lastUpdatedTime + updateMin + randomDeviation;
+      this.nextUpdateBefore = lastUpdatedTime - updateMin - randomDeviation;
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("updateMin=" + updateMin);
+        logger.fine("updateDeviation=" + updateDeviation);
+        logger.fine("randomDeviation=" + randomDeviation);
+        logger.fine("nextUpdateAfter=" + new Date(nextUpdateAfter));
+        logger.fine("nextUpdateBefore=" + new Date(nextUpdateBefore));
+      }
+    }
+  }
+
+  /**
+   * Creates a new snapshot of the same list as this snapshot, with updated times and validators.
+   * The list is not parsed again, and its compiled form is shared.
+   */
+  abstract S withUpdate(
+      long lastUpdatedTime,
+      boolean lastUpdateSuccessful,
+      long lastSuccessfulUpdateTime,
+      String etag,
+      String lastModified
+  );
+
+  /**
+   * Writes the compiled form of the list in the {@link SnapshotStore} format, following its {@linkplain #source}.
+   */
+  abstract void writeContent(DataOutputStream out) throws IOException;
+
+  /**
+   * Checks if this snapshot is of the same list as another, without comparing the lists.  Snapshots created by
+   * {@link #withUpdate(long, boolean, long, java.lang.String, java.lang.String)} are of the same list.
+   */
+  final boolean isSameList(ListSnapshot<?> other) {
+    return source == other.source;
+  }
+
+  /**
+   * Checks if it is time for a background update.  This is a cheap comparison against the randomized update window.
+   */
+  final boolean isUpdateDue(long currentTime) {
+    return currentTime >= nextUpdateAfter || currentTime <= nextUpdateBefore;
+  }
+
+  /**
+   * Gets the MD5 sum, computing it on first use.  It is only used to detect inconsistent snapshots in preferences,
+   * so snapshots loaded from a {@link SnapshotStore} are never hashed.
+   */
+  final byte[] getMd5sum() throws IOException {
+    byte[] sum = md5sum;
+    if (sum == null) {
+      MessageDigest md = newDigest();
+      try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), md))) {
+        out.writeLong(lastUpdatedTime);
+        out.writeBoolean(lastUpdateSuccessful);
+        out.writeLong(lastSuccessfulUpdateTime);
+        // Validators are tagged and only written when present, matching the sums of snapshots stored without them
+        if (etag != null) {
+          out.writeByte(1);
+          out.writeUTF(etag);
+        }
+        if (lastModified != null) {
+          out.writeByte(2);
+          out.writeUTF(lastModified);
+        }
+      }
+      sum = md.digest();
+      md5sum = sum;
+    }
+    return sum;
+  }
+
+  /**
+   * Creates a new MD5 digest that has been updated with the source.  The digest computed while parsing is copied
+   * when available, so the source is not hashed again.
+   */
+  private MessageDigest newDigest() {
+    if (sourceDigest != null) {
+      try {
+        return (MessageDigest) sourceDigest.clone();
+      } catch (CloneNotSupportedException e) {
+        logger.log(Level.FINE, "MD5 digest not cloneable, hashing source again", e);
+      }
+    }
+    MessageDigest md = ListReader.newMd5();
+    md.update(source);
+    return md;
+  }
+}
@@ -0,0 +1,1038 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.text.DateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * The self-updating lifecycle of a list, shared by all lists.  Each list has one updater, holding its current
+ * snapshot, and passes in only what differs between the lists: its names, sources, storage, and parser.
+ *
+ * <p>The first snapshot is the bundled bootstrap.  Background updates load any snapshot stored by another process,
+ * then download the list when due, while holding the host-wide {@link UpdateLock}, from the {@link HedgedSources}
+ * of the list.  Updates are triggered by the caller threads of {@link #getSnapshot()}, by an
+ * {@link UpdateScheduler}, or by a {@link FileWatcher}.  Snapshots are stored to the {@link SnapshotStore} when
+ * configured, otherwise to the <a href="https://docs.oracle.com/javase/7/docs/technotes/guides/preferences/">Java
+ * Preferences API</a>.</p>
+ *
+ * @param  <S>  the type of snapshot
+ *
+ * @author  AO Industries, Inc.
+ */
+final class ListUpdater<S extends ListSnapshot<S>> {
+
+  private static final Logger logger = Logger.getLogger(ListUpdater.class.getName());
+
+  /**
+   * The encoding of all lists.
+   */
+  private static final Charset DATA_ENCODING = StandardCharsets.UTF_8;
+
+  /**
+   * Parses a list into a new snapshot.
+   */
+  @FunctionalInterface
+  interface Parser<S> {
+    /**
+     * Parses a list in a single streaming pass, compiling it.
+     *
+     * @throws  IOException  when unable to read, or when the list is too long or malformed
+     */
+    S parse(
+        Reader in,
+        long lastUpdatedTime,
+        boolean isBootstrap,
+        boolean lastUpdateSuccessful,
+        long lastSuccessfulUpdateTime,
+        String etag,
+        String lastModified
+    ) throws IOException;
+  }
+
+  /**
+   * Reads the compiled form of a list in the {@link SnapshotStore} format, written by
+   * {@link ListSnapshot#writeContent(java.io.DataOutputStream)}, into a new snapshot.
+   */
+  @FunctionalInterface
+  interface ContentReader<S> {
+    /**
+     * Reads a snapshot, without parsing the list again.
+     *
+     * @param  source  the source of the list, already read
+     *
+     * @throws  IOException  when the content is inconsistent
+     */
+    S readFrom(
+        ByteBuffer in,
+        byte[] source,
+        long lastUpdatedTime,
+        boolean isBootstrap,
+        boolean lastUpdateSuccessful,
+        long lastSuccessfulUpdateTime,
+        String etag,
+        String lastModified
+    ) throws IOException;
+  }
+
+  /**
+   * Notified after each snapshot is published by an update.  Not notified of the initial bootstrap snapshot.
+   */
+  @FunctionalInterface
+  interface PublishListener<S> {
+    /**
+     * Called on the thread performing the update, after the new snapshot is published.
+     *
+     * @param  saved  whether the new snapshot is stored, which is not the case for snapshots parsed by file updates
+     */
+    void published(S oldSnapshot, S newSnapshot, boolean saved);
+  }
+
+  /**
+   * Lock for snapshot initialization and for waiting on background updates.
+   * The read path does not acquire this lock once the first snapshot has been published.
+   */
+  private static class Lock {
+    private Lock() {
+      // Empty lock class to help heap profile
+    }
+  }
+
+  private final Lock lock = new Lock();
+
+  private final Class<?> listClass;
+  private final String name;
+  private final String description;
+  private final HedgedSources sources;
+  private final String bootstrapList;
+  private final long bootstrapTime;
+  private final String storeFile;
+  private final int storeMagic;
+  private final String lockFile;
+  private final Parser<S> parser;
+  private final ContentReader<S> contentReader;
+  private final PublishListener<S> publishListener;
+  private final Metrics metrics;
+
+  private final Preferences prefs;
+
+  /**
+   * The last obtained snapshot.
+   * Published through this volatile field so that readers never need to acquire {@link #lock}.
+   */
+  private volatile S snapshot;
+
+  /**
+   * Set while a background update is being considered or is in progress.
+   * Only the single caller that wins the compare-and-set performs the update handoff;
+   * all other callers return the current snapshot immediately.
+   */
+  private final AtomicBoolean updating = new AtomicBoolean();
+
+  /**
+   * The scheduler of proactive updates, or {@code null} when updates are triggered by {@link #getSnapshot()}.
+   */
+  private volatile UpdateScheduler updateScheduler;
+
+  /**
+   * The watcher of file updates, or {@code null} when updates are downloaded.
+   */
+  private volatile FileWatcher fileWatcher;
+
+  /**
+   * Creates the updater of a list, which loads nothing until the first {@link #getSnapshot()}.
+   *
+   * @param  listClass  the class of the list, which contains its bundled resources and names its threads
+   * @param  name  the name of the list, which names its {@link Metrics} and prefixes its keys in preferences
+   * @param  description  the description of the list in log messages
+   * @param  sourcesProperty  the system property that configures the {@link HedgedSources}
+   * @param  defaultUrl  the authoritative URL, used when the sources are not configured
+   * @param  bootstrapList  the resource of the bundled list
+   * @param  bootstrapTime  the time the bundled list was last updated
+   * @param  storeFile  the name of the file in the {@link SnapshotStore}, which is also the name of the resource of
+   *                    the bootstrap snapshot compiled at build time by {@link BootstrapCompiler}
+   * @param  storeMagic  the magic number of the file in the {@link SnapshotStore}
+   * @param  lockFile  the name of the file of the host-wide {@link UpdateLock}
+   * @param  publishListener  notified after each snapshot is published by an update, or {@code null} for none
+   */
+  ListUpdater(
+      Class<?> listClass,
+      String name,
+      String description,
+      String sourcesProperty,
+      URL defaultUrl,
+      String bootstrapList,
+      long bootstrapTime,
+      String storeFile,
+      int storeMagic,
+      String lockFile,
+      Parser<S> parser,
+      ContentReader<S> contentReader,
+      PublishListener<S> publishListener
+  ) {
+    this.listClass = listClass;
+    this.name = name;
+    this.description = description;
+    this.sources = HedgedSources.fromProperty(sourcesProperty, defaultUrl);
+    this.bootstrapList = bootstrapList;
+    this.bootstrapTime = bootstrapTime;
+    this.storeFile = storeFile;
+    this.storeMagic = storeMagic;
+    this.lockFile = lockFile;
+    this.parser = parser;
+    this.contentReader = contentReader;
+    this.publishListener = publishListener;
+    this.metrics = new Metrics(name);
+    this.prefs = Preferences.userNodeForPackage(listClass); // systemNodeForPackage not available as regular user in Linux
+  }
+
+  /**
+   * Gets the runtime metrics of lookups and background updates of the list.
+   */
+  Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Gets the preferences node where the list is stored when no {@link SnapshotStore} is configured.
+   */
+  Preferences getPreferences() {
+    return prefs;
+  }
+
+  /**
+   * Loads the bundled bootstrap snapshot.  This performs no preferences I/O, which is left to the background update.
+   *
+   * <p>The bootstrap snapshot compiled at build time is used when available, which avoids parsing the bundled list
+   * and compiling it on first use.  Otherwise, such as when run from classes not processed by the build, the
+   * bundled list is parsed.</p>
+   */
+  private S loadBootstrap() {
+    logger.fine("Loading hard-coded bootstrap");
+    S compiled = loadCompiledBootstrap();
+    if (compiled != null) {
+      return compiled;
+    }
+    try {
+      return parseBootstrap();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to load bootstrap " + description, e);
+    }
+  }
+
+  /**
+   * Loads the bootstrap snapshot compiled at build time.
+   *
+   * @return  the snapshot or {@code null} when not available, not valid, or compiled from a different bundled list
+   */
+  S loadCompiledBootstrap() {
+    try {
+      S compiled = SnapshotStore.readResource(listClass, storeFile, storeMagic, in -> readFrom(in, true));
+      if (compiled == null) {
+        logger.fine("Compiled bootstrap not available, parsing bundled list");
+      } else if (compiled.lastSuccessfulUpdateTime != bootstrapTime) {
+        logger.warning("Ignoring compiled bootstrap of a different bundled list, parsing bundled list");
+        compiled = null;
+      }
+      return compiled;
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Unable to load compiled bootstrap " + description + ", parsing bundled list", e);
+      return null;
+    }
+  }
+
+  /**
+   * Parses the bundled list into a bootstrap snapshot.
+   */
+  S parseBootstrap() throws IOException {
+    long startNanos = System.nanoTime();
+    try (Reader in = new InputStreamReader(listClass.getResourceAsStream(bootstrapList), DATA_ENCODING)) {
+      S parsed = parser.parse(in, bootstrapTime, true, true, bootstrapTime, null, null);
+      metrics.parseLatency.recordSince(startNanos);
+      return parsed;
+    }
+  }
+
+  /**
+   * Parses the bundled list and writes it, including its compiled form, as the bootstrap snapshot resource.
+   *
+   * @param  directory  the directory of the resource, which is the package directory within the build output
+   */
+  void compileBootstrap(Path directory) throws IOException {
+    saveToFile(parseBootstrap(), directory.resolve(storeFile));
+  }
+
+  /**
+   * Gets the current snapshot.  Will trigger asynchronous background update if it is time to to so, but will use the
+   * currently available data and not wait for the update to complete.
+   *
+   * <p>Once the first snapshot is loaded, this does not acquire any lock, and callers never perform preferences I/O.
+   * When scheduled or file updates are started, callers do not check the update time.</p>
+   */
+  S getSnapshot() {
+    S current = snapshot;
+    if (current == null) {
+      boolean loaded = false;
+      synchronized (lock) {
+        current = snapshot;
+        if (current == null) {
+          current = loadBootstrap();
+          snapshot = current;
+          metrics.published(current.isBootstrap, current.lastUpdatedTime, current.lastUpdateSuccessful,
+              current.lastSuccessfulUpdateTime);
+          loaded = true;
+        }
+      }
+      if (loaded) {
+        // Always load from preferences in the background after bootstrap, even when no download is due
+        if (updateScheduler == null && fileWatcher == null && updating.compareAndSet(false, true)) {
+          startUpdate();
+        }
+        return current;
+      }
+    }
+    // Trigger background update if is time, unless updates are scheduled or from a file
+    if (
+        updateScheduler == null
+            && fileWatcher == null
+            && current.isUpdateDue(System.currentTimeMillis())
+            && !updating.get()
+            && updating.compareAndSet(false, true)
+    ) {
+      startUpdate();
+    }
+    return current;
+  }
+
+  /**
+   * Starts the background update thread.  Must only be called by the thread that set {@link #updating}.
+   */
+  private void startUpdate() {
+    boolean started = false;
+    try {
+      logger.fine("Spawning background update thread");
+      Thread updateThread = new Thread(
+          this::update,
+          listClass.getName() + ".updateThread"
+      );
+      updateThread.start();
+      started = true;
+    } finally {
+      if (!started) {
+        endUpdate();
+      }
+    }
+  }
+
+  /**
+   * Performs the background update.  All preferences reads and writes, downloading, parsing, and
+   * snapshot construction happen here, off of the caller threads.
+   */
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  private void update() {
+    metrics.updateStarted();
+    try {
+      S current = snapshot;
+      // Load from storage, just in case another process has already updated
+      logger.fine("Loading from storage before beginning background update");
+      S stored = load();
+      final long currentTime = System.currentTimeMillis();
+      if (current.isBootstrap) {
+        if (stored != null && stored.lastSuccessfulUpdateTime >= bootstrapTime) {
+          logger.fine("Successfully loaded from storage");
+          publish(current, stored, true);
+          current = stored;
+        } else if (logger.isLoggable(Level.INFO)) {
+          DateFormat dateFormat = DateFormat.getDateTimeInstance();
+          if (stored == null) {
+            logger.info(
+                "Update not found in storage, using hard-coded bootstrap dated \""
+                    + dateFormat.format(new Date(bootstrapTime))
+                    + "\""
+            );
+          } else {
+            assert stored.lastSuccessfulUpdateTime < bootstrapTime;
+            logger.info(
+                "Update from storage dated \""
+                    + dateFormat.format(new Date(stored.lastSuccessfulUpdateTime))
+                    + "\" is older than hard-coded bootstrap dated \""
+                    + dateFormat.format(new Date(bootstrapTime))
+                    + "\", using hard-coded bootstrap instead"
+            );
+          }
+        }
+      } else if (
+          stored != null
+              && current.lastUpdatedTime != stored.lastUpdatedTime
+              && !stored.isUpdateDue(currentTime)
+      ) {
+        // stored is valid, use it
+        logger.fine("Update from storage is current, using it instead of beginning background update");
+        publish(current, stored, true);
+        current = stored;
+      }
+      if (!current.isUpdateDue(currentTime)) {
+        logger.fine("Snapshot is current, background update not needed");
+        return;
+      }
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Time for background update: currentTime=" + new Date(currentTime)
+            + ", nextUpdateAfter=" + new Date(current.nextUpdateAfter)
+            + ", nextUpdateBefore=" + new Date(current.nextUpdateBefore)
+        );
+      }
+      download(sources, current, currentTime);
+    } catch (ThreadDeath td) {
+      throw td;
+    } catch (Throwable t) {
+      logger.log(Level.SEVERE, "Unable to perform background update", t);
+    } finally {
+      metrics.updateEnded();
+      endUpdate();
+    }
+  }
+
+  /**
+   * Fetches a new snapshot, sending the validators of the current snapshot.
+   * When the server responds {@code 304 Not Modified}, the list is not parsed again and the new snapshot shares the
+   * compiled form of the current snapshot, with only its times and validators updated.
+   */
+  S fetch(URL url, S current, long currentTime) throws IOException {
+    try (Download download = Download.get(url, current.etag, current.lastModified, DATA_ENCODING)) {
+      if (download.isNotModified()) {
+        if (logger.isLoggable(Level.FINE)) {
+          logger.fine("Not modified, reusing current snapshot of " + description);
+        }
+        return current.withUpdate(currentTime, true, currentTime, download.getEtag(), download.getLastModified());
+      } else {
+        if (logger.isLoggable(Level.FINE)) {
+          logger.fine("Parsing downloaded " + description);
+        }
+        return parser.parse(download.getReader(), currentTime, false, true, currentTime, download.getEtag(),
+            download.getLastModified());
+      }
+    }
+  }
+
+  /**
+   * Downloads a new snapshot while holding the host-wide {@link UpdateLock}, so that only one process sharing the
+   * same storage downloads at a time.  When another process stored a current snapshot while this process waited for
+   * the lock, that snapshot is adopted instead of downloading.
+   *
+   * <p>When the lock can not be acquired within its timeout, or can not be opened, the download proceeds without it.
+   * When interrupted while waiting, no download is performed.</p>
+   *
+   * @return  the snapshot published, or {@code current} when none
+   */
+  S download(HedgedSources sources, S current, long currentTime) {
+    UpdateLock updateLock;
+    try {
+      updateLock = UpdateLock.acquire(lockFile);
+      if (updateLock == null) {
+        logger.warning("Timed out waiting for update by another process, updating without lock");
+      }
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, "Interrupted waiting for update by another process, not updating", e);
+      Thread.currentThread().interrupt();
+      return current;
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Unable to acquire update lock, updating without lock", e);
+      updateLock = null;
+    }
+    try {
+      if (updateLock != null) {
+        // Another process may have updated while waiting for the lock
+        S stored = load();
+        if (
+            stored != null
+                && stored.lastUpdatedTime > current.lastUpdatedTime
+                && !stored.isUpdateDue(System.currentTimeMillis())
+        ) {
+          logger.fine("Adopting update stored by another process");
+          metrics.updateAdopted.increment();
+          publish(current, stored, true);
+          return stored;
+        }
+      }
+      return downloadLocked(sources, current, currentTime);
+    } finally {
+      if (updateLock != null) {
+        try {
+          updateLock.close();
+        } catch (IOException e) {
+          logger.log(Level.WARNING, "Unable to release update lock", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Downloads a new snapshot, publishing and saving it on success, or publishing and saving
+   * an unsuccessful update of the current snapshot on failure.
+   *
+   * <p>The list is only saved to preferences when changed, or when the current snapshot is the bundled bootstrap,
+   * which has not yet been saved.</p>
+   *
+   * @return  the snapshot published, or {@code current} when none
+   */
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  private S downloadLocked(HedgedSources sources, S current, long currentTime) {
+    try {
+      metrics.updateAttempts.increment();
+      long startNanos = System.nanoTime();
+      S loadedSnapshot;
+      try {
+        loadedSnapshot = sources.fetch(url -> fetch(url, current, currentTime));
+      } finally {
+        metrics.downloadLatency.recordSince(startNanos);
+      }
+      metrics.updateSuccesses.increment();
+      boolean sameList = loadedSnapshot.isSameList(current);
+      if (sameList) {
+        metrics.updateNotModified.increment();
+      }
+      publish(current, loadedSnapshot, true);
+      try {
+        if (logger.isLoggable(Level.FINE)) {
+          logger.fine("Saving updated " + description + " to preferences");
+        }
+        save(loadedSnapshot, current.isBootstrap || !sameList);
+      } catch (BackingStoreException e) {
+        logger.log(Level.SEVERE, "Unable to save new snapshot to preferences", e);
+      }
+      return loadedSnapshot;
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, "Interrupted while downloading, not updating", e);
+      Thread.currentThread().interrupt();
+      return current;
+    } catch (ThreadDeath td) {
+      throw td;
+    } catch (Throwable t) {
+      logger.log(Level.SEVERE, "Unable to load new snapshot", t);
+      try {
+        if (logger.isLoggable(Level.FINE)) {
+          logger.fine("Saving failed update of " + description + " to preferences");
+        }
+        S failedSnapshot = current.withUpdate(
+            currentTime,
+            false,
+            current.lastSuccessfulUpdateTime,
+            current.etag,
+            current.lastModified
+        );
+        publish(current, failedSnapshot, true);
+        try {
+          save(failedSnapshot, current.isBootstrap);
+        } catch (BackingStoreException e2) {
+          logger.log(Level.SEVERE, "Unable to save new snapshot to preferences", e2);
+        }
+        return failedSnapshot;
+      } catch (IOException e2) {
+        logger.log(Level.SEVERE, "Unable to update existing snapshot to unsuccessful", e2);
+        return current;
+      }
+    }
+  }
+
+  /**
+   * Starts proactive updates on the given executor, which performs all updates at the times they become due.
+   *
+   * @throws  IllegalStateException  when scheduled updates or file updates are already started
+   */
+  void startScheduledUpdates(ScheduledExecutorService executor) throws IllegalStateException {
+    Objects.requireNonNull(executor);
+    UpdateScheduler newScheduler;
+    synchronized (lock) {
+      if (updateScheduler != null) {
+        throw new IllegalStateException("Scheduled updates already started");
+      }
+      if (fileWatcher != null) {
+        throw new IllegalStateException("File updates already started");
+      }
+      newScheduler = new UpdateScheduler(
+          executor,
+          this::scheduledUpdate,
+          () -> {
+            synchronized (lock) {
+              updateScheduler = null;
+            }
+          }
+      );
+      updateScheduler = newScheduler;
+    }
+    // Load bootstrap before first run
+    getSnapshot();
+    newScheduler.start();
+  }
+
+  /**
+   * Stops proactive updates, reverting to updates triggered by {@link #getSnapshot()}.  Any update in progress is
+   * allowed to complete.  Does nothing when scheduled updates are not started.
+   */
+  void stopScheduledUpdates() {
+    UpdateScheduler oldScheduler;
+    synchronized (lock) {
+      oldScheduler = updateScheduler;
+      updateScheduler = null;
+    }
+    if (oldScheduler != null) {
+      oldScheduler.cancel();
+    }
+  }
+
+  /**
+   * Checks if proactive updates are started.
+   */
+  boolean isScheduledUpdates() {
+    return updateScheduler != null;
+  }
+
+  /**
+   * Starts updates from a local file in place of downloads.  The file is parsed immediately, then whenever it is
+   * created or modified.  Snapshots parsed from the file are not saved to storage.
+   *
+   * @throws  IOException  when the directory of the file can not be watched, such as when it does not exist
+   * @throws  IllegalStateException  when file updates or scheduled updates are already started
+   */
+  void startFileUpdates(Path file) throws IOException, IllegalStateException {
+    Path absolute = file.toAbsolutePath();
+    FileWatcher newWatcher;
+    synchronized (lock) {
+      if (fileWatcher != null) {
+        throw new IllegalStateException("File updates already started");
+      }
+      if (updateScheduler != null) {
+        throw new IllegalStateException("Scheduled updates already started");
+      }
+      newWatcher = new FileWatcher(
+          absolute,
+          FileWatcher.DEFAULT_SETTLE_DELAY,
+          () -> fileUpdate(absolute),
+          listClass.getName() + ".fileWatcher"
+      );
+      fileWatcher = newWatcher;
+    }
+    // Load bootstrap before first run
+    getSnapshot();
+    newWatcher.start();
+  }
+
+  /**
+   * Stops updates from a local file, reverting to downloads triggered by {@link #getSnapshot()}.  Any update in
+   * progress is allowed to complete.  Does nothing when file updates are not started.
+   */
+  void stopFileUpdates() {
+    FileWatcher oldWatcher;
+    synchronized (lock) {
+      oldWatcher = fileWatcher;
+      fileWatcher = null;
+    }
+    if (oldWatcher != null) {
+      try {
+        oldWatcher.close();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Unable to stop watching file", e);
+      }
+    }
+  }
+
+  /**
+   * Checks if updates from a local file are started.
+   */
+  boolean isFileUpdates() {
+    return fileWatcher != null;
+  }
+
+  /**
+   * Publishes a new snapshot then notifies the {@link PublishListener}.  Must only be called by the thread performing
+   * the background update.
+   *
+   * @param  saved  whether the new snapshot is stored
+   */
+  private void publish(S oldSnapshot, S newSnapshot, boolean saved) {
+    snapshot = newSnapshot;
+    metrics.published(newSnapshot.isBootstrap, newSnapshot.lastUpdatedTime, newSnapshot.lastUpdateSuccessful,
+        newSnapshot.lastSuccessfulUpdateTime);
+    if (publishListener != null) {
+      publishListener.published(oldSnapshot, newSnapshot, saved);
+    }
+  }
+
+  /**
+   * Performs one scheduled update, when due.  The update is performed on the thread of the scheduler.
+   * The bootstrap snapshot is always updated, to load from preferences.
+   *
+   * @return  the number of milliseconds until the next update is due, or {@link UpdateScheduler#MIN_DELAY} when
+   *          another update is in progress
+   */
+  private long scheduledUpdate() {
+    S current = snapshot;
+    long currentTime = System.currentTimeMillis();
+    if (current.isBootstrap || current.isUpdateDue(currentTime)) {
+      if (!updating.compareAndSet(false, true)) {
+        logger.fine("Update already in progress, rescheduling");
+        return UpdateScheduler.MIN_DELAY;
+      }
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Performing scheduled update of " + description);
+      }
+      update();
+      current = snapshot;
+      currentTime = System.currentTimeMillis();
+    }
+    return current.nextUpdateAfter - currentTime;
+  }
+
+  /**
+   * Parses the file of {@linkplain #startFileUpdates(java.nio.file.Path) file updates}, publishing the snapshot when
+   * its list differs from the current snapshot.  Waits for any background update in progress, so that a download
+   * started before file updates can not replace the snapshot from the file.
+   */
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  private void fileUpdate(Path file) {
+    try {
+      beginUpdate();
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, "Interrupted waiting for background update, not updating from file", e);
+      Thread.currentThread().interrupt();
+      return;
+    }
+    metrics.updateStarted();
+    try {
+      metrics.updateAttempts.increment();
+      S current = snapshot;
+      S loaded;
+      long startNanos = System.nanoTime();
+      try (Reader in = new InputStreamReader(Files.newInputStream(file), DATA_ENCODING)) {
+        long currentTime = System.currentTimeMillis();
+        loaded = parser.parse(in, currentTime, false, true, currentTime, null, null);
+      }
+      metrics.parseLatency.recordSince(startNanos);
+      metrics.updateSuccesses.increment();
+      if (!current.isBootstrap && Arrays.equals(loaded.source, current.source)) {
+        if (logger.isLoggable(Level.FINE)) {
+          logger.fine("File of " + description + " not modified, retaining current snapshot");
+        }
+        metrics.updateNotModified.increment();
+      } else {
+        if (logger.isLoggable(Level.INFO)) {
+          logger.info("Publishing " + description + " from file: " + file);
+        }
+        publish(current, loaded, false);
+      }
+    } catch (NoSuchFileException e) {
+      logger.warning("File of " + description + " not found, retaining current snapshot: " + file);
+    } catch (ThreadDeath td) {
+      throw td;
+    } catch (Throwable t) {
+      logger.log(Level.SEVERE, "Unable to load " + description + " from file, retaining current snapshot: " + file, t);
+    } finally {
+      metrics.updateEnded();
+      endUpdate();
+    }
+  }
+
+  /**
+   * Waits for any background update in progress, then sets {@link #updating}.  Must be followed by
+   * {@link #endUpdate()}.
+   */
+  private void beginUpdate() throws InterruptedException {
+    synchronized (lock) {
+      while (!updating.compareAndSet(false, true)) {
+        lock.wait();
+      }
+    }
+  }
+
+  /**
+   * Releases {@link #updating} and wakes any threads in {@link #waitUntilNoThread()}.
+   */
+  private void endUpdate() {
+    synchronized (lock) {
+      updating.set(false);
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * For interaction with testing, waits until no thread running.
+   */
+  void waitUntilNoThread() throws InterruptedException {
+    synchronized (lock) {
+      if (updating.get()) {
+        logger.info("Waiting for background update to complete");
+        do {
+          lock.wait();
+        } while (updating.get());
+        logger.info("Background update completed");
+      }
+    }
+  }
+
+  /**
+   * Loads the last stored snapshot, from the {@link SnapshotStore} when configured and available, otherwise from
+   * preferences.
+   *
+   * @return  the last stored snapshot (even if stored by a different process) or {@code null} if none available.
+   */
+  private S load() {
+    long startNanos = System.nanoTime();
+    try {
+      return loadUntimed();
+    } finally {
+      metrics.loadLatency.recordSince(startNanos);
+    }
+  }
+
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  private S loadUntimed() {
+    Path file = SnapshotStore.getFile(storeFile);
+    if (file != null) {
+      try {
+        S fromFile = loadFromFile(file);
+        if (fromFile != null) {
+          logger.fine("Successful load from store");
+          return fromFile;
+        }
+      } catch (ThreadDeath td) {
+        throw td;
+      } catch (Throwable t) {
+        logger.log(Level.SEVERE, "Unable to load " + description + " from store: " + file, t);
+      }
+    }
+    return loadFromPreferences();
+  }
+
+  /**
+   * Stores a snapshot to the {@link SnapshotStore} when configured, otherwise to preferences.  When unable to
+   * write to the store, any previous snapshot is removed from the store and the snapshot is stored to preferences.
+   *
+   * @param  saveSource  When {@code false}, the list is already stored in preferences and only the times and
+   *                     validators are written to preferences.
+   */
+  private void save(S s, boolean saveSource) throws IOException, BackingStoreException {
+    long startNanos = System.nanoTime();
+    try {
+      saveUntimed(s, saveSource);
+    } finally {
+      metrics.saveLatency.recordSince(startNanos);
+    }
+  }
+
+  private void saveUntimed(S s, boolean saveSource) throws IOException, BackingStoreException {
+    Path file = SnapshotStore.getFile(storeFile);
+    if (file != null) {
+      try {
+        logger.fine("Saving to store");
+        saveToFile(s, file);
+        return;
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, "Unable to save " + description + " to store, saving to preferences: " + file, e);
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e2) {
+          logger.log(Level.SEVERE, "Unable to remove stale " + description + " from store: " + file, e2);
+        }
+        // Preferences may hold a different list than was loaded from the store
+        saveSource = true;
+      }
+    }
+    saveToPreferences(s, saveSource);
+  }
+
+  /**
+   * Stores a snapshot, including its compiled form, to a file in the {@link SnapshotStore} format.
+   */
+  void saveToFile(S s, Path file) throws IOException {
+    SnapshotStore.write(file, storeMagic, out -> {
+      out.writeLong(s.lastUpdatedTime);
+      out.writeBoolean(s.lastUpdateSuccessful);
+      out.writeLong(s.lastSuccessfulUpdateTime);
+      SnapshotStore.writeString(out, s.etag);
+      SnapshotStore.writeString(out, s.lastModified);
+      SnapshotStore.writeBytes(out, s.source);
+      s.writeContent(out);
+    });
+  }
+
+  /**
+   * Loads a snapshot from a file in the {@link SnapshotStore} format.  The compiled form is read directly, without
+   * parsing the list again.
+   *
+   * @return  the snapshot or {@code null} when the file does not exist or is not a valid snapshot
+   *
+   * @throws  IOException  when unable to read the file or the file is inconsistent
+   */
+  S loadFromFile(Path file) throws IOException {
+    return SnapshotStore.read(file, storeMagic, in -> readFrom(in, false));
+  }
+
+  /**
+   * Reads a snapshot in the {@link SnapshotStore} format.
+   */
+  private S readFrom(ByteBuffer in, boolean isBootstrap) throws IOException {
+    long lastUpdatedTime = in.getLong();
+    boolean lastUpdateSuccessful = in.get() != 0;
+    long lastSuccessfulUpdateTime = in.getLong();
+    String etag = SnapshotStore.readString(in);
+    String lastModified = SnapshotStore.readString(in);
+    byte[] source = SnapshotStore.readBytes(in);
+    return contentReader.readFrom(in, source, lastUpdatedTime, isBootstrap, lastUpdateSuccessful,
+        lastSuccessfulUpdateTime, etag, lastModified);
+  }
+
+  /**
+   * Loads a snapshot from the system preferences.
+   *
+   * @return  the last stored snapshot (even if stored by a different process) or {@code null} if none available.
+   */
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  S loadFromPreferences() {
+    logger.fine("Loading from preferences");
+    String source;
+    {
+      int numChunks = prefs.getInt(name + ".source.numChunks", Integer.MIN_VALUE);
+      if (numChunks == Integer.MIN_VALUE) {
+        logger.fine("Not found in preferences");
+        return null;
+      }
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("numChunks=" + numChunks);
+      }
+      StringBuilder sourceSb = new StringBuilder(numChunks * Preferences.MAX_VALUE_LENGTH);
+      for (int i = 0; i < numChunks; i++) {
+        String chunk = prefs.get(name + ".source." + i, null);
+        if (chunk == null) {
+          if (logger.isLoggable(Level.WARNING)) {
+            logger.log(Level.WARNING, "Unable to load " + description + " from preferences, chunk missing: " + i);
+          }
+          return null;
+        }
+        sourceSb.append(chunk);
+      }
+      source = sourceSb.toString();
+    }
+    long lastUpdatedTime = prefs.getLong(name + ".lastUpdatedTime", Long.MIN_VALUE);
+    boolean lastUpdateSuccessful = prefs.getBoolean(name + ".lastUpdateSuccessful", false);
+    long lastSuccessfulUpdateTime = prefs.getLong(name + ".lastSuccessfulUpdateTime", Long.MIN_VALUE);
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("lastUpdatedTime=" + new Date(lastUpdatedTime));
+      logger.fine("lastUpdateSuccessful=" + lastUpdateSuccessful);
+      logger.fine("lastSuccessfulUpdateTime=" + new Date(lastSuccessfulUpdateTime));
+    }
+    String etag = prefs.get(name + ".etag", null);
+    String lastModified = prefs.get(name + ".lastModified", null);
+    byte[] md5sum = prefs.getByteArray(name + ".md5sum", null);
+    if (
+        lastUpdatedTime != Long.MIN_VALUE
+            && lastSuccessfulUpdateTime != Long.MIN_VALUE
+            && md5sum != null
+    ) {
+      try {
+        long parseStart = System.nanoTime();
+        S newSnapshot = parser.parse(new StringReader(source), lastUpdatedTime, false, lastUpdateSuccessful,
+            lastSuccessfulUpdateTime, etag, lastModified);
+        metrics.parseLatency.recordSince(parseStart);
+        if (!Arrays.equals(md5sum, newSnapshot.getMd5sum())) {
+          logger.log(Level.WARNING, "Unable to load " + description + " from preferences, ignoring: md5sum mismatch");
+          return null;
+        }
+        logger.fine("Successful load from preferences");
+        return newSnapshot;
+      } catch (ThreadDeath td) {
+        throw td;
+      } catch (Throwable t) {
+        logger.log(Level.SEVERE, "Unable to load " + description + " from preferences", t);
+        return null;
+      }
+    } else {
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.warning("Incomplete data in preferences, ignoring");
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Stores a snapshot to the system preferences.
+   *
+   * @param  saveSource  When {@code false}, the list is already stored and only the times and validators are
+   *                     written.  This avoids rewriting every chunk when the list has not changed.
+   */
+  void saveToPreferences(S s, boolean saveSource) throws IOException, BackingStoreException {
+    logger.fine("Saving to preferences");
+    if (saveSource) {
+      String source = new String(s.source, DATA_ENCODING);
+      int numChunks = 0;
+      for (int pos = 0, len = source.length(); pos < len; pos += Preferences.MAX_VALUE_LENGTH) {
+        prefs.put(
+            name + ".source." + numChunks++,
+            source.substring(
+                pos,
+                Math.min(len, pos + Preferences.MAX_VALUE_LENGTH)
+            )
+        );
+      }
+      prefs.putInt(name + ".source.numChunks", numChunks);
+    } else {
+      logger.fine("List not changed, not saving source");
+    }
+    if (s.etag == null) {
+      prefs.remove(name + ".etag");
+    } else {
+      prefs.put(name + ".etag", s.etag);
+    }
+    if (s.lastModified == null) {
+      prefs.remove(name + ".lastModified");
+    } else {
+      prefs.put(name + ".lastModified", s.lastModified);
+    }
+    prefs.putLong(name + ".lastUpdatedTime", s.lastUpdatedTime);
+    prefs.putBoolean(name + ".lastUpdateSuccessful", s.lastUpdateSuccessful);
+    prefs.putLong(name + ".lastSuccessfulUpdateTime", s.lastSuccessfulUpdateTime);
+    prefs.putByteArray(name + ".md5sum", s.getMd5sum());
+    logger.fine("Flushing preferences");
+    prefs.flush();
+  }
+}
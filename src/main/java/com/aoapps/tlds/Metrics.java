@@ -0,0 +1,254 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Runtime metrics of a list, for lookups and background updates.
+ *
+ * <p>Lookups are counted with striped {@link LongAdder} counters, so concurrent lookups do not contend on a single
+ * counter.  The remaining metrics are only recorded by the thread performing the background update.</p>
+ *
+ * <p>The metrics are registered with the platform MBean server by the first background update, instead of on first
+ * use, so that the management classes are not loaded on the caller threads.</p>
+ *
+ * @author  AO Industries, Inc.
+ *
+ * @see  TopLevelDomain#getMetrics()
+ * @see  PublicSuffix#getMetrics()
+ */
+public final class Metrics implements MetricsMXBean {
+
+  private static final Logger logger = Logger.getLogger(Metrics.class.getName());
+
+  /**
+   * The domain of the {@link ObjectName} of registered metrics.
+   */
+  public static final String DOMAIN = "com.aoapps.tlds";
+
+  private final String name;
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  final LongAdder lookupHits = new LongAdder();
+  final LongAdder lookupMisses = new LongAdder();
+
+  private volatile boolean bootstrap;
+  private volatile long lastUpdatedTime = -1;
+  private volatile boolean lastUpdateSuccessful;
+  private volatile long lastSuccessfulUpdateTime = -1;
+
+  /**
+   * The {@link System#nanoTime()} the update in progress started, guarded by {@code this}.
+   */
+  private long updateStartNanos;
+
+  /**
+   * Set while an update is in progress, guarded by {@code this}.
+   */
+  private boolean updating;
+
+  final LongAdder updateAttempts = new LongAdder();
+  final LongAdder updateSuccesses = new LongAdder();
+  final LongAdder updateNotModified = new LongAdder();
+  final LongAdder updateAdopted = new LongAdder();
+
+  final LatencyHistogram downloadLatency = new LatencyHistogram();
+  final LatencyHistogram parseLatency = new LatencyHistogram();
+  final LatencyHistogram loadLatency = new LatencyHistogram();
+  final LatencyHistogram saveLatency = new LatencyHistogram();
+
+  Metrics(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Counts a lookup.
+   *
+   * @param  hit  {@code true} when the lookup found a result
+   */
+  void lookup(boolean hit) {
+    (hit ? lookupHits : lookupMisses).increment();
+  }
+
+  /**
+   * Records the publication of a snapshot.
+   */
+  void published(boolean bootstrap, long lastUpdatedTime, boolean lastUpdateSuccessful, long lastSuccessfulUpdateTime) {
+    this.bootstrap = bootstrap;
+    this.lastUpdatedTime = lastUpdatedTime;
+    this.lastUpdateSuccessful = lastUpdateSuccessful;
+    this.lastSuccessfulUpdateTime = lastSuccessfulUpdateTime;
+  }
+
+  /**
+   * Records the start of a background update, and registers with the platform MBean server when not yet registered.
+   */
+  void updateStarted() {
+    synchronized (this) {
+      updateStartNanos = System.nanoTime();
+      updating = true;
+    }
+    register();
+  }
+
+  /**
+   * Records the end of a background update.
+   */
+  synchronized void updateEnded() {
+    updating = false;
+  }
+
+  /**
+   * Gets the name of the {@link ObjectName} of these metrics.
+   */
+  ObjectName getObjectName() throws JMException {
+    return new ObjectName(DOMAIN + ":type=Metrics,name=" + ObjectName.quote(name));
+  }
+
+  /**
+   * Registers with the platform MBean server, once.  Failures are logged and otherwise ignored, since metrics are
+   * optional.  The name may already be registered by another copy of this library in a different class loader.
+   */
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  void register() {
+    if (registered.compareAndSet(false, true)) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, getObjectName());
+      } catch (InstanceAlreadyExistsException e) {
+        logger.log(Level.FINE, "Metrics already registered by another class loader: " + name, e);
+      } catch (ThreadDeath td) {
+        throw td;
+      } catch (Throwable t) {
+        logger.log(Level.WARNING, "Unable to register metrics: " + name, t);
+      }
+    }
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public long getLookupHits() {
+    return lookupHits.sum();
+  }
+
+  @Override
+  public long getLookupMisses() {
+    return lookupMisses.sum();
+  }
+
+  @Override
+  public boolean isBootstrap() {
+    return bootstrap;
+  }
+
+  @Override
+  public long getLastUpdatedTime() {
+    return lastUpdatedTime;
+  }
+
+  @Override
+  public boolean getLastUpdateSuccessful() {
+    return lastUpdateSuccessful;
+  }
+
+  @Override
+  public long getLastSuccessfulUpdateTime() {
+    return lastSuccessfulUpdateTime;
+  }
+
+  @Override
+  public long getSnapshotAgeMillis() {
+    long time = lastSuccessfulUpdateTime;
+    return time == -1 ? -1 : Math.max(0, System.currentTimeMillis() - time);
+  }
+
+  @Override
+  public synchronized long getUpdateInProgressMillis() {
+    return updating ? (System.nanoTime() - updateStartNanos) / 1000000 : -1;
+  }
+
+  @Override
+  public long getUpdateAttempts() {
+    return updateAttempts.sum();
+  }
+
+  @Override
+  public long getUpdateSuccesses() {
+    return updateSuccesses.sum();
+  }
+
+  @Override
+  public long getUpdateNotModified() {
+    return updateNotModified.sum();
+  }
+
+  @Override
+  public long getUpdateAdopted() {
+    return updateAdopted.sum();
+  }
+
+  @Override
+  public LatencyHistogram getDownloadLatency() {
+    return downloadLatency;
+  }
+
+  @Override
+  public LatencyHistogram getParseLatency() {
+    return parseLatency;
+  }
+
+  @Override
+  public LatencyHistogram getLoadLatency() {
+    return loadLatency;
+  }
+
+  @Override
+  public LatencyHistogram getSaveLatency() {
+    return saveLatency;
+  }
+
+  @Override
+  public String toString() {
+    return name + "{lookupHits=" + getLookupHits()
+        + ", lookupMisses=" + getLookupMisses()
+        + ", bootstrap=" + bootstrap
+        + ", snapshotAgeMillis=" + getSnapshotAgeMillis()
+        + ", updateAttempts=" + getUpdateAttempts()
+        + ", updateSuccesses=" + getUpdateSuccesses()
+        + ", updateNotModified=" + getUpdateNotModified()
+        + ", updateAdopted=" + getUpdateAdopted()
+        + '}';
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+/**
+ * The management interface of {@link Metrics}, registered with the platform MBean server as
+ * {@code com.aoapps.tlds:type=Metrics,name=<list>}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public interface MetricsMXBean {
+
+  /**
+   * Gets the name of the list.
+   */
+  String getName();
+
+  /**
+   * Gets the number of lookups that found a result.
+   */
+  long getLookupHits();
+
+  /**
+   * Gets the number of lookups that did not find a result.
+   */
+  long getLookupMisses();
+
+  /**
+   * Checks if the published snapshot is the bootstrap bundled with this library.
+   */
+  boolean isBootstrap();
+
+  /**
+   * Gets the time the published snapshot was last updated, or {@code -1} when no snapshot is published.
+   */
+  long getLastUpdatedTime();
+
+  /**
+   * Checks if the most recent update of the published snapshot was successful.
+   */
+  boolean getLastUpdateSuccessful();
+
+  /**
+   * Gets the time the list of the published snapshot was last successfully retrieved, or {@code -1} when no snapshot
+   * is published.
+   */
+  long getLastSuccessfulUpdateTime();
+
+  /**
+   * Gets the number of milliseconds since the list of the published snapshot was last successfully retrieved, or
+   * {@code -1} when no snapshot is published.
+   */
+  long getSnapshotAgeMillis();
+
+  /**
+   * Gets the number of milliseconds the background update in progress has been running, or {@code -1} when no update
+   * is in progress.  A large value indicates a stalled update.
+   */
+  long getUpdateInProgressMillis();
+
+  /**
+   * Gets the number of downloads attempted.
+   */
+  long getUpdateAttempts();
+
+  /**
+   * Gets the number of downloads that succeeded, including those where the list was not modified.
+   */
+  long getUpdateSuccesses();
+
+  /**
+   * Gets the number of downloads that succeeded with the list not modified.
+   */
+  long getUpdateNotModified();
+
+  /**
+   * Gets the number of updates where, after waiting for another process to update, its stored snapshot was adopted
+   * instead of downloading.
+   */
+  long getUpdateAdopted();
+
+  /**
+   * Gets the latencies of downloads, from the request until the list is parsed, since it is parsed as it is read.
+   */
+  LatencyHistogram getDownloadLatency();
+
+  /**
+   * Gets the latencies of parsing lists from local sources, such as preferences or the bundled list.
+   */
+  LatencyHistogram getParseLatency();
+
+  /**
+   * Gets the latencies of loading the stored snapshot, from the snapshot store or preferences.
+   */
+  LatencyHistogram getLoadLatency();
+
+  /**
+   * Gets the latencies of saving snapshots, to the snapshot store or preferences.
+   */
+  LatencyHistogram getSaveLatency();
+}
@@ -0,0 +1,189 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A case-insensitive prefix index of labels, as a sorted array of the case-folded labels.  The labels starting with
+ * a prefix are a contiguous range of the array, found by two binary searches.  The prefix is folded one code point at
+ * a time as it is compared, so a search performs no allocation.
+ *
+ * <p>Case is folded as by {@link LabelIndex#foldCase(int)}.  The labels are sorted by the UTF-16 code units of their
+ * folded form, matching {@link String#compareTo(java.lang.String)}.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class PrefixIndex {
+
+  /**
+   * The case-folded labels, sorted.
+   */
+  private final String[] keys;
+
+  /**
+   * The value of each label, at the same index as {@link #keys}.
+   */
+  private final int[] values;
+
+  /**
+   * Sorts a new index.
+   *
+   * @param  labels  The labels to index.  Labels with the same case-folded form are all retained.
+   * @param  labelValues  The value for each label, at the same index
+   *
+   * @throws  IllegalArgumentException  when the number of labels and values differ
+   */
+  PrefixIndex(List<String> labels, int[] labelValues) throws IllegalArgumentException {
+    int size = labels.size();
+    if (size != labelValues.length) {
+      throw new IllegalArgumentException("labels.size() != labelValues.length: " + size + " != " + labelValues.length);
+    }
+    String[] folded = new String[size];
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      folded[i] = LabelIndex.foldCase(labels.get(i));
+      order[i] = i;
+    }
+    // Stable, so labels with the same folded form retain their order
+    Arrays.sort(order, Comparator.comparing(i -> folded[i]));
+    keys = new String[size];
+    values = new int[size];
+    for (int i = 0; i < size; i++) {
+      int index = order[i];
+      keys[i] = folded[index];
+      values[i] = labelValues[index];
+    }
+  }
+
+  /**
+   * Gets the number of labels.
+   */
+  int size() {
+    return keys.length;
+  }
+
+  /**
+   * Gets the value at the given position in sorted order.
+   */
+  int getValue(int position) {
+    return values[position];
+  }
+
+  /**
+   * Compares a case-folded label with a prefix, folding the prefix as compared.
+   *
+   * @return  negative when the label sorts before all labels starting with the prefix, zero when the label starts
+   *          with the prefix, or positive when the label sorts after all labels starting with the prefix
+   */
+  private static int compare(String key, CharSequence prefix, int start, int end) {
+    int keyLen = key.length();
+    int k = 0;
+    int i = start;
+    while (i < end) {
+      char ch = prefix.charAt(i);
+      int codePoint;
+      if (Character.isHighSurrogate(ch) && i + 1 < end && Character.isLowSurrogate(prefix.charAt(i + 1))) {
+        codePoint = Character.toCodePoint(ch, prefix.charAt(i + 1));
+        i += 2;
+      } else {
+        // Includes unpaired surrogates, which are not folded
+        codePoint = ch;
+        i++;
+      }
+      int folded = LabelIndex.foldCase(codePoint);
+      if (Character.isBmpCodePoint(folded)) {
+        if (k == keyLen) {
+          return -1;
+        }
+        int diff = key.charAt(k++) - folded;
+        if (diff != 0) {
+          return diff;
+        }
+      } else {
+        if (k == keyLen) {
+          return -1;
+        }
+        int diff = key.charAt(k++) - Character.highSurrogate(folded);
+        if (diff != 0) {
+          return diff;
+        }
+        if (k == keyLen) {
+          return -1;
+        }
+        diff = key.charAt(k++) - Character.lowSurrogate(folded);
+        if (diff != 0) {
+          return diff;
+        }
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Finds the first position at which the comparison with the prefix is at least the given value.
+   */
+  private int search(CharSequence prefix, int start, int end, int atLeast) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (Integer.signum(compare(keys[mid], prefix, start, end)) < atLeast) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Finds the first position, in sorted order, of the labels starting with the given range of characters
+   * (case-insensitive).
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within the sequence
+   *
+   * @see  #toIndex(java.lang.CharSequence, int, int)
+   */
+  int fromIndex(CharSequence prefix, int start, int end) throws IndexOutOfBoundsException {
+    Objects.checkFromToIndex(start, end, prefix.length());
+    return search(prefix, start, end, 0);
+  }
+
+  /**
+   * Finds the position after the last position, in sorted order, of the labels starting with the given range of
+   * characters (case-insensitive).
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within the sequence
+   *
+   * @see  #fromIndex(java.lang.CharSequence, int, int)
+   */
+  int toIndex(CharSequence prefix, int start, int end) throws IndexOutOfBoundsException {
+    Objects.checkFromToIndex(start, end, prefix.length());
+    return search(prefix, start, end, 1);
+  }
+}
@@ -0,0 +1,772 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Provides access to the current <a href="https://publicsuffix.org/">Public Suffix List</a>, to find the public
+ * suffix and registrable domain of a hostname, such as {@code "co.uk"} and {@code "example.co.uk"} for
+ * {@code "www.example.co.uk"}.
+ * As a fall-back, a copy of the Public Suffix List is bundled within this API.
+ * The list is self-updated from <a href="https://publicsuffix.org/list/public_suffix_list.dat">publicsuffix.org</a>.
+ * Updates are persisted via the <a href="https://docs.oracle.com/javase/7/docs/technotes/guides/preferences/">Java Preferences API</a>.
+ *
+ * <p>The rules of both the ICANN and private sections of the list are applied, as is done by web browsers.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class PublicSuffix {
+
+  /** Make no instances. */
+  private PublicSuffix() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Hard-coded bootstrap data.  This is used when no download completed or possible.
+   * This matches the bundled copy of public_suffix_list.dat
+   * <pre>date +%s000L -d "Thu Feb  9 23:26:00 2023 UTC"</pre>
+   */
+  private static final long LAST_UPDATED = 1675985160000L;
+
+  /**
+   * The URL accessed to update the list.
+   */
+  private static final URL DATA_URL;
+
+  static {
+    try {
+      DATA_URL = new URL("https://publicsuffix.org/list/public_suffix_list.dat");
+    } catch (MalformedURLException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * The system property that configures the sources of updates, as URLs separated by commas or whitespace, in the
+   * order preferred.  An entry that is not a URL is a file path.  Defaults to the authoritative URL.
+   *
+   * @see  HedgedSources
+   */
+  static final String SOURCES_PROPERTY = "com.aoapps.tlds.PublicSuffix.sources";
+
+  /**
+   * The resource of the bootstrap snapshot compiled from the bundled public_suffix_list.dat at build time by
+   * {@link BootstrapCompiler}.  It is also the name of the file in the {@link SnapshotStore}.
+   */
+  static final String BOOTSTRAP_RESOURCE = "public_suffix_list.bin";
+
+  /**
+   * The self-updating lifecycle of the list.
+   */
+  private static final ListUpdater<Snapshot> updater = new ListUpdater<>(
+      PublicSuffix.class,
+      "PublicSuffix",
+      "public suffix list",
+      SOURCES_PROPERTY,
+      DATA_URL,
+      "public_suffix_list.dat",
+      LAST_UPDATED,
+      BOOTSTRAP_RESOURCE,
+      Snapshot.STORE_MAGIC,
+      "public_suffix_list.lock",
+      Snapshot::parse,
+      Snapshot::readFrom,
+      null
+  );
+
+  private static final Metrics metrics = updater.getMetrics();
+
+  /**
+   * One snapshot of the data, representing the state at one moment in time.
+   */
+  public static class Snapshot extends ListSnapshot<Snapshot> {
+
+    /**
+     * The magic number of the file in the {@link SnapshotStore}.
+     */
+    private static final int STORE_MAGIC = 0x50534c53; // "PSLS";
+
+    /**
+     * The maximum length of a list, in UTF-8 bytes.  This is about thirty times the size of the current list.
+     */
+    private static final int MAX_SOURCE_LENGTH = 8 << 20;
+
+    /**
+     * The maximum length of a line, in characters.
+     */
+    private static final int MAX_LINE_LENGTH = 1024;
+
+    private final List<String> rules;
+
+    /**
+     * The compiled trie of {@link #rules}.
+     */
+    private final SuffixTrie trie;
+
+    private Snapshot(
+        byte[] source,
+        MessageDigest sourceDigest,
+        List<String> rules,
+        SuffixTrie trie,
+        long lastUpdatedTime,
+        boolean isBootstrap,
+        boolean lastUpdateSuccessful,
+        long lastSuccessfulUpdateTime,
+        String etag,
+        String lastModified
+    ) {
+      super(source, sourceDigest, lastUpdatedTime, isBootstrap, lastUpdateSuccessful, lastSuccessfulUpdateTime, etag,
+          lastModified);
+      this.rules = rules;
+      this.trie = trie;
+    }
+
+    /**
+     * Parses a new snapshot in a single streaming pass, compiling its trie.
+     *
+     * @throws  IOException  when unable to read, or when the list or a line is too long
+     * @throws  IllegalArgumentException  when any rule is malformed
+     *
+     * @see  ListReader
+     */
+    private static Snapshot parse(
+        Reader in,
+        long lastUpdatedTime,
+        boolean isBootstrap,
+        boolean lastUpdateSuccessful,
+        long lastSuccessfulUpdateTime,
+        String etag,
+        String lastModified
+    ) throws IOException, IllegalArgumentException {
+      ArrayList<String> newRules = new ArrayList<>();
+      ListReader reader = ListReader.read(in, MAX_SOURCE_LENGTH, MAX_LINE_LENGTH, (line, lineNumber, offset) -> {
+        String trimmed = line.toString().trim();
+        if (!trimmed.isEmpty() && !trimmed.startsWith("//")) {
+          // Each rule is only up to the first whitespace
+          int space = 0;
+          while (space < trimmed.length() && !Character.isWhitespace(trimmed.charAt(space))) {
+            space++;
+          }
+          newRules.add(trimmed.substring(0, space));
+        }
+      });
+      newRules.trimToSize();
+      return new Snapshot(
+          reader.getSource(),
+          reader.getDigest(),
+          Collections.unmodifiableList(newRules),
+          new SuffixTrie(newRules),
+          lastUpdatedTime,
+          isBootstrap,
+          lastUpdateSuccessful,
+          lastSuccessfulUpdateTime,
+          etag,
+          lastModified
+      );
+    }
+
+    /**
+     * Creates a new snapshot of the same list as this snapshot, with updated times and validators.
+     * The list is not parsed again, and the compiled trie is shared.
+     */
+    @Override
+    Snapshot withUpdate(
+        long lastUpdatedTime,
+        boolean lastUpdateSuccessful,
+        long lastSuccessfulUpdateTime,
+        String etag,
+        String lastModified
+    ) {
+      return new Snapshot(
+          source,
+          sourceDigest,
+          rules,
+          trie,
+          lastUpdatedTime,
+          false,
+          lastUpdateSuccessful,
+          lastSuccessfulUpdateTime,
+          etag,
+          lastModified
+      );
+    }
+
+    /**
+     * Loads this snapshot from the provided reader.
+     *
+     * @throws  IllegalArgumentException  when any rule is malformed
+     */
+    static Snapshot loadFromReader(
+        Reader in,
+        long lastUpdatedTime,
+        boolean isBootstrap
+    ) throws IOException, IllegalArgumentException {
+      return parse(in, lastUpdatedTime, isBootstrap, true, lastUpdatedTime, null, null);
+    }
+
+    /**
+     * Stores this snapshot, including its compiled trie, to a file in the {@link SnapshotStore} format.
+     */
+    void saveToFile(Path file) throws IOException {
+      updater.saveToFile(this, file);
+    }
+
+    /**
+     * Loads a snapshot from a file in the {@link SnapshotStore} format.  The compiled trie is read directly, without
+     * parsing the list again.
+     *
+     * @return  the snapshot or {@code null} when the file does not exist or is not a valid snapshot
+     *
+     * @throws  IOException  when unable to read the file or the file is inconsistent
+     */
+    static Snapshot loadFromFile(Path file) throws IOException {
+      return updater.loadFromFile(file);
+    }
+
+    /**
+     * Writes the rules and compiled trie in the {@link SnapshotStore} format.
+     */
+    @Override
+    void writeContent(DataOutputStream out) throws IOException {
+      out.writeInt(rules.size());
+      for (String rule : rules) {
+        SnapshotStore.writeString(out, rule);
+      }
+      trie.writeTo(out);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeContent(java.io.DataOutputStream)}.
+     */
+    private static Snapshot readFrom(
+        ByteBuffer in,
+        byte[] source,
+        long lastUpdatedTime,
+        boolean isBootstrap,
+        boolean lastUpdateSuccessful,
+        long lastSuccessfulUpdateTime,
+        String etag,
+        String lastModified
+    ) throws IOException {
+      String[] newRules = new String[readCount(in)];
+      for (int i = 0; i < newRules.length; i++) {
+        newRules[i] = readNonNull(in);
+      }
+      SuffixTrie newTrie = SuffixTrie.readFrom(in);
+      return new Snapshot(
+          source,
+          null,
+          Collections.unmodifiableList(Arrays.asList(newRules)),
+          newTrie,
+          lastUpdatedTime,
+          isBootstrap,
+          lastUpdateSuccessful,
+          lastSuccessfulUpdateTime,
+          etag,
+          lastModified
+      );
+    }
+
+    /**
+     * Reads a count, which must not exceed the remaining bytes.
+     */
+    private static int readCount(ByteBuffer in) throws IOException {
+      int count = in.getInt();
+      if (count < 0 || count > in.remaining()) {
+        throw new IOException("Invalid count: " + count);
+      }
+      return count;
+    }
+
+    /**
+     * Reads a string that must not be {@code null}.
+     */
+    private static String readNonNull(ByteBuffer in) throws IOException {
+      String s = SnapshotStore.readString(in);
+      if (s == null) {
+        throw new IOException("Unexpected null string");
+      }
+      return s;
+    }
+
+    /**
+     * Gets an unmodifiable list of the rules, in the order contained within
+     * <a href="https://publicsuffix.org/list/public_suffix_list.dat">public_suffix_list.dat</a>.
+     * Comments and blank lines are not included.
+     *
+     * @see  PublicSuffix#getRules()
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmod
+    public List<String> getRules() {
+      return rules;
+    }
+
+    /**
+     * Gets the last time the list was updated, whether
+     * successful or not.
+     *
+     * @see  PublicSuffix#getLastUpdatedTime()
+     */
+    public long getLastUpdatedTime() {
+      return lastUpdatedTime;
+    }
+
+    /**
+     * Gets whether or not this is the bundled bootstrap data.
+     *
+     * @return  {@code true} if this is the included bootstrap data, or {@code false} is this is auto-updated
+     *
+     * @see  PublicSuffix#isBootstrap()
+     */
+    public boolean isBootstrap() {
+      return isBootstrap;
+    }
+
+    /**
+     * Gets whether the last update was successful.
+     *
+     * @see  PublicSuffix#getLastUpdateSuccessful()
+     */
+    public boolean getLastUpdateSuccessful() {
+      return lastUpdateSuccessful;
+    }
+
+    /**
+     * Gets the last time the list was successfully updated.
+     *
+     * @see  PublicSuffix#getLastSuccessfulUpdateTime()
+     */
+    public long getLastSuccessfulUpdateTime() {
+      return lastSuccessfulUpdateTime;
+    }
+
+    /**
+     * Finds the public suffix of a hostname (case-insensitive), in a single pass from the right.
+     * A single trailing root dot is allowed.  Rules are matched in either their Unicode (U-label) or
+     * ASCII (A-label) form.  When no rule matches, the last label is the public suffix.
+     * This performs no allocation.
+     *
+     * @param  hostname  the characters containing the hostname
+     * @param  start  the index of the first character of the hostname, inclusive
+     * @param  end  the index of the last character of the hostname, exclusive
+     *
+     * @return  The index of the first character of the public suffix or {@code -1} if the hostname is empty or has
+     *          an empty label.
+     *
+     * @throws  IndexOutOfBoundsException  when the range is not within {@code hostname}
+     *
+     * @see  PublicSuffix#indexOfPublicSuffix(java.lang.CharSequence, int, int)
+     */
+    public int indexOfPublicSuffix(CharSequence hostname, int start, int end) throws IndexOutOfBoundsException {
+      long found = trie.find(hostname, start, end);
+      metrics.lookup(found != -1);
+      return found == -1 ? -1 : (int) (found >>> 32);
+    }
+
+    /**
+     * Finds the public suffix of a hostname (case-insensitive), in a single pass from the right.
+     *
+     * @return  The index of the first character of the public suffix or {@code -1} if the hostname is empty or has
+     *          an empty label.
+     *
+     * @see  #indexOfPublicSuffix(java.lang.CharSequence, int, int)
+     * @see  PublicSuffix#indexOfPublicSuffix(java.lang.CharSequence)
+     */
+    public int indexOfPublicSuffix(CharSequence hostname) {
+      return indexOfPublicSuffix(hostname, 0, hostname.length());
+    }
+
+    /**
+     * Finds the registrable domain of a hostname (case-insensitive), in a single pass from the right.
+     * The registrable domain is the public suffix with one more label, such as {@code "example.co.uk"}.
+     * A single trailing root dot is allowed.  This performs no allocation.
+     *
+     * @param  hostname  the characters containing the hostname
+     * @param  start  the index of the first character of the hostname, inclusive
+     * @param  end  the index of the last character of the hostname, exclusive
+     *
+     * @return  The index of the first character of the registrable domain or {@code -1} if the hostname is itself a
+     *          public suffix, is empty, or has an empty label.
+     *
+     * @throws  IndexOutOfBoundsException  when the range is not within {@code hostname}
+     *
+     * @see  PublicSuffix#indexOfRegistrableDomain(java.lang.CharSequence, int, int)
+     */
+    public int indexOfRegistrableDomain(CharSequence hostname, int start, int end) throws IndexOutOfBoundsException {
+      long found = trie.find(hostname, start, end);
+      int index = found == -1 ? -1 : (int) found;
+      metrics.lookup(index != -1);
+      return index;
+    }
+
+    /**
+     * Finds the registrable domain of a hostname (case-insensitive), in a single pass from the right.
+     *
+     * @return  The index of the first character of the registrable domain or {@code -1} if the hostname is itself a
+     *          public suffix, is empty, or has an empty label.
+     *
+     * @see  #indexOfRegistrableDomain(java.lang.CharSequence, int, int)
+     * @see  PublicSuffix#indexOfRegistrableDomain(java.lang.CharSequence)
+     */
+    public int indexOfRegistrableDomain(CharSequence hostname) {
+      return indexOfRegistrableDomain(hostname, 0, hostname.length());
+    }
+
+    /**
+     * Gets the end of a hostname, not including any trailing root dot.
+     */
+    private static int endOf(CharSequence hostname) {
+      int end = hostname.length();
+      if (end > 0 && TopLevelDomain.isLabelSeparator(hostname.charAt(end - 1))) {
+        end--;
+      }
+      return end;
+    }
+
+    /**
+     * Gets the public suffix of a hostname, in the case given, not including any trailing root dot.
+     *
+     * @return  The public suffix or {@code null} if the hostname is empty or has an empty label.
+     *
+     * @see  #indexOfPublicSuffix(java.lang.CharSequence, int, int)
+     * @see  PublicSuffix#getPublicSuffix(java.lang.CharSequence)
+     */
+    public String getPublicSuffix(CharSequence hostname) {
+      int index = indexOfPublicSuffix(hostname);
+      return index == -1 ? null : hostname.subSequence(index, endOf(hostname)).toString();
+    }
+
+    /**
+     * Gets the registrable domain of a hostname, in the case given, not including any trailing root dot.
+     *
+     * @return  The registrable domain or {@code null} if the hostname is itself a public suffix, is empty, or has an
+     *          empty label.
+     *
+     * @see  #indexOfRegistrableDomain(java.lang.CharSequence, int, int)
+     * @see  PublicSuffix#getRegistrableDomain(java.lang.CharSequence)
+     */
+    public String getRegistrableDomain(CharSequence hostname) {
+      int index = indexOfRegistrableDomain(hostname);
+      return index == -1 ? null : hostname.subSequence(index, endOf(hostname)).toString();
+    }
+
+    /**
+     * Checks if a hostname is itself a public suffix, such as {@code "co.uk"}.
+     * This performs no allocation.
+     *
+     * @see  #indexOfPublicSuffix(java.lang.CharSequence, int, int)
+     * @see  PublicSuffix#isPublicSuffix(java.lang.CharSequence)
+     */
+    public boolean isPublicSuffix(CharSequence hostname) {
+      return indexOfPublicSuffix(hostname) == 0;
+    }
+  }
+
+  /**
+   * Loads the bootstrap snapshot compiled at build time.
+   *
+   * @return  the snapshot or {@code null} when not available, not valid, or compiled from a different bundled list
+   */
+  static Snapshot loadCompiledBootstrap() {
+    return updater.loadCompiledBootstrap();
+  }
+
+  /**
+   * Parses the bundled list into a bootstrap snapshot.
+   */
+  static Snapshot parseBootstrap() throws IOException {
+    return updater.parseBootstrap();
+  }
+
+  /**
+   * Parses the bundled list and writes it, including its compiled trie, as the bootstrap snapshot resource.
+   *
+   * @param  directory  the directory of the resource, which is the package directory within the build output
+   */
+  static void compileBootstrap(Path directory) throws IOException {
+    updater.compileBootstrap(directory);
+  }
+
+  /**
+   * Gets a snapshot of the current Public Suffix List.
+   * Will trigger asynchronous background update if it is time to to so, but will use the currently
+   * available data and not wait for the update to complete.
+   *
+   * <p>Once the first snapshot is loaded, this does not acquire any lock.  Callers never perform preferences I/O.
+   * The first call returns the bundled bootstrap data and starts the background update, which loads any snapshot
+   * stored in preferences and publishes it when it is newer.</p>
+   *
+   * <p>When {@linkplain #startScheduledUpdates(java.util.concurrent.ScheduledExecutorService) scheduled updates} are
+   * started, callers do not check the update time, and all updates are performed by the scheduler.</p>
+   *
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static Snapshot getSnapshot() {
+    return updater.getSnapshot();
+  }
+
+  /**
+   * Fetches a new snapshot, sending the validators of the current snapshot.
+   * When the server responds {@code 304 Not Modified}, the list is not parsed again and the new snapshot shares the
+   * compiled trie of the current snapshot, with only its times and validators updated.
+   *
+   * @throws  IllegalArgumentException  when any rule is malformed
+   */
+  static Snapshot fetch(URL url, Snapshot current, long currentTime) throws IOException, IllegalArgumentException {
+    return updater.fetch(url, current, currentTime);
+  }
+
+  /**
+   * Starts proactive updates on the given executor, which performs all updates at the times they become due.
+   * Caller threads of {@link #getSnapshot()} then neither check the update time nor start any update thread.
+   *
+   * <p>The first update runs immediately, loading any snapshot stored in preferences, and downloading when due.
+   * Afterwards, an update is scheduled for the randomized update time of the current snapshot, and the schedule is
+   * checked at least hourly to handle large changes of the system clock.</p>
+   *
+   * <p>The executor is not shut down by {@link #stopScheduledUpdates()}, and may be shared with other tasks.  When the
+   * executor rejects a run, such as when shut down, updates revert to being triggered by {@link #getSnapshot()}.</p>
+   *
+   * @throws  IllegalStateException  when scheduled updates are already started
+   *
+   * @see  #startScheduledUpdates()
+   * @see  #stopScheduledUpdates()
+   */
+  public static void startScheduledUpdates(ScheduledExecutorService executor) throws IllegalStateException {
+    updater.startScheduledUpdates(executor);
+  }
+
+  /**
+   * Starts proactive updates on a default executor shared with all lists of this library.  Its single thread is
+   * virtual on Java 21 or later and is otherwise a daemon thread.
+   *
+   * @throws  IllegalStateException  when scheduled updates are already started
+   *
+   * @see  #startScheduledUpdates(java.util.concurrent.ScheduledExecutorService)
+   * @see  #stopScheduledUpdates()
+   */
+  public static void startScheduledUpdates() throws IllegalStateException {
+    startScheduledUpdates(UpdateScheduler.getDefaultExecutor());
+  }
+
+  /**
+   * Stops proactive updates, reverting to updates triggered by {@link #getSnapshot()}.  Any update in progress is
+   * allowed to complete.  Does nothing when scheduled updates are not started.
+   *
+   * @see  #startScheduledUpdates(java.util.concurrent.ScheduledExecutorService)
+   */
+  public static void stopScheduledUpdates() {
+    updater.stopScheduledUpdates();
+  }
+
+  /**
+   * Checks if proactive updates are started.
+   *
+   * @see  #startScheduledUpdates(java.util.concurrent.ScheduledExecutorService)
+   */
+  public static boolean isScheduledUpdates() {
+    return updater.isScheduledUpdates();
+  }
+
+  /**
+   * Gets the runtime metrics of lookups and background updates of the Public Suffix List.  A lookup is a hit when it
+   * finds a result.  The metrics are also registered with the platform MBean server, as
+   * {@code com.aoapps.tlds:type=Metrics,name="PublicSuffix"}, by the first background update.
+   *
+   * @see  TopLevelDomain#getMetrics()
+   */
+  public static Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Gets an unmodifiable list of the rules of the most recently retrieved Public Suffix List.
+   *
+   * @see  Snapshot#getRules()
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static List<String> getRules() {
+    return getSnapshot().getRules();
+  }
+
+  /**
+   * Gets the last time the list was updated, whether
+   * successful or not.
+   *
+   * @see  Snapshot#getLastUpdatedTime()
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static long getLastUpdatedTime() {
+    return getSnapshot().getLastUpdatedTime();
+  }
+
+  /**
+   * Gets whether or not this is the bundled bootstrap data.
+   *
+   * @return  {@code true} if this is the included bootstrap data, or {@code false} is this is auto-updated
+   *
+   * @see  Snapshot#isBootstrap()
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static boolean isBootstrap() {
+    return getSnapshot().isBootstrap();
+  }
+
+  /**
+   * Gets whether the last update was successful.
+   *
+   * @see  Snapshot#getLastUpdateSuccessful()
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static boolean getLastUpdateSuccessful() {
+    return getSnapshot().getLastUpdateSuccessful();
+  }
+
+  /**
+   * Gets the last time the list was successfully updated.
+   *
+   * @see  Snapshot#getLastSuccessfulUpdateTime()
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static long getLastSuccessfulUpdateTime() {
+    return getSnapshot().getLastSuccessfulUpdateTime();
+  }
+
+  /**
+   * Finds the public suffix of a hostname (case-insensitive), in a single pass from the right.
+   * This performs no allocation.
+   *
+   * @return  The index of the first character of the public suffix or {@code -1} if the hostname is empty or has
+   *          an empty label.
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within {@code hostname}
+   *
+   * @see  Snapshot#indexOfPublicSuffix(java.lang.CharSequence, int, int)
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static int indexOfPublicSuffix(CharSequence hostname, int start, int end) throws IndexOutOfBoundsException {
+    return getSnapshot().indexOfPublicSuffix(hostname, start, end);
+  }
+
+  /**
+   * Finds the public suffix of a hostname (case-insensitive), in a single pass from the right.
+   * This performs no allocation.
+   *
+   * @return  The index of the first character of the public suffix or {@code -1} if the hostname is empty or has
+   *          an empty label.
+   *
+   * @see  Snapshot#indexOfPublicSuffix(java.lang.CharSequence)
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static int indexOfPublicSuffix(CharSequence hostname) {
+    return getSnapshot().indexOfPublicSuffix(hostname);
+  }
+
+  /**
+   * Finds the registrable domain of a hostname (case-insensitive), in a single pass from the right.
+   * This performs no allocation.
+   *
+   * @return  The index of the first character of the registrable domain or {@code -1} if the hostname is itself a
+   *          public suffix, is empty, or has an empty label.
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within {@code hostname}
+   *
+   * @see  Snapshot#indexOfRegistrableDomain(java.lang.CharSequence, int, int)
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static int indexOfRegistrableDomain(CharSequence hostname, int start, int end) throws IndexOutOfBoundsException {
+    return getSnapshot().indexOfRegistrableDomain(hostname, start, end);
+  }
+
+  /**
+   * Finds the registrable domain of a hostname (case-insensitive), in a single pass from the right.
+   * This performs no allocation.
+   *
+   * @return  The index of the first character of the registrable domain or {@code -1} if the hostname is itself a
+   *          public suffix, is empty, or has an empty label.
+   *
+   * @see  Snapshot#indexOfRegistrableDomain(java.lang.CharSequence)
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static int indexOfRegistrableDomain(CharSequence hostname) {
+    return getSnapshot().indexOfRegistrableDomain(hostname);
+  }
+
+  /**
+   * Gets the public suffix of a hostname, in the case given, not including any trailing root dot.
+   *
+   * @return  The public suffix or {@code null} if the hostname is empty or has an empty label.
+   *
+   * @see  Snapshot#getPublicSuffix(java.lang.CharSequence)
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static String getPublicSuffix(CharSequence hostname) {
+    return getSnapshot().getPublicSuffix(hostname);
+  }
+
+  /**
+   * Gets the registrable domain of a hostname, in the case given, not including any trailing root dot.
+   *
+   * @return  The registrable domain or {@code null} if the hostname is itself a public suffix, is empty, or has an
+   *          empty label.
+   *
+   * @see  Snapshot#getRegistrableDomain(java.lang.CharSequence)
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static String getRegistrableDomain(CharSequence hostname) {
+    return getSnapshot().getRegistrableDomain(hostname);
+  }
+
+  /**
+   * Checks if a hostname is itself a public suffix, such as {@code "co.uk"}.
+   * This performs no allocation.
+   *
+   * @see  Snapshot#isPublicSuffix(java.lang.CharSequence)
+   * @see  PublicSuffix#getSnapshot()
+   */
+  public static boolean isPublicSuffix(CharSequence hostname) {
+    return getSnapshot().isPublicSuffix(hostname);
+  }
+
+  /**
+   * For interaction with testing, waits until no thread running.
+   */
+  static void waitUntilNoThread() throws InterruptedException {
+    updater.waitUntilNoThread();
+  }
+}
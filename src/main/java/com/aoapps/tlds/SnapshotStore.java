@@ -0,0 +1,331 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An optional file-based store of compiled snapshots, used in preference to {@link java.util.prefs.Preferences}
+ * when the system property {@value #DIRECTORY_PROPERTY} names a directory.
+ *
+ * <p>Each snapshot is stored in a compact binary form, including its compiled lookup index.  A file is written
+ * completely to a temporary file in the same directory, forced to storage, and then atomically renamed into place,
+ * so readers in this or any other process see either the previous or the new snapshot, never a partial one.  No
+ * checksum is required to detect torn writes.</p>
+ *
+ * <p>A file is read through {@link FileChannel#map(java.nio.channels.FileChannel.MapMode, long, long)}, with the
+ * index tables bulk-copied out of the mapping, so loading performs no parsing or hashing.  The tables are copied
+ * instead of being used in place so that the mapping is not held, which would prevent the file from being replaced
+ * on some platforms.</p>
+ *
+ * <p>The same format is used for the bootstrap snapshots compiled at build time by {@link BootstrapCompiler}, which
+ * are read as resources by {@link #readResource(java.lang.Class, java.lang.String, int,
+ * com.aoapps.tlds.SnapshotStore.ContentReader)}.</p>
+ *
+ * <p>The file format is big-endian:</p>
+ * <ol>
+ *   <li>{@code int} magic number of the list</li>
+ *   <li>{@code int} format version</li>
+ *   <li>{@code long} length of the content that follows</li>
+ *   <li>content, specific to the list</li>
+ * </ol>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class SnapshotStore {
+
+  /** Make no instances. */
+  private SnapshotStore() {
+    throw new AssertionError();
+  }
+
+  private static final Logger logger = Logger.getLogger(SnapshotStore.class.getName());
+
+  /**
+   * The system property naming the directory of the store.  When not set, snapshots are stored only in preferences.
+   */
+  static final String DIRECTORY_PROPERTY = "com.aoapps.tlds.storeDirectory";
+
+  /**
+   * The version of the file format.  Files of any other version are ignored.
+   */
+  private static final int VERSION = 2;
+
+  /**
+   * The number of bytes before the content.
+   */
+  private static final int HEADER_LENGTH = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+  /**
+   * Writes the content of a file.
+   */
+  @FunctionalInterface
+  interface ContentWriter {
+    void write(DataOutputStream out) throws IOException;
+  }
+
+  /**
+   * Reads the content of a file.
+   */
+  @FunctionalInterface
+  interface ContentReader<T> {
+    /**
+     * @param  in  the content, positioned at its start
+     *
+     * @throws  BufferUnderflowException  when the content is truncated
+     */
+    T read(ByteBuffer in) throws IOException, BufferUnderflowException;
+  }
+
+  /**
+   * Gets the file of the given name within the configured directory.
+   *
+   * @return  the file or {@code null} when the store is not configured
+   */
+  static Path getFile(String name) {
+    String directory = System.getProperty(DIRECTORY_PROPERTY);
+    if (directory == null || directory.isEmpty()) {
+      return null;
+    }
+    return Paths.get(directory, name);
+  }
+
+  /**
+   * Atomically writes a file, creating its directory when needed.
+   */
+  static void write(Path file, int magic, ContentWriter writer) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        out.writeInt(magic);
+        out.writeInt(VERSION);
+        // Length is written after the content
+        out.writeLong(0);
+        writer.write(out);
+        out.flush();
+        long contentLength = channel.size() - HEADER_LENGTH;
+        ByteBuffer length = ByteBuffer.allocate(Long.BYTES).putLong(0, contentLength);
+        channel.write(length, Integer.BYTES + Integer.BYTES);
+        channel.force(true);
+      }
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        logger.log(Level.WARNING, "Atomic move not supported, replacing non-atomically: " + file, e);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Reads a file.
+   *
+   * @return  the content or {@code null} when the file does not exist, is of a different list or format version,
+   *          or is truncated
+   */
+  static <T> T read(Path file, int magic, ContentReader<T> reader) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_LENGTH || size > Integer.MAX_VALUE) {
+        if (logger.isLoggable(Level.WARNING)) {
+          logger.warning("Ignoring store of unexpected size " + size + ": " + file);
+        }
+        return null;
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    } catch (NoSuchFileException e) {
+      logger.fine("Store not found: " + file);
+      return null;
+    }
+    return read(buffer, file, magic, reader);
+  }
+
+  /**
+   * Reads a resource of the given class, such as a snapshot compiled at build time.  The resource is read fully into
+   * the heap, since it may be within a JAR file and can not be mapped.
+   *
+   * @return  the content or {@code null} when the resource does not exist, is of a different list or format version,
+   *          or is truncated
+   */
+  static <T> T readResource(Class<?> clazz, String name, int magic, ContentReader<T> reader) throws IOException {
+    byte[] bytes;
+    try (InputStream in = clazz.getResourceAsStream(name)) {
+      if (in == null) {
+        logger.fine("Resource not found: " + name);
+        return null;
+      }
+      bytes = in.readAllBytes();
+    }
+    if (bytes.length < HEADER_LENGTH) {
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.warning("Ignoring resource of unexpected size " + bytes.length + ": " + name);
+      }
+      return null;
+    }
+    return read(ByteBuffer.wrap(bytes), name, magic, reader);
+  }
+
+  /**
+   * Reads the header and content from a buffer positioned at the start of the header.
+   *
+   * @param  description  the file or resource, used only for logging
+   */
+  private static <T> T read(ByteBuffer buffer, Object description, int magic, ContentReader<T> reader)
+      throws IOException {
+    if (buffer.getInt() != magic) {
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.warning("Ignoring store of a different list: " + description);
+      }
+      return null;
+    }
+    int version = buffer.getInt();
+    if (version != VERSION) {
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.warning("Ignoring store of format version " + version + ": " + description);
+      }
+      return null;
+    }
+    long contentLength = buffer.getLong();
+    if (contentLength != buffer.remaining()) {
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.warning("Ignoring store with content length mismatch: " + description);
+      }
+      return null;
+    }
+    try {
+      T content = reader.read(buffer);
+      if (buffer.hasRemaining()) {
+        if (logger.isLoggable(Level.WARNING)) {
+          logger.warning("Ignoring store with trailing content: " + description);
+        }
+        return null;
+      }
+      return content;
+    } catch (BufferUnderflowException e) {
+      logger.log(Level.WARNING, "Ignoring truncated store: " + description, e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes a string as a length-prefixed UTF-8 sequence, which is not limited to 64 KiB as is
+   * {@link DataOutputStream#writeUTF(java.lang.String)}.
+   *
+   * @param  s  the string or {@code null}, which is written as length {@code -1}
+   */
+  static void writeString(DataOutputStream out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(java.io.DataOutputStream, java.lang.String)}.
+   */
+  static String readString(ByteBuffer in) throws BufferUnderflowException {
+    int length = in.getInt();
+    if (length == -1) {
+      return null;
+    }
+    if (length < -1 || length > in.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes a length-prefixed array.
+   */
+  static void writeInts(DataOutputStream out, int[] values) throws IOException {
+    out.writeInt(values.length);
+    for (int value : values) {
+      out.writeInt(value);
+    }
+  }
+
+  /**
+   * Reads an array written by {@link #writeInts(java.io.DataOutputStream, int[])} with a single bulk copy.
+   */
+  static int[] readInts(ByteBuffer in) throws BufferUnderflowException {
+    int length = in.getInt();
+    if (length < 0 || length > in.remaining() / Integer.BYTES) {
+      throw new BufferUnderflowException();
+    }
+    int[] values = new int[length];
+    in.asIntBuffer().get(values);
+    in.position(in.position() + length * Integer.BYTES);
+    return values;
+  }
+
+  /**
+   * Writes a length-prefixed array.
+   */
+  static void writeBytes(DataOutputStream out, byte[] values) throws IOException {
+    out.writeInt(values.length);
+    out.write(values);
+  }
+
+  /**
+   * Reads an array written by {@link #writeBytes(java.io.DataOutputStream, byte[])} with a single bulk copy.
+   */
+  static byte[] readBytes(ByteBuffer in) throws BufferUnderflowException {
+    int length = in.getInt();
+    if (length < 0 || length > in.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] values = new byte[length];
+    in.get(values);
+    return values;
+  }
+}
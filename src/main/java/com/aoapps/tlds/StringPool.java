@@ -0,0 +1,133 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A library-private pool of canonical strings, used instead of {@link String#intern()} so that loading and updating
+ * snapshots does not grow the JVM string table.
+ *
+ * <p>Strings are held weakly, so each is only retained while referenced, such as by a snapshot or a caller.  While
+ * referenced, an equal string is always canonicalized to the same instance, so a top level domain that is unchanged
+ * by an update is shared by the old and new snapshots instead of being duplicated.</p>
+ *
+ * <p>The pool does not block: it is a {@link ConcurrentHashMap} of weak references, with the entries of collected
+ * strings removed as the references are enqueued.  Strings are canonicalized as lookups first materialize them, so
+ * lookups on many threads do not contend on a lock.</p>
+ *
+ * <p>The pool is owned by the class using it, so it is released with its class loader.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class StringPool {
+
+  /**
+   * A weak reference to a string, used as both the key and value of its entry.  While not cleared, it is equal to
+   * other references to equal strings.  Once cleared, it is only equal to itself, so its entry is only removed by
+   * {@link #expungeStaleEntries()}.
+   */
+  private static final class Ref extends WeakReference<String> {
+
+    private final int hash;
+
+    private Ref(String s, ReferenceQueue<? super String> queue) {
+      super(s, queue);
+      this.hash = s.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof Ref)) {
+        return false;
+      }
+      String s = get();
+      return s != null && s.equals(((Ref) obj).get());
+    }
+  }
+
+  /**
+   * Each string to a weak reference to itself.
+   */
+  private final ConcurrentMap<Ref, Ref> pool = new ConcurrentHashMap<>();
+
+  /**
+   * The references of collected strings, not yet removed from {@link #pool}.
+   */
+  private final ReferenceQueue<String> queue = new ReferenceQueue<>();
+
+  /**
+   * Removes the entries of collected strings.
+   */
+  private void expungeStaleEntries() {
+    Reference<? extends String> ref;
+    while ((ref = queue.poll()) != null) {
+      pool.remove(ref);
+    }
+  }
+
+  /**
+   * Gets the canonical instance of a string.
+   *
+   * @return  the instance already in the pool, or {@code s} itself when added to the pool
+   */
+  String canonicalize(String s) {
+    expungeStaleEntries();
+    Ref ref = new Ref(s, queue);
+    while (true) {
+      Ref existing = pool.get(ref);
+      if (existing == null) {
+        existing = pool.putIfAbsent(ref, ref);
+        if (existing == null) {
+          return s;
+        }
+      }
+      String canonical = existing.get();
+      if (canonical != null) {
+        return canonical;
+      }
+      // Collected since found, no longer equal to ref
+    }
+  }
+
+  /**
+   * Gets the number of strings in the pool, including any not yet removed after being garbage collected.
+   */
+  int size() {
+    expungeStaleEntries();
+    return pool.size();
+  }
+}
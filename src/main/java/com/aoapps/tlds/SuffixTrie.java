@@ -0,0 +1,373 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.IDN;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable trie of <a href="https://publicsuffix.org/list/">Public Suffix List</a> rules, keyed by label from
+ * right to left, compiled into flat arrays.
+ *
+ * <p>Each distinct label is assigned an integer identifier through a {@link LabelIndex}, so the labels of a hostname
+ * are matched in place, case-insensitive, without allocation.  Both the Unicode (U-label) and ASCII (A-label) forms of
+ * each internationalized label resolve to the same identifier.  The children of each node are a sorted range of
+ * label identifiers, found by binary search.</p>
+ *
+ * <p>The public suffix and registrable domain of a hostname are found in a single right-to-left pass, which examines
+ * no more than one label beyond the longest matching rule.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class SuffixTrie {
+
+  /**
+   * Flag set on a node that ends a normal rule, such as {@code "co.uk"}.
+   */
+  private static final byte RULE = 1;
+
+  /**
+   * Flag set on a node that has a wildcard rule below it, such as the node {@code "ck"} for {@code "*.ck"}.
+   */
+  private static final byte WILDCARD = 2;
+
+  /**
+   * Flag set on a node that ends an exception rule, such as {@code "!www.ck"}.
+   */
+  private static final byte EXCEPTION = 4;
+
+  private static final int ROOT = 0;
+
+  /**
+   * Distinct labels, in both Unicode and ASCII forms, to their label identifier.
+   */
+  private final LabelIndex<Integer> labels;
+
+  /**
+   * The offset of each node's children within {@link #childLabels} and {@link #childNodes}, with one additional
+   * trailing offset for the end of the last node.
+   */
+  private final int[] childStart;
+
+  /**
+   * The label identifier of each child, sorted within each node.
+   */
+  private final int[] childLabels;
+
+  /**
+   * The node of each child.
+   */
+  private final int[] childNodes;
+
+  /**
+   * The flags of each node.
+   */
+  private final byte[] flags;
+
+  /**
+   * Compiles a new trie.
+   *
+   * @param  rules  The rules, in the format of the Public Suffix List, without comments
+   *
+   * @throws  IllegalArgumentException  when any rule is malformed
+   */
+  SuffixTrie(List<String> rules) throws IllegalArgumentException {
+    // Assign label identifiers, registering the alternate form of internationalized labels to the same identifier
+    Map<String, Integer> labelIds = new HashMap<>();
+    List<Map<Integer, Integer>> children = new ArrayList<>();
+    children.add(new HashMap<>());
+    List<Byte> nodeFlags = new ArrayList<>();
+    nodeFlags.add((byte) 0);
+    for (String rule : rules) {
+      boolean exception = rule.startsWith("!");
+      String[] split = (exception ? rule.substring(1) : rule).split("\\.", -1);
+      boolean wildcard = "*".equals(split[0]);
+      if (exception && (wildcard || split.length < 2)) {
+        throw new IllegalArgumentException("Malformed exception rule: " + rule);
+      }
+      int node = ROOT;
+      for (int i = split.length - 1; i >= (wildcard ? 1 : 0); i--) {
+        String label = split[i];
+        if (label.isEmpty() || label.indexOf('*') != -1) {
+          throw new IllegalArgumentException("Malformed rule: " + rule);
+        }
+        String folded = LabelIndex.foldCase(label);
+        Integer labelId = labelIds.get(folded);
+        if (labelId == null) {
+          labelId = labelIds.size();
+          labelIds.put(folded, labelId);
+          String alternate = alternateForm(folded);
+          if (alternate != null) {
+            labelIds.putIfAbsent(LabelIndex.foldCase(alternate), labelId);
+          }
+        }
+        Map<Integer, Integer> nodeChildren = children.get(node);
+        Integer child = nodeChildren.get(labelId);
+        if (child == null) {
+          child = children.size();
+          children.add(new HashMap<>());
+          nodeFlags.add((byte) 0);
+          nodeChildren.put(labelId, child);
+        }
+        node = child;
+      }
+      if (node == ROOT) {
+        // The implicit default rule "*"
+        continue;
+      }
+      nodeFlags.set(node, (byte) (nodeFlags.get(node) | (exception ? EXCEPTION : wildcard ? WILDCARD : RULE)));
+    }
+    // Compile label index
+    {
+      List<String> keys = new ArrayList<>(labelIds.size());
+      List<Integer> values = new ArrayList<>(labelIds.size());
+      for (Map.Entry<String, Integer> entry : labelIds.entrySet()) {
+        keys.add(entry.getKey());
+        values.add(entry.getValue());
+      }
+      this.labels = new LabelIndex<>(keys, values);
+    }
+    // Compile children into flat arrays
+    int numNodes = children.size();
+    this.childStart = new int[numNodes + 1];
+    int numEdges = 0;
+    for (int node = 0; node < numNodes; node++) {
+      childStart[node] = numEdges;
+      numEdges += children.get(node).size();
+    }
+    childStart[numNodes] = numEdges;
+    this.childLabels = new int[numEdges];
+    this.childNodes = new int[numEdges];
+    for (int node = 0; node < numNodes; node++) {
+      int pos = childStart[node];
+      Integer[] sorted = children.get(node).keySet().toArray(new Integer[0]);
+      Arrays.sort(sorted);
+      for (Integer labelId : sorted) {
+        childLabels[pos] = labelId;
+        childNodes[pos] = children.get(node).get(labelId);
+        pos++;
+      }
+    }
+    this.flags = new byte[numNodes];
+    for (int node = 0; node < numNodes; node++) {
+      flags[node] = nodeFlags.get(node);
+    }
+  }
+
+  private SuffixTrie(LabelIndex<Integer> labels, int[] childStart, int[] childLabels, int[] childNodes, byte[] flags) {
+    this.labels = labels;
+    this.childStart = childStart;
+    this.childLabels = childLabels;
+    this.childNodes = childNodes;
+    this.flags = flags;
+  }
+
+  /**
+   * Writes the compiled tables of this trie.
+   *
+   * @see  #readFrom(java.nio.ByteBuffer)
+   * @see  SnapshotStore
+   */
+  void writeTo(DataOutputStream out) throws IOException {
+    int numLabels = labels.size();
+    int[] labelIds = new int[numLabels];
+    for (int slot = 0; slot < numLabels; slot++) {
+      labelIds[slot] = labels.getValue(slot);
+    }
+    SnapshotStore.writeInts(out, labelIds);
+    labels.writeTo(out);
+    SnapshotStore.writeInts(out, childStart);
+    SnapshotStore.writeInts(out, childLabels);
+    SnapshotStore.writeInts(out, childNodes);
+    SnapshotStore.writeBytes(out, flags);
+  }
+
+  /**
+   * Reads the compiled tables of a trie, without compiling the rules again.
+   *
+   * @throws  IOException  when the tables are inconsistent
+   * @throws  BufferUnderflowException  when the tables are truncated
+   *
+   * @see  #writeTo(java.io.DataOutputStream)
+   */
+  static SuffixTrie readFrom(ByteBuffer in) throws IOException, BufferUnderflowException {
+    int[] labelIds = SnapshotStore.readInts(in);
+    Integer[] values = new Integer[labelIds.length];
+    for (int slot = 0; slot < labelIds.length; slot++) {
+      values[slot] = labelIds[slot];
+    }
+    LabelIndex<Integer> labels = LabelIndex.readFrom(in, values);
+    int[] childStart = SnapshotStore.readInts(in);
+    int[] childLabels = SnapshotStore.readInts(in);
+    int[] childNodes = SnapshotStore.readInts(in);
+    byte[] flags = SnapshotStore.readBytes(in);
+    int numNodes = flags.length;
+    if (
+        numNodes == 0
+            || childStart.length != numNodes + 1
+            || childLabels.length != childNodes.length
+            || childStart[numNodes] != childNodes.length
+    ) {
+      throw new IOException("Inconsistent trie tables");
+    }
+    for (int node = 0; node < numNodes; node++) {
+      if (childStart[node] < 0 || childStart[node] > childStart[node + 1]) {
+        throw new IOException("Inconsistent trie offsets");
+      }
+    }
+    for (int child : childNodes) {
+      if (child <= ROOT || child >= numNodes) {
+        throw new IOException("Inconsistent trie nodes");
+      }
+    }
+    return new SuffixTrie(labels, childStart, childLabels, childNodes, flags);
+  }
+
+  /**
+   * Gets the alternate form of an internationalized label.
+   *
+   * @return  the ASCII form of a Unicode label, the Unicode form of an ASCII-compatible encoded label,
+   *          or {@code null} when there is no alternate form
+   */
+  private static String alternateForm(String label) {
+    try {
+      String alternate;
+      if (label.chars().anyMatch(ch -> ch >= 0x80)) {
+        alternate = IDN.toASCII(label, IDN.ALLOW_UNASSIGNED);
+      } else if (label.startsWith("xn--")) {
+        alternate = IDN.toUnicode(label, IDN.ALLOW_UNASSIGNED);
+      } else {
+        return null;
+      }
+      return alternate.equalsIgnoreCase(label) ? null : alternate;
+    } catch (IllegalArgumentException e) {
+      // Not a valid internationalized label, no alternate form
+      return null;
+    }
+  }
+
+  /**
+   * Gets the number of nodes in this trie, including the root.
+   */
+  int size() {
+    return flags.length;
+  }
+
+  /**
+   * Finds the child of a node for the given label identifier.
+   *
+   * @return  the child node or {@code -1} when not found
+   */
+  private int getChild(int node, int labelId) {
+    int i = Arrays.binarySearch(childLabels, childStart[node], childStart[node + 1], labelId);
+    return i < 0 ? -1 : childNodes[i];
+  }
+
+  /**
+   * Finds the public suffix and registrable domain of a hostname in a single right-to-left pass.
+   * A single trailing root dot is allowed.  Labels are separated by any of the IDNA full stops.
+   * When no rule matches, the last label is the public suffix, following the implicit default rule {@code "*"}.
+   *
+   * @param  start  the index of the first character of the hostname, inclusive
+   * @param  end  the index of the last character of the hostname, exclusive
+   *
+   * @return  the index of the first character of the public suffix in the high 32 bits and the index of the first
+   *          character of the registrable domain in the low 32 bits, which is {@code -1} when the hostname is itself a
+   *          public suffix.  When the hostname is empty or any examined label is empty, returns {@code -1}.
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within the sequence
+   *
+   * @see  TopLevelDomain#isLabelSeparator(char)
+   */
+  long find(CharSequence hostname, int start, int end) throws IndexOutOfBoundsException {
+    Objects.checkFromToIndex(start, end, hostname.length());
+    // Skip trailing root dot
+    if (end > start && TopLevelDomain.isLabelSeparator(hostname.charAt(end - 1))) {
+      end--;
+    }
+    int suffixStart = -1;
+    int node = ROOT;
+    int labelEnd = end;
+    while (true) {
+      int labelStart = labelEnd;
+      while (labelStart > start && !TopLevelDomain.isLabelSeparator(hostname.charAt(labelStart - 1))) {
+        labelStart--;
+      }
+      if (labelStart == labelEnd) {
+        // Empty label
+        return -1;
+      }
+      if (suffixStart == -1 || (flags[node] & WILDCARD) != 0) {
+        suffixStart = labelStart;
+      }
+      int child = -1;
+      if (labelEnd - labelStart <= labels.getMaxLength()) {
+        int slot = labels.indexOf(hostname, labelStart, labelEnd);
+        if (slot != -1) {
+          child = getChild(node, labels.getValue(slot));
+        }
+      }
+      if (child == -1) {
+        break;
+      }
+      node = child;
+      byte nodeFlags = flags[node];
+      if ((nodeFlags & EXCEPTION) != 0) {
+        // An exception rule prevails, with its leftmost label as the registrable domain
+        return ((long) (labelEnd + 1) << 32) | labelStart;
+      }
+      if ((nodeFlags & RULE) != 0) {
+        suffixStart = labelStart;
+      }
+      if (labelStart == start) {
+        break;
+      }
+      labelEnd = labelStart - 1;
+    }
+    if (suffixStart == start) {
+      // Is itself a public suffix
+      return ((long) suffixStart << 32) | 0xFFFFFFFFL;
+    }
+    // The registrable domain adds one label to the left of the public suffix
+    int domainEnd = suffixStart - 1;
+    int domainStart = domainEnd;
+    while (domainStart > start && !TopLevelDomain.isLabelSeparator(hostname.charAt(domainStart - 1))) {
+      domainStart--;
+    }
+    if (domainStart == domainEnd) {
+      // Empty label
+      return -1;
+    }
+    return ((long) suffixStart << 32) | domainStart;
+  }
+}
@@ -1,6 +1,6 @@
 /*
  * ao-tlds - Self-updating Java API to get top-level domains.
- * Copyright (C) 2016, 2017, 2018, 2019, 2020, 2021, 2022, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2016, 2017, 2018, 2019, 2020, 2021, 2022, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,37 +23,35 @@
 
 package com.aoapps.tlds;
 
-import com.aoapps.collections.AoCollections;
-import com.aoapps.lang.io.IoUtils;
-import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.UncheckedIOException;
+import java.net.IDN;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
-import java.text.DateFormat;
+import java.time.Instant;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Date;
+import java.util.EventListener;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.Random;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.IntConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.prefs.BackingStoreException;
-import java.util.prefs.Preferences;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Provides access to the current top level domains.
@@ -61,6 +59,10 @@ import java.util.prefs.Preferences;
  * The list is self-updated from <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">data.iana.org</a>.
  * Updates are persisted via the <a href="https://docs.oracle.com/javase/7/docs/technotes/guides/preferences/">Java Preferences API</a>.
  *
+ * <p>Top level domains are returned as canonical instances: while a top level domain is referenced, every snapshot
+ * returns it as the same instance, whether from a lookup or from {@link Snapshot#getTopLevelDomains()}.  They are
+ * not {@link String#intern() interned}, so are not the same instance as string literals.</p>
+ *
  * @author  AO Industries, Inc.
  */
 public final class TopLevelDomain {
@@ -79,11 +81,6 @@ public final class TopLevelDomain {
    */
   private static final long LAST_UPDATED = 1625382421000L;
 
-  /**
-   * In DEBUG mode, times are greatly shortened for testing.
-   */
-  private static final boolean DEBUG = false;
-
   /**
    * The URL accessed to update the list.
    */
@@ -97,545 +94,1879 @@ public final class TopLevelDomain {
     }
   }
 
+  /**
+   * The system property that configures the sources of updates, as URLs separated by commas or whitespace, in the
+   * order preferred.  An entry that is not a URL is a file path.  Defaults to the authoritative URL.
+   *
+   * @see  HedgedSources
+   */
+  static final String SOURCES_PROPERTY = "com.aoapps.tlds.TopLevelDomain.sources";
+
+  /**
+   * The resource of the bootstrap snapshot compiled from the bundled tlds-alpha-by-domain.txt at build time by
+   * {@link BootstrapCompiler}.  It is also the name of the file in the {@link SnapshotStore}.
+   */
+  static final String BOOTSTRAP_RESOURCE = "tlds-alpha-by-domain.bin";
+
+  /**
+   * The self-updating lifecycle of the list.
+   */
+  private static final ListUpdater<Snapshot> updater = new ListUpdater<>(
+      TopLevelDomain.class,
+      "TopLevelDomain",
+      "top level domains",
+      SOURCES_PROPERTY,
+      DATA_URL,
+      "tlds-alpha-by-domain.txt",
+      LAST_UPDATED,
+      BOOTSTRAP_RESOURCE,
+      Snapshot.STORE_MAGIC,
+      "tlds-alpha-by-domain.lock",
+      Snapshot::parse,
+      Snapshot::readFrom,
+      TopLevelDomain::published
+  );
+
+  private static final Metrics metrics = updater.getMetrics();
+
   /**
    * The default encoding for the data url.
    */
   private static final Charset DATA_ENCODING = StandardCharsets.UTF_8;
 
   /**
-   * One snapshot of the data, representing the state at one moment in time.
+   * The prefix of an ASCII-compatible encoded internationalized label.
    */
-  public static class Snapshot {
+  private static final String IDN_PREFIX = "xn--";
+
+  /**
+   * Checks if a character separates labels.  In addition to the full stop, IDNA treats the ideographic full stop,
+   * fullwidth full stop, and halfwidth ideographic full stop as label separators.
+   */
+  static boolean isLabelSeparator(char ch) {
+    return ch == '.' || ch == '\u3002' || ch == '\uFF0E' || ch == '\uFF61';
+  }
+
+  /**
+   * The result of a lookup, telling both the top level domain matched and which of its forms was matched.
+   * Internationalized top level domains are listed in their ASCII-compatible A-label form, such as
+   * {@code "XN--P1AI"}, and are also indexed in their Unicode U-label form, such as {@code "\u0440\u0444"}.
+   *
+   * <p>One match is created for each form of each top level domain on its first lookup, and is reused by all later
+   * lookups, so lookups returning a match perform no allocation once the top level domain has been matched.</p>
+   */
+  public static class Match {
+
+    private final String topLevelDomain;
+    private final String unicode;
+    private final boolean isUnicode;
+
+    private Match(String topLevelDomain, String unicode, boolean isUnicode) {
+      this.topLevelDomain = topLevelDomain;
+      this.unicode = unicode;
+      this.isUnicode = isUnicode;
+    }
 
     /**
-     * The minimum number of milliseconds between updates after a success.
+     * Gets the top level domain, in the case and ASCII (A-label) form contained within
+     * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
+     *
+     * <p>This value is canonical.</p>
      */
-    private static final long UPDATE_INTERVAL_SUCCESS_MIN =
-        DEBUG
-            ?          (60L * 60 * 1000)  // 1 hour
-            : (7L * 24 * 60 * 60 * 1000); // 7 days
+    public String getTopLevelDomain() {
+      return topLevelDomain;
+    }
 
     /**
-     * The randomized offset number of milliseconds between updates after a success.
+     * Gets the Unicode (U-label) form of the top level domain, or the top level domain itself when it is not
+     * internationalized.
      */
-    private static final int UPDATE_INTERVAL_SUCCESS_DEVIATION =
-        DEBUG
-            ?       (5 * 60 * 1000)  // 5 minutes
-            : (24 * 60 * 60 * 1000); // 1 day
+    public String getUnicode() {
+      return unicode;
+    }
 
     /**
-     * The minimum number of milliseconds between updates after a failure.
+     * Checks if the Unicode (U-label) form was matched, as opposed to the ASCII (A-label) form.
      */
-    private static final long UPDATE_INTERVAL_FAILURE_MIN =
-        DEBUG
-            ?      (10L * 60 * 1000)  // 10 minutes
-            : (24L * 60 * 60 * 1000); // 1 day
+    public boolean isUnicode() {
+      return isUnicode;
+    }
 
     /**
-     * The randomized offset number of milliseconds between updates after a failure.
+     * Gets the form that was matched.
      */
-    private static final int UPDATE_INTERVAL_FAILURE_DEVIATION =
-        DEBUG
-            ?          (60 * 1000)  // 1 minute
-            : (4 * 60 * 60 * 1000); // 4 hours
+    @Override
+    public String toString() {
+      return isUnicode ? unicode : topLevelDomain;
+    }
+  }
 
-    private static final Preferences prefs = Preferences.userNodeForPackage(Snapshot.class); // systemNodeForPackage not available as regular user in Linux
+  /**
+   * The compact, immutable content of a list, shared by all snapshots of the same list.
+   *
+   * <p>The list is held as its UTF-8 encoded source, which is ASCII in practice, with an {@code int} offset table
+   * for the top level domains and comments, and the compiled index.  The top level domain strings, their matches,
+   * and the comments are only materialized as they are used.</p>
+   */
+  private static final class Content {
 
     /**
-     * A fast pseudo-random number generator for non-cryptographic purposes.
+     * The canonical top level domains of all snapshots.
      */
-    private static final Random fastRandom = new Random(IoUtils.bufferToLong(new SecureRandom().generateSeed(Long.BYTES)));
-
-    private final String source;
-
-    private final List<String> topLevelDomains;
-
-    private final List<String> comments;
+    private static final StringPool stringPool = new StringPool();
 
-    private final long lastUpdatedTime;
+    /**
+     * Finds the end of the line starting at the given offset, which is the offset of its line terminator or the end
+     * of the source.
+     */
+    private static int lineEnd(byte[] source, int start) {
+      int end = start;
+      while (end < source.length) {
+        byte b = source[end];
+        if (b == '\n' || b == '\r') {
+          break;
+        }
+        end++;
+      }
+      return end;
+    }
 
-    private final boolean isBootstrap;
+    /**
+     * The maximum length of a list, in UTF-8 bytes.  This is about one hundred times the size of the current list.
+     */
+    private static final int MAX_SOURCE_LENGTH = 1 << 20;
 
-    private final boolean lastUpdateSuccessful;
+    /**
+     * The maximum length of a line, in characters.  This limits the length of comments.
+     */
+    private static final int MAX_LINE_LENGTH = 1024;
 
-    private final long lastSuccessfulUpdateTime;
+    /**
+     * The maximum length of a DNS label.
+     */
+    private static final int MAX_LABEL_LENGTH = 63;
 
     /**
-     * MD5 sum to make sure we have a consistent snapshot from preferences.
-     * The preferences API is not atomic so inconsistent states are detected and ignored.
+     * Parses a list in a single streaming pass, validating each top level domain as it is read, then compiles its
+     * index.
+     *
+     * @throws  IOException  when unable to read, when the list or a line is too long, or when a top level domain is
+     *                       malformed
      */
-    private final byte[] md5sum;
+    private static Content parse(Reader in) throws IOException {
+      Builder builder = new Builder();
+      ListReader reader = ListReader.read(in, MAX_SOURCE_LENGTH, MAX_LINE_LENGTH, builder);
+      return builder.build(reader.getSource(), reader.getDigest());
+    }
 
     /**
-     * The next time the data will be updated.
+     * Checks that a top level domain is a valid letter-digit-hyphen label.
+     *
+     * @throws  IOException  when malformed
      */
-    private final long nextUpdateAfter;
+    private static void checkTopLevelDomain(CharSequence line, int lineNumber) throws IOException {
+      int len = line.length();
+      boolean valid = len <= MAX_LABEL_LENGTH && line.charAt(0) != '-' && line.charAt(len - 1) != '-';
+      for (int i = 0; valid && i < len; i++) {
+        char ch = line.charAt(i);
+        valid = (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9') || ch == '-';
+      }
+      if (!valid) {
+        throw new IOException("Malformed top level domain on line " + lineNumber + ": " + line);
+      }
+    }
 
     /**
-     * Bounded time to handle extreme clock changes into the past.
+     * Collects the offsets and labels of each line as the list is read.  Lines starting with {@code "#"} are comments,
+     * blank lines are ignored, and all other lines are top level domains.
      */
-    private final long nextUpdateBefore;
+    private static final class Builder implements ListReader.LineHandler {
 
-    private final Map<String, String> lowerTldMap;
+      private int[] topLevelDomainStarts = new int[256];
+      private int numTopLevelDomains;
+      private int[] commentStarts = new int[1];
+      private int numComments;
 
-    private Snapshot(
-        String source,
-        long lastUpdatedTime,
-        boolean isBootstrap,
-        boolean lastUpdateSuccessful,
-        long lastSuccessfulUpdateTime
-    ) throws IOException {
-      this.source = source;
-      ArrayList<String> newTopLevelDomains = new ArrayList<>();
-      ArrayList<String> newComments = new ArrayList<>();
-      {
-        BufferedReader in = new BufferedReader(new StringReader(source));
-        String line;
-        while ((line = in.readLine()) != null) {
-          if (line.startsWith("#")) {
-            newComments.add(line);
-          } else {
-            newTopLevelDomains.add(line.intern());
-          }
-        }
-        newTopLevelDomains.trimToSize();
-        newComments.trimToSize();
-      }
-      this.topLevelDomains = Collections.unmodifiableList(newTopLevelDomains);
-      this.comments = Collections.unmodifiableList(newComments);
-      this.lastUpdatedTime = lastUpdatedTime;
-      this.isBootstrap = isBootstrap;
-      this.lastUpdateSuccessful = lastUpdateSuccessful;
-      this.lastSuccessfulUpdateTime = lastSuccessfulUpdateTime;
-      // Compute the MD5 sum
-      {
-        ByteArrayOutputStream bout = new ByteArrayOutputStream();
-        try (DataOutputStream out = new DataOutputStream(bout)) {
-          out.write(source.getBytes(DATA_ENCODING));
-          out.writeLong(lastUpdatedTime);
-          out.writeBoolean(lastUpdateSuccessful);
-          out.writeLong(lastSuccessfulUpdateTime);
-        }
-        try {
-          MessageDigest md = MessageDigest.getInstance("MD5");
-          this.md5sum = md.digest(bout.toByteArray());
-        } catch (NoSuchAlgorithmException e) {
-          throw new AssertionError("MD5 is expected to be available on all platforms", e);
+      /**
+       * The labels to index, including the Unicode form of internationalized top level domains.
+       */
+      private final List<String> labels = new ArrayList<>();
+
+      /**
+       * The slot value of each label, at the same index.
+       */
+      private int[] labelValues = new int[256];
+
+      @Override
+      public void line(CharSequence line, int lineNumber, int offset) throws IOException {
+        if (line.length() == 0) {
+          return;
         }
-      }
-      // Random next update time
-      {
-        long updateMin;
-        int updateDeviation;
-        if (lastUpdateSuccessful) {
-          updateMin = UPDATE_INTERVAL_SUCCESS_MIN;
-          updateDeviation = UPDATE_INTERVAL_SUCCESS_DEVIATION;
+        if (line.charAt(0) == '#') {
+          if (numComments == commentStarts.length) {
+            commentStarts = Arrays.copyOf(commentStarts, numComments * 2);
+          }
+          commentStarts[numComments++] = offset;
         } else {
-          updateMin = UPDATE_INTERVAL_FAILURE_MIN;
-          updateDeviation = UPDATE_INTERVAL_FAILURE_DEVIATION;
+          checkTopLevelDomain(line, lineNumber);
+          int position = numTopLevelDomains;
+          if (position == topLevelDomainStarts.length) {
+            topLevelDomainStarts = Arrays.copyOf(topLevelDomainStarts, position * 2);
+          }
+          topLevelDomainStarts[numTopLevelDomains++] = offset;
+          String topLevelDomain = line.toString();
+          addLabel(topLevelDomain, position << 1);
+          String unicode = Snapshot.toUnicode(topLevelDomain);
+          if (!unicode.equals(topLevelDomain)) {
+            addLabel(unicode, (position << 1) | 1);
+          }
         }
-        int randomDeviation = fastRandom.nextInt(updateDeviation);
-        this.nextUpdateAfter = lastUpdatedTime + updateMin + randomDeviation;
-        this.nextUpdateBefore = lastUpdatedTime - updateMin - randomDeviation;
-        if (logger.isLoggable(Level.FINE)) {
-          logger.fine("updateMin=" + updateMin);
-          logger.fine("updateDeviation=" + updateDeviation);
-          logger.fine("randomDeviation=" + randomDeviation);
-          logger.fine("nextUpdateAfter=" + new Date(nextUpdateAfter));
-          logger.fine("nextUpdateBefore=" + new Date(nextUpdateBefore));
+      }
+
+      private void addLabel(String label, int value) {
+        int i = labels.size();
+        if (i == labelValues.length) {
+          labelValues = Arrays.copyOf(labelValues, i * 2);
         }
+        labels.add(label);
+        labelValues[i] = value;
       }
-      // Compute lowerTldMap
-      {
-        lowerTldMap = AoCollections.newHashMap(topLevelDomains.size());
-        for (String tld : topLevelDomains) {
-          lowerTldMap.put(tld.toLowerCase(Locale.ROOT).intern(), tld);
+
+      private Content build(byte[] source, MessageDigest sourceDigest) {
+        LabelIndex<Void> index = LabelIndex.keysOf(labels);
+        int[] slotValues = new int[index.size()];
+        // When more than one label has the same case-folded form, the last one is used, matching the index
+        for (int i = 0, size = labels.size(); i < size; i++) {
+          slotValues[index.indexOf(labels.get(i))] = labelValues[i];
         }
+        return new Content(
+            source,
+            Arrays.copyOf(topLevelDomainStarts, numTopLevelDomains),
+            Arrays.copyOf(commentStarts, numComments),
+            index,
+            slotValues,
+            sourceDigest
+        );
       }
     }
 
     /**
-     * Loads this snapshot from the system preferences.
+     * The UTF-8 encoded list, exactly as parsed.
+     */
+    private final byte[] source;
+
+    /**
+     * The offset within {@link #source} of each top level domain, in list order.  Each extends to the next line
+     * terminator.
+     */
+    private final int[] topLevelDomainStarts;
+
+    /**
+     * The offset within {@link #source} of each comment, in list order.
+     */
+    private final int[] commentStarts;
+
+    /**
+     * The compiled, case-insensitive index of the top level domains, including the Unicode form of
+     * internationalized top level domains.
+     */
+    private final LabelIndex<Void> index;
+
+    /**
+     * The value of each slot of {@link #index}: the position of the top level domain shifted left by one, with the
+     * lowest bit set for its Unicode form.
+     */
+    private final int[] slotValues;
+
+    /**
+     * The digest of {@link #source}, not yet finished, or {@code null} when not computed while parsing.
      *
-     * @return  the last stored snapshot (even if stored by a different process) or {@code null} if none available.
+     * @see  ListSnapshot#getMd5sum()
      */
-    @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
-    private static Snapshot loadFromPreferences() {
-      logger.fine("Loading from preferences");
-      String source;
-      {
-        int numChunks = prefs.getInt("TopLevelDomain.source.numChunks", Integer.MIN_VALUE);
-        if (numChunks == Integer.MIN_VALUE) {
-          logger.fine("Not found in preferences");
-          return null;
-        }
-        if (logger.isLoggable(Level.FINE)) {
-          logger.fine("numChunks=" + numChunks);
-        }
-        StringBuilder sourceSb = new StringBuilder(numChunks * Preferences.MAX_VALUE_LENGTH);
-        for (int i = 0; i < numChunks; i++) {
-          String chunk = prefs.get("TopLevelDomain.source." + i, null);
-          if (chunk == null) {
-            if (logger.isLoggable(Level.WARNING)) {
-              logger.log(Level.WARNING, "Unable to load top level domains from preferences, chunk missing: " + i);
-            }
-            return null;
-          }
-          sourceSb.append(chunk);
-        }
-        source = sourceSb.toString();
-      }
-      long lastUpdatedTime = prefs.getLong("TopLevelDomain.lastUpdatedTime", Long.MIN_VALUE);
-      boolean lastUpdateSuccessful = prefs.getBoolean("TopLevelDomain.lastUpdateSuccessful", false);
-      long lastSuccessfulUpdateTime = prefs.getLong("TopLevelDomain.lastSuccessfulUpdateTime", Long.MIN_VALUE);
-      if (logger.isLoggable(Level.FINE)) {
-        logger.fine("lastUpdatedTime=" + new Date(lastUpdatedTime));
-        logger.fine("lastUpdateSuccessful=" + lastUpdateSuccessful);
-        logger.fine("lastSuccessfulUpdateTime=" + new Date(lastSuccessfulUpdateTime));
-      }
-      byte[] md5sum = prefs.getByteArray("TopLevelDomain.md5sum", null);
-      if (
-          lastUpdatedTime != Long.MIN_VALUE
-              && lastSuccessfulUpdateTime != Long.MIN_VALUE
-              && md5sum != null
-      ) {
-        try {
-          Snapshot newSnapshot = new Snapshot(source, lastUpdatedTime, false, lastUpdateSuccessful, lastSuccessfulUpdateTime);
-          if (!Arrays.equals(md5sum, newSnapshot.md5sum)) {
-            logger.log(Level.WARNING, "Unable to load top level domains from preferences, ignoring: md5sum mismatch");
-            return null;
-          }
-          logger.fine("Successful load from preferences");
-          return newSnapshot;
-        } catch (ThreadDeath td) {
-          throw td;
-        } catch (Throwable t) {
-          logger.log(Level.SEVERE, "Unable to load top level domains from preferences", t);
-          return null;
-        }
-      } else {
-        if (logger.isLoggable(Level.WARNING)) {
-          logger.warning("Incomplete data in preferences, ignoring");
-        }
-        return null;
-      }
-    }
+    private final MessageDigest sourceDigest;
 
     /**
-     * Loads this snapshot from the provided reader.
+     * The top level domains materialized so far, by position.  Each is canonicalized by {@link #stringPool}, so
+     * concurrent materialization of the same position results in the same instance.
      */
-    private static Snapshot loadFromReader(
-        Reader in,
-        long lastUpdatedTime,
-        boolean isBootstrap
-    ) throws IOException {
-      StringBuilder sb = new StringBuilder();
-      char[] buff = new char[4096];
-      int numChars;
-      while ((numChars = in.read(buff)) != -1) {
-        sb.append(buff, 0, numChars);
-      }
-      return new Snapshot(sb.toString(), lastUpdatedTime, isBootstrap, true, lastUpdatedTime);
+    private final String[] topLevelDomains;
+
+    /**
+     * The matches materialized so far, by slot.  A match has only final fields, so it is safely published
+     * without synchronization.  Concurrent materialization of the same slot only results in equal matches.
+     */
+    private final Match[] matches;
+
+    /**
+     * The view of the top level domains, materializing each as accessed.
+     */
+    private final List<String> topLevelDomainList;
+
+    /**
+     * The comments, materialized on first use.
+     */
+    private volatile List<String> comments;
+
+    /**
+     * The prefix index of the top level domains, with the position of each as its value, compiled on first use.
+     */
+    private volatile PrefixIndex prefixIndex;
+
+    /**
+     * The prefix index of the Unicode form of the internationalized top level domains, with the position of each as
+     * its value, compiled on first use.
+     */
+    private volatile PrefixIndex unicodePrefixIndex;
+
+    private Content(byte[] source, int[] topLevelDomainStarts, int[] commentStarts, LabelIndex<Void> index,
+        int[] slotValues, MessageDigest sourceDigest) {
+      this.source = source;
+      this.topLevelDomainStarts = topLevelDomainStarts;
+      this.commentStarts = commentStarts;
+      this.index = index;
+      this.slotValues = slotValues;
+      this.sourceDigest = sourceDigest;
+      this.topLevelDomains = new String[topLevelDomainStarts.length];
+      this.matches = new Match[slotValues.length];
+      this.topLevelDomainList = new TopLevelDomainList();
     }
 
     /**
-     * Stores this snapshot to the system preferences.
+     * Gets the top level domain at the given position in the list, materializing it on first use.
      */
-    private void saveToPreferences() throws BackingStoreException {
-      logger.fine("Saving to preferences");
-      int numChunks = 0;
-      for (int pos = 0, len = source.length(); pos < len; pos += Preferences.MAX_VALUE_LENGTH) {
-        prefs.put(
-            "TopLevelDomain.source." + numChunks++,
-            source.substring(
-                pos,
-                Math.min(len, pos + Preferences.MAX_VALUE_LENGTH)
-            )
-        );
+    private String getTopLevelDomain(int position) {
+      String topLevelDomain = topLevelDomains[position];
+      if (topLevelDomain == null) {
+        int start = topLevelDomainStarts[position];
+        topLevelDomain = stringPool.canonicalize(
+            new String(source, start, lineEnd(source, start) - start, DATA_ENCODING));
+        topLevelDomains[position] = topLevelDomain;
       }
-      prefs.putInt("TopLevelDomain.source.numChunks", numChunks);
-      prefs.putLong("TopLevelDomain.lastUpdatedTime", lastUpdatedTime);
-      prefs.putBoolean("TopLevelDomain.lastUpdateSuccessful", lastUpdateSuccessful);
-      prefs.putLong("TopLevelDomain.lastSuccessfulUpdateTime", lastSuccessfulUpdateTime);
-      prefs.putByteArray("TopLevelDomain.md5sum", md5sum);
-      logger.fine("Flushing preferences");
-      prefs.flush();
+      return topLevelDomain;
     }
 
     /**
-     * Gets an unmodifiable list of the most recently retrieved top-level domains,
-     * in the case and order contained within
-     * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
-     *
-     * <p>Each element is {@link String#intern() interned}.</p>
-     *
-     * @see  TopLevelDomain#getTopLevelDomains()
+     * Gets the top level domain in a slot of the index, materializing it on first use.
      */
-    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmod
-    public List<String> getTopLevelDomains() {
-      return topLevelDomains;
+    private String getTopLevelDomainInSlot(int slot) {
+      return getTopLevelDomain(slotValues[slot] >>> 1);
     }
 
     /**
-     * Gets an unmodifiable list of the comments contained within
-     * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
-     * All lines starting with {@code "#"} are considered to be comments.
-     *
-     * @see  TopLevelDomain#getComments()
+     * Gets the match in a slot of the index, materializing it on first use.
      */
-    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmod
-    public List<String> getComments() {
-      return comments;
+    private Match getMatch(int slot) {
+      Match match = matches[slot];
+      if (match == null) {
+        int value = slotValues[slot];
+        String topLevelDomain = getTopLevelDomain(value >>> 1);
+        match = new Match(topLevelDomain, Snapshot.toUnicode(topLevelDomain), (value & 1) != 0);
+        matches[slot] = match;
+      }
+      return match;
+    }
+
+    private final class TopLevelDomainList extends AbstractList<String> implements RandomAccess {
+      @Override
+      public String get(int index) {
+        return getTopLevelDomain(index);
+      }
+
+      @Override
+      public int size() {
+        return topLevelDomainStarts.length;
+      }
     }
 
     /**
-     * Gets the last time the list was updated, whether
-     * successful or not.
-     *
-     * @see  TopLevelDomain#getLastUpdatedTime()
+     * Gets the prefix index of the top level domains, compiling it on first use.
      */
-    public long getLastUpdatedTime() {
-      return lastUpdatedTime;
+    private PrefixIndex getPrefixIndex() {
+      PrefixIndex prefixes = prefixIndex;
+      if (prefixes == null) {
+        int[] positions = new int[topLevelDomainStarts.length];
+        for (int position = 0; position < positions.length; position++) {
+          positions[position] = position;
+        }
+        prefixes = new PrefixIndex(topLevelDomainList, positions);
+        prefixIndex = prefixes;
+      }
+      return prefixes;
     }
 
     /**
-     * Gets whether or not this is the bundled bootstrap data.
-     *
-     * @return  {@code true} if this is the included bootstrap data, or {@code false} is this is auto-updated
-     *
-     * @see  TopLevelDomain#isBootstrap()
+     * Gets the prefix index of the Unicode form of the internationalized top level domains, compiling it on first use.
      */
-    public boolean isBootstrap() {
-      return isBootstrap;
+    private PrefixIndex getUnicodePrefixIndex() {
+      PrefixIndex prefixes = unicodePrefixIndex;
+      if (prefixes == null) {
+        List<String> labels = new ArrayList<>();
+        int[] positions = new int[topLevelDomainStarts.length];
+        for (int position = 0; position < positions.length; position++) {
+          String topLevelDomain = getTopLevelDomain(position);
+          String unicode = Snapshot.toUnicode(topLevelDomain);
+          if (!unicode.equals(topLevelDomain)) {
+            positions[labels.size()] = position;
+            labels.add(unicode);
+          }
+        }
+        prefixes = new PrefixIndex(labels, Arrays.copyOf(positions, labels.size()));
+        unicodePrefixIndex = prefixes;
+      }
+      return prefixes;
     }
 
     /**
-     * Gets whether the last update was successful.
+     * Gets the top level domains starting with the given range of characters (case-insensitive).  The Unicode form of
+     * internationalized top level domains is searched only when the range contains a non-ASCII character.
      *
-     * @see  TopLevelDomain#getLastUpdateSuccessful()
+     * @throws  IndexOutOfBoundsException  when the range is not within {@code prefix}
      */
-    public boolean getLastUpdateSuccessful() {
-      return lastUpdateSuccessful;
+    private List<String> getByPrefix(CharSequence prefix, int start, int end) throws IndexOutOfBoundsException {
+      Objects.checkFromToIndex(start, end, prefix.length());
+      boolean ascii = true;
+      for (int i = start; i < end; i++) {
+        if (prefix.charAt(i) >= 0x80) {
+          ascii = false;
+          break;
+        }
+      }
+      PrefixIndex prefixes = ascii ? getPrefixIndex() : getUnicodePrefixIndex();
+      int from = prefixes.fromIndex(prefix, start, end);
+      int to = prefixes.toIndex(prefix, start, end);
+      return (from == to) ? Collections.emptyList() : new PrefixList(prefixes, from, to);
     }
 
     /**
-     * Gets the last time the list was successfully updated.
-     *
-     * @see  TopLevelDomain#getLastSuccessfulUpdateTime()
+     * A view of a range of a prefix index, materializing each top level domain as accessed.
      */
-    public long getLastSuccessfulUpdateTime() {
-      return lastSuccessfulUpdateTime;
+    private final class PrefixList extends AbstractList<String> implements RandomAccess {
+
+      private final PrefixIndex prefixes;
+      private final int from;
+      private final int to;
+
+      private PrefixList(PrefixIndex prefixes, int from, int to) {
+        this.prefixes = prefixes;
+        this.from = from;
+        this.to = to;
+      }
+
+      @Override
+      public String get(int index) {
+        Objects.checkIndex(index, to - from);
+        return getTopLevelDomain(prefixes.getValue(from + index));
+      }
+
+      @Override
+      public int size() {
+        return to - from;
+      }
     }
 
     /**
-     * Provides a way to get the top level domain based on label (case-insensitive).
-     *
-     * <p>Any non-null returned value is {@link String#intern() interned}.</p>
-     *
-     * @return  The top level domain based on label (case-insensitive) or {@code null} if no match.
-     *
-     * @see  TopLevelDomain#getByLabel(java.lang.String)
+     * Gets the comments, materializing them on first use.
      */
-    public String getByLabel(String label) {
-      return lowerTldMap.get(label.toLowerCase(Locale.ROOT));
+    private List<String> getComments() {
+      List<String> list = comments;
+      if (list == null) {
+        String[] array = new String[commentStarts.length];
+        for (int i = 0; i < array.length; i++) {
+          int start = commentStarts[i];
+          array[i] = new String(source, start, lineEnd(source, start) - start, DATA_ENCODING);
+        }
+        list = Collections.unmodifiableList(Arrays.asList(array));
+        comments = list;
+      }
+      return list;
     }
-  }
 
-  /**
-   * Lock for snapshot.
-   */
-  private static class Lock {
-    private Lock() {
-      // Empty lock class to help heap profile
+    /**
+     * Writes the content in the {@link SnapshotStore} format, following its source.
+     */
+    private void writeTo(DataOutputStream out) throws IOException {
+      SnapshotStore.writeInts(out, topLevelDomainStarts);
+      SnapshotStore.writeInts(out, commentStarts);
+      SnapshotStore.writeInts(out, slotValues);
+      index.writeTo(out);
     }
-  }
-
-  private static final Lock lock = new Lock();
-
-  /**
-   * The last obtained snapshot.
-   */
-  private static Snapshot snapshot;
 
-  /**
-   * The thread currently doing a background update, if any.
-   */
-  private static Thread updateThread;
-
-  /**
-   * Gets a snapshot of the current set of top-level domains, in the case and order contained within
-   * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
-   * Will trigger asynchronous background update if it is time to to so, but will use the currently
-   * available data and not wait for the update to complete.
-   */
-  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
-  public static Snapshot getSnapshot() {
-    synchronized (lock) {
-      if (snapshot == null) {
-        // Load from preferences
-        logger.fine("Trying to load from preferences");
-        snapshot = Snapshot.loadFromPreferences();
-        // Use hard-coded bootstrap
-        if (snapshot == null || snapshot.lastSuccessfulUpdateTime < LAST_UPDATED) {
-          if (logger.isLoggable(Level.INFO)) {
-            DateFormat dateFormat = DateFormat.getDateTimeInstance();
-            if (snapshot == null) {
-              logger.info(
-                  "Update not found in preferences, using hard-coded bootstrap dated \""
-                      + dateFormat.format(new Date(LAST_UPDATED))
-                      + "\""
-              );
-            } else {
-              assert snapshot.lastSuccessfulUpdateTime < LAST_UPDATED;
-              logger.info(
-                  "Update from preferences dated \""
-                      + dateFormat.format(new Date(snapshot.lastSuccessfulUpdateTime))
-                      + "\" is older than hard-coded bootstrap dated \""
-                      + dateFormat.format(new Date(LAST_UPDATED))
-                      + "\", using hard-coded bootstrap instead"
-              );
-            }
-          }
-          try {
-            try (Reader in = new InputStreamReader(TopLevelDomain.class.getResourceAsStream("tlds-alpha-by-domain.txt"), DATA_ENCODING)) {
-              snapshot = Snapshot.loadFromReader(in, LAST_UPDATED, true);
-            }
-          } catch (IOException e) {
-            throw new UncheckedIOException("Unable to load bootstrap top level domains", e);
-          }
-        } else {
-          logger.fine("Successfully loaded from preferences");
+    /**
+     * Reads content written by {@link #writeTo(java.io.DataOutputStream)}, following the source already read.
+     *
+     * @throws  IOException  when the content is inconsistent
+     */
+    private static Content readFrom(ByteBuffer in, byte[] source) throws IOException {
+      int[] topLevelDomainStarts = SnapshotStore.readInts(in);
+      int[] commentStarts = SnapshotStore.readInts(in);
+      int[] slotValues = SnapshotStore.readInts(in);
+      LabelIndex<Void> index = LabelIndex.readFrom(in, null);
+      for (int start : topLevelDomainStarts) {
+        if (start < 0 || start > source.length) {
+          throw new IOException("Top level domain offset out of range: " + start);
         }
       }
-      // Trigger background update if is time
-      if (updateThread == null) {
-        final long currentTime = System.currentTimeMillis();
-        if (
-            currentTime >= snapshot.nextUpdateAfter
-                || currentTime <= snapshot.nextUpdateBefore
-        ) {
-          if (logger.isLoggable(Level.FINE)) {
-            logger.fine("Time for background update: currentTime=" + new Date(currentTime)
-                + ", nextUpdateAfter=" + new Date(snapshot.nextUpdateAfter)
-                + ", nextUpdateBefore=" + new Date(snapshot.nextUpdateBefore)
-            );
-          }
-          // Reload from preferences, just in case another process has already updated
-          logger.fine("Reloading from preferences before beginning background update");
-          Snapshot newSnapshot = Snapshot.loadFromPreferences();
-          if (
-              newSnapshot != null
-                  && snapshot.lastUpdatedTime != newSnapshot.lastUpdatedTime
-                  && currentTime < newSnapshot.nextUpdateAfter
-                  && currentTime > newSnapshot.nextUpdateBefore
-          ) {
-            // newSnapshot is valid, use it
-            logger.fine("Update from preferences is current, using it instead of beginning background update");
-            snapshot = newSnapshot;
-          } else {
-            // Begin background update
-            logger.fine("Spawning background update thread");
-            updateThread = new Thread(
-                () -> {
-                  try {
-                    logger.fine("Connecting to " + DATA_URL);
-                    URLConnection conn = DATA_URL.openConnection();
-                    String encoding = conn.getContentEncoding();
-                    if (encoding == null) {
-                      logger.fine("Did not get encoding, assuming encoding: " + DATA_ENCODING);
-                      encoding = DATA_ENCODING.name();
-                    } else {
-                      if (logger.isLoggable(Level.FINE)) {
-                        logger.fine("Got encoding: " + encoding);
-                      }
-                    }
-                    logger.fine("Getting input");
-                    Snapshot loadedSnapshot;
-                    Reader in = new InputStreamReader(conn.getInputStream(), encoding);
-                    try {
-                      logger.fine("Reading top level domains from input");
-                      loadedSnapshot = Snapshot.loadFromReader(in, currentTime, false);
-                    } finally {
-                      logger.fine("Closing input");
-                      in.close();
-                    }
-                    synchronized (lock) {
-                      snapshot = loadedSnapshot;
-                      try {
-                        logger.fine("Saving updated top level domains to preferences");
-                        snapshot.saveToPreferences();
-                      } catch (BackingStoreException e) {
-                        logger.log(Level.SEVERE, "Unable to save new snapshot to preferences", e);
-                      }
-                    }
-                  } catch (ThreadDeath td) {
-                    throw td;
-                  } catch (Throwable t) {
-                    logger.log(Level.SEVERE, "Unable to load new snapshot", t);
-                    try {
-                      synchronized (lock) {
-                        logger.fine("Saving failed update of top level domains to preferences");
-                        snapshot = new Snapshot(
-                            snapshot.source,
-                            currentTime,
-                            false,
-                            false,
-                            snapshot.lastSuccessfulUpdateTime
-                        );
-                        try {
-                          snapshot.saveToPreferences();
-                        } catch (BackingStoreException e2) {
-                          logger.log(Level.SEVERE, "Unable to save new snapshot to preferences", e2);
-                        }
-                      }
-                    } catch (IOException e2) {
-                      logger.log(Level.SEVERE, "Unable to update existing snapshot to unsuccessful", e2);
-                    }
-                  } finally {
-                    synchronized (lock) {
-                      updateThread = null;
-                      lock.notifyAll();
-                    }
-                  }
-                },
-                TopLevelDomain.class.getName() + ".updateThread"
-            );
-            updateThread.start();
-          }
+      for (int start : commentStarts) {
+        if (start < 0 || start > source.length) {
+          throw new IOException("Comment offset out of range: " + start);
+        }
+      }
+      if (slotValues.length != index.size()) {
+        throw new IOException("Inconsistent slot values");
+      }
+      for (int value : slotValues) {
+        if ((value >>> 1) >= topLevelDomainStarts.length) {
+          throw new IOException("Top level domain out of range: " + (value >>> 1));
         }
       }
-      return snapshot;
+      return new Content(source, topLevelDomainStarts, commentStarts, index, slotValues, null);
     }
   }
 
   /**
-   * Gets an unmodifiable list of the most recently retrieved top-level domains,
-   * in the case and order contained within
-   * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
-   *
-   * <p>Each element is {@link String#intern() interned}.</p>
-   *
-   * @see  Snapshot#getTopLevelDomains()
-   * @see  TopLevelDomain#getSnapshot()
+   * One snapshot of the data, representing the state at one moment in time.
    */
-  public static List<String> getTopLevelDomains() {
-    return getSnapshot().getTopLevelDomains();
-  }
+  public static class Snapshot extends ListSnapshot<Snapshot> {
 
-  /**
-   * Gets an unmodifiable list of the comments contained within
-   * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
-   * All lines starting with {@code "#"} are considered to be comments.
-   *
-   * @see  Snapshot#getComments()
-   * @see  TopLevelDomain#getSnapshot()
-   */
-  public static List<String> getComments() {
-    return getSnapshot().getComments();
-  }
+    /**
+     * The magic number of the file in the {@link SnapshotStore}.
+     */
+    private static final int STORE_MAGIC = 0x544c4453; // "TLDS";
 
-  /**
-   * Gets the last time the list was updated, whether
+    /**
+     * The minimum number of elements in a batch before it is split across the {@link ForkJoinPool#commonPool()}.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * The content of the list, shared with other snapshots of the same list.
+     */
+    private final Content content;
+
+    /**
+     * The compiled index of the {@linkplain #content}, held directly for lookups.
+     */
+    private final LabelIndex<Void> index;
+
+    /**
+     * The history of only this snapshot, used until the history is loaded by the first publication, built on first use.
+     */
+    private volatile LabelHistory ownHistory;
+
+    private Snapshot(
+        Content content,
+        long lastUpdatedTime,
+        boolean isBootstrap,
+        boolean lastUpdateSuccessful,
+        long lastSuccessfulUpdateTime,
+        String etag,
+        String lastModified
+    ) {
+      super(content.source, content.sourceDigest, lastUpdatedTime, isBootstrap, lastUpdateSuccessful,
+          lastSuccessfulUpdateTime, etag, lastModified);
+      this.content = content;
+      this.index = content.index;
+    }
+
+    /**
+     * Parses a new snapshot in a single streaming pass, compiling its index.
+     *
+     * @see  Content#parse(java.io.Reader)
+     */
+    private static Snapshot parse(
+        Reader in,
+        long lastUpdatedTime,
+        boolean isBootstrap,
+        boolean lastUpdateSuccessful,
+        long lastSuccessfulUpdateTime,
+        String etag,
+        String lastModified
+    ) throws IOException {
+      return new Snapshot(
+          Content.parse(in),
+          lastUpdatedTime,
+          isBootstrap,
+          lastUpdateSuccessful,
+          lastSuccessfulUpdateTime,
+          etag,
+          lastModified
+      );
+    }
+
+    /**
+     * Creates a new snapshot of the same list as this snapshot, with updated times and validators.
+     * The list is not parsed again, and its content, including the compiled index, is shared.
+     */
+    @Override
+    Snapshot withUpdate(
+        long lastUpdatedTime,
+        boolean lastUpdateSuccessful,
+        long lastSuccessfulUpdateTime,
+        String etag,
+        String lastModified
+    ) {
+      return new Snapshot(
+          content,
+          lastUpdatedTime,
+          false,
+          lastUpdateSuccessful,
+          lastSuccessfulUpdateTime,
+          etag,
+          lastModified
+      );
+    }
+
+    /**
+     * Converts an A-label top level domain to its U-label form.
+     *
+     * @return  the Unicode form or {@code topLevelDomain} itself when not internationalized or not valid punycode
+     */
+    private static String toUnicode(String topLevelDomain) {
+      if (topLevelDomain.regionMatches(true, 0, IDN_PREFIX, 0, IDN_PREFIX.length())) {
+        String unicode = IDN.toUnicode(topLevelDomain, IDN.ALLOW_UNASSIGNED);
+        // IDN.toUnicode returns its input unchanged on failure
+        if (!unicode.equalsIgnoreCase(topLevelDomain)) {
+          return unicode;
+        }
+      }
+      return topLevelDomain;
+    }
+
+    /**
+     * Loads this snapshot from the system preferences.
+     *
+     * @return  the last stored snapshot (even if stored by a different process) or {@code null} if none available.
+     */
+    static Snapshot loadFromPreferences() {
+      return updater.loadFromPreferences();
+    }
+
+    /**
+     * Stores this snapshot to the system preferences.
+     *
+     * @param  saveSource  When {@code false}, the list is already stored and only the times and validators are
+     *                     written.  This avoids rewriting every chunk when the list has not changed.
+     */
+    void saveToPreferences(boolean saveSource) throws IOException, BackingStoreException {
+      updater.saveToPreferences(this, saveSource);
+    }
+
+    /**
+     * Stores this snapshot, including its compiled index, to a file in the {@link SnapshotStore} format.
+     */
+    void saveToFile(Path file) throws IOException {
+      updater.saveToFile(this, file);
+    }
+
+    /**
+     * Loads a snapshot from a file in the {@link SnapshotStore} format.  The compiled index is read directly, without
+     * parsing the list again.
+     *
+     * @return  the snapshot or {@code null} when the file does not exist or is not a valid snapshot
+     *
+     * @throws  IOException  when unable to read the file or the file is inconsistent
+     */
+    static Snapshot loadFromFile(Path file) throws IOException {
+      return updater.loadFromFile(file);
+    }
+
+    /**
+     * Writes the content in the {@link SnapshotStore} format.
+     */
+    @Override
+    void writeContent(DataOutputStream out) throws IOException {
+      content.writeTo(out);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeContent(java.io.DataOutputStream)}.
+     */
+    private static Snapshot readFrom(
+        ByteBuffer in,
+        byte[] source,
+        long lastUpdatedTime,
+        boolean isBootstrap,
+        boolean lastUpdateSuccessful,
+        long lastSuccessfulUpdateTime,
+        String etag,
+        String lastModified
+    ) throws IOException {
+      return new Snapshot(
+          Content.readFrom(in, source),
+          lastUpdatedTime,
+          isBootstrap,
+          lastUpdateSuccessful,
+          lastSuccessfulUpdateTime,
+          etag,
+          lastModified
+      );
+    }
+
+    /**
+     * Gets an unmodifiable list of the most recently retrieved top-level domains,
+     * in the case and order contained within
+     * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
+     *
+     * <p>Each element is canonical.  The list is a view of the compact content of the
+     * snapshot, with each element materialized on first access.</p>
+     *
+     * @see  TopLevelDomain#getTopLevelDomains()
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmod
+    public List<String> getTopLevelDomains() {
+      return content.topLevelDomainList;
+    }
+
+    /**
+     * Gets an unmodifiable list of the comments contained within
+     * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
+     * All lines starting with {@code "#"} are considered to be comments.
+     *
+     * @see  TopLevelDomain#getComments()
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmod
+    public List<String> getComments() {
+      return content.getComments();
+    }
+
+    /**
+     * Gets the history of only this snapshot, building it on first use.
+     */
+    private LabelHistory getOwnHistory() {
+      LabelHistory h = ownHistory;
+      if (h == null) {
+        h = LabelHistory.of(lastSuccessfulUpdateTime, getTopLevelDomains(), Snapshot::toUnicode);
+        ownHistory = h;
+      }
+      return h;
+    }
+
+    /**
+     * Gets the last time the list was updated, whether
+     * successful or not.
+     *
+     * @see  TopLevelDomain#getLastUpdatedTime()
+     */
+    public long getLastUpdatedTime() {
+      return lastUpdatedTime;
+    }
+
+    /**
+     * Gets whether or not this is the bundled bootstrap data.
+     *
+     * @return  {@code true} if this is the included bootstrap data, or {@code false} is this is auto-updated
+     *
+     * @see  TopLevelDomain#isBootstrap()
+     */
+    public boolean isBootstrap() {
+      return isBootstrap;
+    }
+
+    /**
+     * Gets whether the last update was successful.
+     *
+     * @see  TopLevelDomain#getLastUpdateSuccessful()
+     */
+    public boolean getLastUpdateSuccessful() {
+      return lastUpdateSuccessful;
+    }
+
+    /**
+     * Gets the last time the list was successfully updated.
+     *
+     * @see  TopLevelDomain#getLastSuccessfulUpdateTime()
+     */
+    public long getLastSuccessfulUpdateTime() {
+      return lastSuccessfulUpdateTime;
+    }
+
+    /**
+     * Gets the top level domain in a slot of the index, counting the lookup.
+     */
+    private String getTopLevelDomain(int slot) {
+      if (slot == -1) {
+        metrics.lookupMisses.increment();
+        return null;
+      }
+      metrics.lookupHits.increment();
+      return content.getTopLevelDomainInSlot(slot);
+    }
+
+    /**
+     * Gets the match in a slot of the index, counting the lookup.
+     */
+    private Match getMatch(int slot) {
+      if (slot == -1) {
+        metrics.lookupMisses.increment();
+        return null;
+      }
+      metrics.lookupHits.increment();
+      return content.getMatch(slot);
+    }
+
+    /**
+     * Gets the index of a top level domain found by scanning a hostname, counting the lookup.
+     */
+    private static int indexOf(long found) {
+      if (found == -1) {
+        metrics.lookupMisses.increment();
+        return -1;
+      }
+      metrics.lookupHits.increment();
+      return (int) (found >>> 32);
+    }
+
+    /**
+     * Gets the top level domain based on label (case-insensitive), without counting the lookup.
+     */
+    private String getByLabelUncounted(String label) {
+      int slot = index.indexOf(label);
+      return slot == -1 ? null : content.getTopLevelDomainInSlot(slot);
+    }
+
+    /**
+     * Provides a way to get the top level domain based on label (case-insensitive).
+     * Internationalized top level domains are matched in either their ASCII (A-label) or Unicode (U-label) form,
+     * and are always returned in their ASCII form.
+     *
+     * <p>Any non-null returned value is canonical.</p>
+     *
+     * @return  The top level domain based on label (case-insensitive) or {@code null} if no match.
+     *
+     * @see  TopLevelDomain#getByLabel(java.lang.String)
+     */
+    public String getByLabel(String label) {
+      return getTopLevelDomain(index.indexOf(label));
+    }
+
+    /**
+     * Provides a way to get the top level domain based on a range of characters (case-insensitive).
+     * Internationalized top level domains are matched in either their ASCII (A-label) or Unicode (U-label) form,
+     * and are always returned in their ASCII form.
+     *
+     * <p>Case is folded while hashing and comparing in place, so this performs no allocation.  This allows,
+     * for example, the last label of a hostname to be looked-up without first taking a substring.</p>
+     *
+     * <p>Any non-null returned value is canonical.</p>
+     *
+     * @param  label  the characters containing the label
+     * @param  start  the index of the first character of the label, inclusive
+     * @param  end  the index of the last character of the label, exclusive
+     *
+     * @return  The top level domain based on label (case-insensitive) or {@code null} if no match.
+     *
+     * @throws  IndexOutOfBoundsException  when the range is not within {@code label}
+     *
+     * @see  TopLevelDomain#getByLabel(java.lang.CharSequence, int, int)
+     */
+    public String getByLabel(CharSequence label, int start, int end) throws IndexOutOfBoundsException {
+      return getTopLevelDomain(index.indexOf(label, start, end));
+    }
+
+    /**
+     * Gets the top level domains starting with the given prefix (case-insensitive), such as to suggest top level
+     * domains as a domain is typed.  The top level domains are ordered by their case-folded form, so an exact match
+     * is first.
+     *
+     * <p>Internationalized top level domains are matched in their Unicode (U-label) form when the prefix contains a
+     * non-ASCII character, otherwise in their ASCII (A-label) form, and are always returned in their ASCII form.
+     * Each top level domain is included at most once, and the empty prefix matches all top level domains.</p>
+     *
+     * <p>The sorted prefix index is compiled on first use and is shared by the snapshots of the same list.  Each
+     * search is two binary searches of the index, folding case while comparing in place, so the returned view is the
+     * only allocation.</p>
+     *
+     * @return  An unmodifiable view of the matching top level domains, each canonical, or an empty list if no match.
+     *
+     * @see  TopLevelDomain#getByPrefix(java.lang.CharSequence)
+     */
+    public List<String> getByPrefix(CharSequence prefix) {
+      return content.getByPrefix(prefix, 0, prefix.length());
+    }
+
+    /**
+     * Gets the top level domains starting with the given range of characters (case-insensitive).
+     *
+     * @param  prefix  the characters containing the prefix
+     * @param  start  the index of the first character of the prefix, inclusive
+     * @param  end  the index of the last character of the prefix, exclusive
+     *
+     * @return  An unmodifiable view of the matching top level domains, each canonical, or an empty list if no match.
+     *
+     * @throws  IndexOutOfBoundsException  when the range is not within {@code prefix}
+     *
+     * @see  #getByPrefix(java.lang.CharSequence)
+     */
+    public List<String> getByPrefix(CharSequence prefix, int start, int end) throws IndexOutOfBoundsException {
+      return content.getByPrefix(prefix, start, end);
+    }
+
+    /**
+     * Provides a way to get the top level domain based on a range of UTF-8 bytes (ASCII case-insensitive).
+     * The bytes are matched directly against the UTF-8 encoded index, without decoding to a {@link String}.
+     * Only ASCII case is folded, so the Unicode form of an internationalized top level domain is only matched in
+     * its lower-case form.  This performs no allocation.
+     *
+     * <p>Any non-null returned value is canonical.</p>
+     *
+     * @param  label  the bytes containing the label
+     * @param  off  the index of the first byte of the label
+     * @param  len  the number of bytes in the label
+     *
+     * @return  The top level domain based on label (case-insensitive) or {@code null} if no match.
+     *
+     * @throws  IndexOutOfBoundsException  when the range is not within {@code label}
+     *
+     * @see  TopLevelDomain#getByLabel(byte[], int, int)
+     */
+    public String getByLabel(byte[] label, int off, int len) throws IndexOutOfBoundsException {
+      return getTopLevelDomain(index.indexOf(label, off, len));
+    }
+
+    /**
+     * Provides a way to get the top level domain based on the UTF-8 bytes between the
+     * {@linkplain ByteBuffer#position() position} and {@linkplain ByteBuffer#limit() limit} of a buffer (case-insensitive).
+     * The bytes are matched directly against the UTF-8 encoded index, without decoding to a {@link String}.
+     * The buffer position and limit are not modified.  Only ASCII case is folded, so the Unicode form of an
+     * internationalized top level domain is only matched in its lower-case form.
+     * This performs no allocation, and works equally with heap and direct buffers.
+     *
+     * <p>Any non-null returned value is canonical.</p>
+     *
+     * @return  The top level domain based on label (case-insensitive) or {@code null} if no match.
+     *
+     * @see  TopLevelDomain#getByLabel(java.nio.ByteBuffer)
+     */
+    public String getByLabel(ByteBuffer label) {
+      return getTopLevelDomain(index.indexOf(label, label.position(), label.limit()));
+    }
+
+    /**
+     * Finds the top level domain of a hostname by scanning from the right.
+     *
+     * @return  the slot in the index combined with the start of the label in the high 32 bits,
+     *          or {@code -1} when the last label is not a top level domain
+     */
+    private long findTopLevelDomain(CharSequence hostname, int start, int end) throws IndexOutOfBoundsException {
+      Objects.checkFromToIndex(start, end, hostname.length());
+      // Skip trailing root dot
+      if (end > start && isLabelSeparator(hostname.charAt(end - 1))) {
+        end--;
+      }
+      int labelStart = end;
+      int minStart = Math.max(start, end - index.getMaxLength());
+      while (labelStart > start && !isLabelSeparator(hostname.charAt(labelStart - 1))) {
+        if (labelStart == minStart) {
+          // Longer than any top level domain
+          return -1;
+        }
+        labelStart--;
+      }
+      if (labelStart == end) {
+        // Empty label
+        return -1;
+      }
+      int slot = index.indexOf(hostname, labelStart, end);
+      return slot == -1 ? -1 : (((long) labelStart << 32) | slot);
+    }
+
+    /**
+     * Finds the top level domain of an ASCII-encoded hostname by scanning from the right.
+     *
+     * @return  the slot in the index combined with the start of the label in the high 32 bits,
+     *          or {@code -1} when the last label is not a top level domain
+     */
+    private long findTopLevelDomain(byte[] hostname, int off, int len) throws IndexOutOfBoundsException {
+      Objects.checkFromIndexSize(off, len, hostname.length);
+      int end = off + len;
+      // Skip trailing root dot
+      if (end > off && hostname[end - 1] == '.') {
+        end--;
+      }
+      int labelStart = end;
+      int minStart = Math.max(off, end - index.getMaxByteLength());
+      while (labelStart > off && hostname[labelStart - 1] != '.') {
+        if (labelStart == minStart) {
+          // Longer than any top level domain
+          return -1;
+        }
+        labelStart--;
+      }
+      if (labelStart == end) {
+        // Empty label
+        return -1;
+      }
+      int slot = index.indexOf(hostname, labelStart, end - labelStart);
+      return slot == -1 ? -1 : (((long) labelStart << 32) | slot);
+    }
+
+    /**
+     * Finds the top level domain of an ASCII-encoded hostname by scanning from the right, using absolute gets.
+     *
+     * @return  the slot in the index combined with the start of the label in the high 32 bits,
+     *          or {@code -1} when the last label is not a top level domain
+     */
+    private long findTopLevelDomain(ByteBuffer hostname, int start, int end) throws IndexOutOfBoundsException {
+      Objects.checkFromToIndex(start, end, hostname.limit());
+      // Skip trailing root dot
+      if (end > start && hostname.get(end - 1) == '.') {
+        end--;
+      }
+      int labelStart = end;
+      int minStart = Math.max(start, end - index.getMaxByteLength());
+      while (labelStart > start && hostname.get(labelStart - 1) != '.') {
+        if (labelStart == minStart) {
+          // Longer than any top level domain
+          return -1;
+        }
+        labelStart--;
+      }
+      if (labelStart == end) {
+        // Empty label
+        return -1;
+      }
+      int slot = index.indexOf(hostname, labelStart, end);
+      return slot == -1 ? -1 : (((long) labelStart << 32) | slot);
+    }
+
+    /**
+     * Finds the top level domain of a hostname, scanning from the right.  A single trailing root dot is allowed,
+     * as in {@code "example.com."}.  Only the last label is examined, so a hostname whose last label is not a top
+     * level domain is rejected without touching the rest of the hostname.  This performs no allocation.
+     *
+     * <p>A hostname consisting of only a top level domain, such as {@code "com"}, is a match at index {@code 0}.</p>
+     *
+     * @param  hostname  the characters containing the hostname
+     * @param  start  the index of the first character of the hostname, inclusive
+     * @param  end  the index of the last character of the hostname, exclusive
+     *
+     * @return  The index of the first character of the top level domain or {@code -1} if the last label
+     *          is not a top level domain.
+     *
+     * @throws  IndexOutOfBoundsException  when the range is not within {@code hostname}
+     *
+     * @see  TopLevelDomain#indexOfTopLevelDomain(java.lang.CharSequence, int, int)
+     */
+    public int indexOfTopLevelDomain(CharSequence hostname, int start, int end) throws IndexOutOfBoundsException {
+      long found = findTopLevelDomain(hostname, start, end);
+      return indexOf(found);
+    }
+
+    /**
+     * Finds the top level domain of a hostname, scanning from the right.
+     *
+     * @return  The index of the first character of the top level domain or {@code -1} if the last label
+     *          is not a top level domain.
+     *
+     * @see  #indexOfTopLevelDomain(java.lang.CharSequence, int, int)
+     * @see  TopLevelDomain#indexOfTopLevelDomain(java.lang.CharSequence)
+     */
+    public int indexOfTopLevelDomain(CharSequence hostname) {
+      return indexOfTopLevelDomain(hostname, 0, hostname.length());
+    }
+
+    /**
+     * Gets the top level domain of a hostname (case-insensitive), scanning from the right.
+     * A single trailing root dot is allowed.  This performs no allocation.
+     *
+     * <p>Any non-null returned value is canonical.</p>
+     *
+     * @return  The top level domain of the hostname or {@code null} if the last label is not a top level domain.
+     *
+     * @see  #indexOfTopLevelDomain(java.lang.CharSequence, int, int)
+     * @see  TopLevelDomain#getByHostname(java.lang.CharSequence)
+     */
+    public String getByHostname(CharSequence hostname) {
+      long found = findTopLevelDomain(hostname, 0, hostname.length());
+      return getTopLevelDomain((int) found);
+    }
+
+    /**
+     * Finds the top level domain based on label (case-insensitive), telling which of its forms was matched.
+     * Internationalized top level domains are matched in either their ASCII (A-label) or Unicode (U-label) form.
+     * This performs no allocation.
+     *
+     * @return  The match or {@code null} if no match.
+     *
+     * @see  TopLevelDomain#findByLabel(java.lang.CharSequence)
+     */
+    public Match findByLabel(CharSequence label) {
+      return findByLabel(label, 0, label.length());
+    }
+
+    /**
+     * Finds the top level domain based on a range of characters (case-insensitive), telling which of its forms was
+     * matched.  Internationalized top level domains are matched in either their ASCII (A-label) or
+     * Unicode (U-label) form.  This performs no allocation.
+     *
+     * @param  label  the characters containing the label
+     * @param  start  the index of the first character of the label, inclusive
+     * @param  end  the index of the last character of the label, exclusive
+     *
+     * @return  The match or {@code null} if no match.
+     *
+     * @throws  IndexOutOfBoundsException  when the range is not within {@code label}
+     *
+     * @see  TopLevelDomain#findByLabel(java.lang.CharSequence, int, int)
+     */
+    public Match findByLabel(CharSequence label, int start, int end) throws IndexOutOfBoundsException {
+      return getMatch(index.indexOf(label, start, end));
+    }
+
+    /**
+     * Finds the top level domain of a hostname (case-insensitive), scanning from the right, telling which of its
+     * forms was matched.  A single trailing root dot is allowed.  In addition to the full stop, the ideographic
+     * full stop, fullwidth full stop, and halfwidth ideographic full stop separate labels, as in IDNA.
+     * This performs no allocation.
+     *
+     * @return  The match or {@code null} if the last label is not a top level domain.
+     *
+     * @see  #indexOfTopLevelDomain(java.lang.CharSequence, int, int)
+     * @see  TopLevelDomain#findByHostname(java.lang.CharSequence)
+     */
+    public Match findByHostname(CharSequence hostname) {
+      return getMatch((int) findTopLevelDomain(hostname, 0, hostname.length()));
+    }
+
+    /**
+     * Finds the top level domain of an ASCII-encoded hostname, scanning from the right.
+     * A single trailing root dot is allowed.  The bytes are matched directly against the ASCII-encoded index,
+     * without decoding to a {@link String}.  This performs no allocation.
+     *
+     * @param  hostname  the bytes containing the hostname
+     * @param  off  the index of the first byte of the hostname
+     * @param  len  the number of bytes in the hostname
+     *
+     * @return  The index within {@code hostname} of the first byte of the top level domain or {@code -1} if the last
+     *          label is not a top level domain.
+     *
+     * @throws  IndexOutOfBoundsException  when the range is not within {@code hostname}
+     *
+     * @see  #indexOfTopLevelDomain(java.lang.CharSequence, int, int)
+     * @see  TopLevelDomain#indexOfTopLevelDomain(byte[], int, int)
+     */
+    public int indexOfTopLevelDomain(byte[] hostname, int off, int len) throws IndexOutOfBoundsException {
+      long found = findTopLevelDomain(hostname, off, len);
+      return indexOf(found);
+    }
+
+    /**
+     * Finds the top level domain of the ASCII-encoded hostname between the
+     * {@linkplain ByteBuffer#position() position} and {@linkplain ByteBuffer#limit() limit} of a buffer,
+     * scanning from the right.  A single trailing root dot is allowed.  The buffer position and limit are not
+     * modified.  This performs no allocation, and works equally with heap and direct buffers.
+     *
+     * @return  The absolute index within {@code hostname} of the first byte of the top level domain or {@code -1}
+     *          if the last label is not a top level domain.
+     *
+     * @see  #indexOfTopLevelDomain(java.lang.CharSequence, int, int)
+     * @see  TopLevelDomain#indexOfTopLevelDomain(java.nio.ByteBuffer)
+     */
+    public int indexOfTopLevelDomain(ByteBuffer hostname) {
+      long found = findTopLevelDomain(hostname, hostname.position(), hostname.limit());
+      return indexOf(found);
+    }
+
+    /**
+     * Gets the top level domain of an ASCII-encoded hostname (case-insensitive), scanning from the right.
+     * A single trailing root dot is allowed.  This performs no allocation.
+     *
+     * <p>Any non-null returned value is canonical.</p>
+     *
+     * @param  hostname  the bytes containing the hostname
+     * @param  off  the index of the first byte of the hostname
+     * @param  len  the number of bytes in the hostname
+     *
+     * @return  The top level domain of the hostname or {@code null} if the last label is not a top level domain.
+     *
+     * @throws  IndexOutOfBoundsException  when the range is not within {@code hostname}
+     *
+     * @see  TopLevelDomain#getByHostname(byte[], int, int)
+     */
+    public String getByHostname(byte[] hostname, int off, int len) throws IndexOutOfBoundsException {
+      long found = findTopLevelDomain(hostname, off, len);
+      return getTopLevelDomain((int) found);
+    }
+
+    /**
+     * Gets the top level domain of the ASCII-encoded hostname between the
+     * {@linkplain ByteBuffer#position() position} and {@linkplain ByteBuffer#limit() limit} of a buffer
+     * (case-insensitive), scanning from the right.  A single trailing root dot is allowed.
+     * The buffer position and limit are not modified.  This performs no allocation.
+     *
+     * <p>Any non-null returned value is canonical.</p>
+     *
+     * @return  The top level domain of the hostname or {@code null} if the last label is not a top level domain.
+     *
+     * @see  TopLevelDomain#getByHostname(java.nio.ByteBuffer)
+     */
+    public String getByHostname(ByteBuffer hostname) {
+      long found = findTopLevelDomain(hostname, hostname.position(), hostname.limit());
+      return getTopLevelDomain((int) found);
+    }
+
+    /**
+     * Makes sure the results of a batch are large enough.
+     */
+    private static void checkResults(int size, String[] results) throws IllegalArgumentException {
+      if (results.length < size) {
+        throw new IllegalArgumentException("results too small: results.length = " + results.length + ", size = " + size);
+      }
+    }
+
+    /**
+     * Performs an action for each index of a batch, splitting large batches across the
+     * {@link ForkJoinPool#commonPool()}.
+     */
+    private static void forEach(int size, String[] results, IntConsumer action) throws IllegalArgumentException {
+      checkResults(size, results);
+      if (size >= PARALLEL_THRESHOLD) {
+        IntStream.range(0, size).parallel().forEach(action);
+      } else {
+        for (int i = 0; i < size; i++) {
+          action.accept(i);
+        }
+      }
+    }
+
+    /**
+     * Gets the top level domain for each label in a batch (case-insensitive).
+     * The snapshot is obtained once for the whole batch, and large batches are split across the
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * <p>Any non-null result is canonical.</p>
+     *
+     * @param  results  Receives the top level domain of each label, or {@code null} if no match, at the same index.
+     *                  Must be at least as long as {@code labels}.
+     *
+     * @throws  IllegalArgumentException  when {@code results} is shorter than {@code labels}
+     *
+     * @see  #getByLabel(java.lang.CharSequence, int, int)
+     * @see  TopLevelDomain#getByLabels(java.lang.CharSequence[], java.lang.String[])
+     */
+    public void getByLabels(CharSequence[] labels, String[] results) throws IllegalArgumentException {
+      forEach(labels.length, results, i -> {
+        CharSequence label = labels[i];
+        results[i] = getTopLevelDomain(index.indexOf(label, 0, label.length()));
+      });
+    }
+
+    /**
+     * Gets the top level domain for each label in a batch (case-insensitive).
+     * The snapshot is obtained once for the whole batch, and large {@link RandomAccess} lists are split across the
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * <p>Any non-null result is canonical.</p>
+     *
+     * @param  results  Receives the top level domain of each label, or {@code null} if no match, at the same index.
+     *                  Must be at least as long as {@code labels}.
+     *
+     * @throws  IllegalArgumentException  when {@code results} is shorter than {@code labels}
+     *
+     * @see  #getByLabel(java.lang.CharSequence, int, int)
+     * @see  TopLevelDomain#getByLabels(java.util.List, java.lang.String[])
+     */
+    public void getByLabels(List<? extends CharSequence> labels, String[] results) throws IllegalArgumentException {
+      if (labels instanceof RandomAccess) {
+        forEach(labels.size(), results, i -> {
+          CharSequence label = labels.get(i);
+          results[i] = getTopLevelDomain(index.indexOf(label, 0, label.length()));
+        });
+      } else {
+        checkResults(labels.size(), results);
+        int i = 0;
+        for (CharSequence label : labels) {
+          results[i++] = getTopLevelDomain(index.indexOf(label, 0, label.length()));
+        }
+      }
+    }
+
+    /**
+     * Gets the top level domain for each label in a stream (case-insensitive).
+     * The snapshot is obtained once for the whole stream.  The returned stream is parallel when the given stream is.
+     *
+     * <p>Any non-null element is canonical.</p>
+     *
+     * @return  The top level domain of each label, or {@code null} if no match, in the same encounter order.
+     *
+     * @see  #getByLabel(java.lang.CharSequence, int, int)
+     * @see  TopLevelDomain#getByLabels(java.util.stream.Stream)
+     */
+    public Stream<String> getByLabels(Stream<? extends CharSequence> labels) {
+      return labels.map(label -> getTopLevelDomain(index.indexOf(label, 0, label.length())));
+    }
+
+    /**
+     * Gets the top level domain of each hostname in a batch (case-insensitive), scanning each from the right.
+     * The snapshot is obtained once for the whole batch, and large batches are split across the
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * <p>Any non-null result is canonical.</p>
+     *
+     * @param  results  Receives the top level domain of each hostname, or {@code null} if the last label is not a
+     *                  top level domain, at the same index.  Must be at least as long as {@code hostnames}.
+     *
+     * @throws  IllegalArgumentException  when {@code results} is shorter than {@code hostnames}
+     *
+     * @see  #getByHostname(java.lang.CharSequence)
+     * @see  TopLevelDomain#getByHostnames(java.lang.CharSequence[], java.lang.String[])
+     */
+    public void getByHostnames(CharSequence[] hostnames, String[] results) throws IllegalArgumentException {
+      forEach(hostnames.length, results, i -> results[i] = getByHostname(hostnames[i]));
+    }
+
+    /**
+     * Gets the top level domain of each hostname in a batch (case-insensitive), scanning each from the right.
+     * The snapshot is obtained once for the whole batch, and large {@link RandomAccess} lists are split across the
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * <p>Any non-null result is canonical.</p>
+     *
+     * @param  results  Receives the top level domain of each hostname, or {@code null} if the last label is not a
+     *                  top level domain, at the same index.  Must be at least as long as {@code hostnames}.
+     *
+     * @throws  IllegalArgumentException  when {@code results} is shorter than {@code hostnames}
+     *
+     * @see  #getByHostname(java.lang.CharSequence)
+     * @see  TopLevelDomain#getByHostnames(java.util.List, java.lang.String[])
+     */
+    public void getByHostnames(List<? extends CharSequence> hostnames, String[] results) throws IllegalArgumentException {
+      if (hostnames instanceof RandomAccess) {
+        forEach(hostnames.size(), results, i -> results[i] = getByHostname(hostnames.get(i)));
+      } else {
+        checkResults(hostnames.size(), results);
+        int i = 0;
+        for (CharSequence hostname : hostnames) {
+          results[i++] = getByHostname(hostname);
+        }
+      }
+    }
+
+    /**
+     * Gets the top level domain of each hostname in a stream (case-insensitive), scanning each from the right.
+     * The snapshot is obtained once for the whole stream.  The returned stream is parallel when the given stream is.
+     *
+     * <p>Any non-null element is canonical.</p>
+     *
+     * @return  The top level domain of each hostname, or {@code null} if the last label is not a top level domain,
+     *          in the same encounter order.
+     *
+     * @see  #getByHostname(java.lang.CharSequence)
+     * @see  TopLevelDomain#getByHostnames(java.util.stream.Stream)
+     */
+    public Stream<String> getByHostnames(Stream<? extends CharSequence> hostnames) {
+      return hostnames.map(this::getByHostname);
+    }
+  }
+
+  /**
+   * A change of the published snapshot, with the differences between the top level domains of the old and new
+   * snapshots.  Top level domains are compared case-insensitively, so a top level domain that only changed case is
+   * neither added nor removed.
+   *
+   * <p>The differences are computed once, before any listener is notified, and are shared by all listeners.</p>
+   *
+   * @see  #addSnapshotListener(com.aoapps.tlds.TopLevelDomain.SnapshotListener)
+   */
+  public static final class SnapshotChange {
+
+    private final Snapshot oldSnapshot;
+    private final Snapshot newSnapshot;
+    private final List<String> added;
+    private final List<String> removed;
+    private final List<String> caseChanged;
+
+    SnapshotChange(Snapshot oldSnapshot, Snapshot newSnapshot) {
+      this.oldSnapshot = oldSnapshot;
+      this.newSnapshot = newSnapshot;
+      if (oldSnapshot.content == newSnapshot.content) {
+        added = Collections.emptyList();
+        removed = Collections.emptyList();
+        caseChanged = Collections.emptyList();
+      } else {
+        List<String> newAdded = new ArrayList<>();
+        for (String topLevelDomain : newSnapshot.getTopLevelDomains()) {
+          if (oldSnapshot.getByLabelUncounted(topLevelDomain) == null) {
+            newAdded.add(topLevelDomain);
+          }
+        }
+        List<String> newRemoved = new ArrayList<>();
+        List<String> newCaseChanged = new ArrayList<>();
+        for (String topLevelDomain : oldSnapshot.getTopLevelDomains()) {
+          String current = newSnapshot.getByLabelUncounted(topLevelDomain);
+          if (current == null) {
+            newRemoved.add(topLevelDomain);
+          } else if (!current.equals(topLevelDomain)) {
+            newCaseChanged.add(current);
+          }
+        }
+        added = toUnmodifiableList(newAdded);
+        removed = toUnmodifiableList(newRemoved);
+        caseChanged = toUnmodifiableList(newCaseChanged);
+      }
+    }
+
+    private static List<String> toUnmodifiableList(List<String> list) {
+      return list.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Gets the snapshot that was replaced.
+     */
+    public Snapshot getOldSnapshot() {
+      return oldSnapshot;
+    }
+
+    /**
+     * Gets the snapshot that is now published.
+     */
+    public Snapshot getNewSnapshot() {
+      return newSnapshot;
+    }
+
+    /**
+     * Gets the top level domains of the new snapshot that are not in the old snapshot, in the order of the new
+     * snapshot.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmod
+    public List<String> getAdded() {
+      return added;
+    }
+
+    /**
+     * Gets the top level domains of the old snapshot that are not in the new snapshot, in the order of the old
+     * snapshot.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmod
+    public List<String> getRemoved() {
+      return removed;
+    }
+
+    /**
+     * Gets the top level domains that are in both snapshots but in a different case, in their new case and in the
+     * order of the old snapshot.  The old case is available from {@link #getOldSnapshot()}.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Returning unmod
+    public List<String> getCaseChanged() {
+      return caseChanged;
+    }
+
+    /**
+     * Checks if the top level domains changed.  When {@code false}, only the times or validators of the snapshot
+     * changed.
+     */
+    public boolean isListChanged() {
+      return !added.isEmpty() || !removed.isEmpty() || !caseChanged.isEmpty();
+    }
+  }
+
+  /**
+   * Notified when the published snapshot changes.
+   *
+   * @see  #addSnapshotListener(com.aoapps.tlds.TopLevelDomain.SnapshotListener)
+   */
+  @FunctionalInterface
+  public interface SnapshotListener extends EventListener {
+
+    /**
+     * Called on the thread performing the background update, after the new snapshot is published.
+     * This should return quickly, since the update does not complete until all listeners return.
+     */
+    void snapshotChanged(SnapshotChange change);
+  }
+
+  /**
+   * The registered listeners.
+   */
+  private static final List<SnapshotListener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * The history of the published lists, or {@code null} until loaded by the first publication.
+   */
+  private static volatile LabelHistory history;
+
+  /**
+   * The name of the file of the {@link LabelHistory} in the {@link SnapshotStore}.
+   */
+  private static final String HISTORY_STORE_FILE = "tlds-alpha-by-domain-history.bin";
+
+  /**
+   * The magic number of the file of the {@link LabelHistory} in the {@link SnapshotStore}.
+   */
+  private static final int HISTORY_STORE_MAGIC = 0x544c4448; // "TLDH";
+
+  /**
+   * The prefix of the keys of the {@link LabelHistory} in preferences.
+   */
+  private static final String HISTORY_PREFERENCES_KEY = "TopLevelDomain.history";
+
+  /**
+   * The system property that configures the maximum number of versions in the history.
+   */
+  static final String HISTORY_MAX_COUNT_PROPERTY = "com.aoapps.tlds.TopLevelDomain.historyMaxCount";
+
+  /**
+   * The default maximum number of versions in the history.
+   */
+  static final int DEFAULT_HISTORY_MAX_COUNT = 1000;
+
+  /**
+   * The system property that configures the maximum age of versions in the history, in milliseconds since replaced.
+   */
+  static final String HISTORY_MAX_AGE_PROPERTY = "com.aoapps.tlds.TopLevelDomain.historyMaxAge";
+
+  /**
+   * The default maximum age of versions in the history, in milliseconds since replaced.
+   */
+  static final long DEFAULT_HISTORY_MAX_AGE = 10L * 365 * 24 * 60 * 60 * 1000; // 10 years
+
+  /**
+   * Loads the bootstrap snapshot compiled at build time.
+   *
+   * @return  the snapshot or {@code null} when not available, not valid, or compiled from a different bundled list
+   */
+  static Snapshot loadCompiledBootstrap() {
+    return updater.loadCompiledBootstrap();
+  }
+
+  /**
+   * Parses the bundled list into a bootstrap snapshot.
+   */
+  static Snapshot parseBootstrap() throws IOException {
+    return updater.parseBootstrap();
+  }
+
+  /**
+   * Parses the bundled list and writes it, including its compiled index, as the bootstrap snapshot resource.
+   *
+   * @param  directory  the directory of the resource, which is the package directory within the build output
+   */
+  static void compileBootstrap(Path directory) throws IOException {
+    updater.compileBootstrap(directory);
+  }
+
+  /**
+   * Gets a snapshot of the current set of top-level domains, in the case and order contained within
+   * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
+   * Will trigger asynchronous background update if it is time to to so, but will use the currently
+   * available data and not wait for the update to complete.
+   *
+   * <p>Once the first snapshot is loaded, this does not acquire any lock.  The current snapshot is
+   * published through a volatile field, and only the one caller that wins a compare-and-set when an
+   * update is due will perform the update handoff.</p>
+   *
+   * <p>Callers never perform preferences I/O.  The first call returns the bundled bootstrap data and
+   * starts the background update, which loads any snapshot stored in preferences and publishes it when
+   * it is newer.  Until then, and until any download completes, the previous snapshot continues to be
+   * returned.</p>
+   *
+   * <p>When {@linkplain #startScheduledUpdates(java.util.concurrent.ScheduledExecutorService) scheduled updates} are
+   * started, callers do not check the update time, and all updates are performed by the scheduler.  Likewise, when
+   * {@linkplain #startFileUpdates(java.nio.file.Path) file updates} are started, callers do not check the update
+   * time, and all updates are performed by the watcher of the file.</p>
+   */
+  public static Snapshot getSnapshot() {
+    return updater.getSnapshot();
+  }
+
+  /**
+   * Fetches a new snapshot, sending the validators of the current snapshot.
+   * When the server responds {@code 304 Not Modified}, the list is not parsed again and the new snapshot shares the
+   * compiled index of the current snapshot, with only its times and validators updated.
+   */
+  static Snapshot fetch(URL url, Snapshot current, long currentTime) throws IOException {
+    return updater.fetch(url, current, currentTime);
+  }
+
+  /**
+   * Downloads a new snapshot while holding the host-wide {@link UpdateLock}, so that only one process sharing the
+   * same storage downloads at a time.  When another process stored a current snapshot while this process waited for
+   * the lock, that snapshot is adopted instead of downloading.
+   *
+   * <p>When the lock can not be acquired within its timeout, or can not be opened, the download proceeds without it.
+   * When interrupted while waiting, no download is performed.</p>
+   *
+   * @return  the snapshot published, or {@code current} when none
+   */
+  static Snapshot download(HedgedSources sources, Snapshot current, long currentTime) {
+    return updater.download(sources, current, currentTime);
+  }
+
+  /**
+   * Starts proactive updates on the given executor, which performs all updates at the times they become due.
+   * Caller threads of {@link #getSnapshot()} then neither check the update time nor start any update thread.
+   *
+   * <p>The first update runs immediately, loading any snapshot stored in preferences, and downloading when due.
+   * Afterwards, an update is scheduled for the randomized update time of the current snapshot, and the schedule is
+   * checked at least hourly to handle large changes of the system clock.</p>
+   *
+   * <p>The executor is not shut down by {@link #stopScheduledUpdates()}, and may be shared with other tasks.  When the
+   * executor rejects a run, such as when shut down, updates revert to being triggered by {@link #getSnapshot()}.</p>
+   *
+   * @throws  IllegalStateException  when scheduled updates or {@linkplain #startFileUpdates(java.nio.file.Path) file
+   *                                   updates} are already started
+   *
+   * @see  #startScheduledUpdates()
+   * @see  #stopScheduledUpdates()
+   */
+  public static void startScheduledUpdates(ScheduledExecutorService executor) throws IllegalStateException {
+    updater.startScheduledUpdates(executor);
+  }
+
+  /**
+   * Starts proactive updates on a default executor shared with all lists of this library.  Its single thread is
+   * virtual on Java 21 or later and is otherwise a daemon thread.
+   *
+   * @throws  IllegalStateException  when scheduled updates or {@linkplain #startFileUpdates(java.nio.file.Path) file
+   *                                   updates} are already started
+   *
+   * @see  #startScheduledUpdates(java.util.concurrent.ScheduledExecutorService)
+   * @see  #stopScheduledUpdates()
+   */
+  public static void startScheduledUpdates() throws IllegalStateException {
+    startScheduledUpdates(UpdateScheduler.getDefaultExecutor());
+  }
+
+  /**
+   * Stops proactive updates, reverting to updates triggered by {@link #getSnapshot()}.  Any update in progress is
+   * allowed to complete.  Does nothing when scheduled updates are not started.
+   *
+   * @see  #startScheduledUpdates(java.util.concurrent.ScheduledExecutorService)
+   */
+  public static void stopScheduledUpdates() {
+    updater.stopScheduledUpdates();
+  }
+
+  /**
+   * Checks if proactive updates are started.
+   *
+   * @see  #startScheduledUpdates(java.util.concurrent.ScheduledExecutorService)
+   */
+  public static boolean isScheduledUpdates() {
+    return updater.isScheduledUpdates();
+  }
+
+  /**
+   * Starts updates from a local file in place of downloads, such as for hosts without network access where the list
+   * is maintained by configuration management.  The file is in the format of
+   * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
+   *
+   * <p>The file is parsed immediately, then watched with a {@link java.nio.file.WatchService} and parsed again
+   * whenever it is created or modified, with each new snapshot published as soon as parsed.  The file may be written
+   * in place or replaced by an atomic rename.  Changes are noticed without polling where the platform provides native
+   * change notification.</p>
+   *
+   * <p>While started, no downloads are performed, and caller threads of {@link #getSnapshot()} neither check the update
+   * time nor start any update thread.  Snapshots parsed from the file are not saved to storage, and the versions they
+   * add to the {@linkplain #getByLabel(java.lang.String, java.time.Instant) history} are kept in memory only.  When the
+   * file does not exist or is not valid, the failure is logged and the current snapshot is retained until the next
+   * change.</p>
+   *
+   * @throws  IOException  when the directory of the file can not be watched, such as when it does not exist
+   * @throws  IllegalStateException  when file updates or {@linkplain #startScheduledUpdates() scheduled updates} are
+   *                                 already started
+   *
+   * @see  #stopFileUpdates()
+   */
+  public static void startFileUpdates(Path file) throws IOException, IllegalStateException {
+    updater.startFileUpdates(file);
+  }
+
+  /**
+   * Stops updates from a local file, reverting to downloads triggered by {@link #getSnapshot()}.  Any update in
+   * progress is allowed to complete.  Does nothing when file updates are not started.
+   *
+   * <p>The next download is due at the randomized update time after the last snapshot parsed from the file.</p>
+   *
+   * @see  #startFileUpdates(java.nio.file.Path)
+   */
+  public static void stopFileUpdates() {
+    updater.stopFileUpdates();
+  }
+
+  /**
+   * Checks if updates from a local file are started.
+   *
+   * @see  #startFileUpdates(java.nio.file.Path)
+   */
+  public static boolean isFileUpdates() {
+    return updater.isFileUpdates();
+  }
+
+  /**
+   * Gets the runtime metrics of lookups and background updates of the top level domains.  The metrics are also
+   * registered with the platform MBean server, as {@code com.aoapps.tlds:type=Metrics,name="TopLevelDomain"}, by the
+   * first background update.
+   */
+  public static Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Registers a listener to be notified whenever the published snapshot changes, including when only its times or
+   * validators change.  Listeners are not notified of the initial bootstrap snapshot.
+   *
+   * <p>Listeners are notified on the thread performing the background update, in the order registered, with the
+   * differences already computed.  An exception thrown by a listener is logged and does not prevent the notification
+   * of other listeners.</p>
+   *
+   * <p>A listener may be registered more than once, and is then notified once per registration.</p>
+   *
+   * @see  #removeSnapshotListener(com.aoapps.tlds.TopLevelDomain.SnapshotListener)
+   */
+  public static void addSnapshotListener(SnapshotListener listener) {
+    listeners.add(Objects.requireNonNull(listener));
+  }
+
+  /**
+   * Removes one registration of a listener.
+   *
+   * @return  {@code true} when the listener was registered
+   *
+   * @see  #addSnapshotListener(com.aoapps.tlds.TopLevelDomain.SnapshotListener)
+   */
+  public static boolean removeSnapshotListener(SnapshotListener listener) {
+    return listeners.remove(listener);
+  }
+
+  /**
+   * Records the history then notifies the listeners of a snapshot published by the updater.
+   *
+   * @see  ListUpdater.PublishListener
+   */
+  private static void published(Snapshot oldSnapshot, Snapshot newSnapshot, boolean saved) {
+    recordHistory(oldSnapshot, newSnapshot, saved);
+    fireSnapshotChanged(oldSnapshot, newSnapshot);
+  }
+
+  /**
+   * Records a new version in the history when the list changes, saving the history alongside the snapshot when
+   * requested.  The history is loaded from storage on first use, starting from the previous snapshot when none is
+   * stored.
+   */
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  private static void recordHistory(Snapshot oldSnapshot, Snapshot newSnapshot, boolean save) {
+    try {
+      LabelHistory current = history;
+      LabelHistory stored = null;
+      if (current == null) {
+        stored = loadHistory();
+        current = (stored != null) ? stored : oldSnapshot.getOwnHistory();
+      } else if (newSnapshot.content == oldSnapshot.content) {
+        return;
+      }
+      int maxCount = (int) Math.min(Integer.MAX_VALUE,
+          LabelHistory.getLimit(HISTORY_MAX_COUNT_PROPERTY, DEFAULT_HISTORY_MAX_COUNT));
+      long maxAge = LabelHistory.getLimit(HISTORY_MAX_AGE_PROPERTY, DEFAULT_HISTORY_MAX_AGE);
+      LabelHistory updated = current
+          .append(newSnapshot.lastSuccessfulUpdateTime, newSnapshot.getTopLevelDomains())
+          .prune(maxCount, System.currentTimeMillis() - maxAge);
+      history = updated;
+      if (save && updated != stored) {
+        saveHistory(updated);
+      }
+    } catch (ThreadDeath td) {
+      throw td;
+    } catch (Throwable t) {
+      logger.log(Level.SEVERE, "Unable to record history of top level domains", t);
+    }
+  }
+
+  /**
+   * Loads the history from the {@link SnapshotStore} when configured and available, otherwise from preferences.
+   *
+   * @return  the history or {@code null} if none available
+   */
+  private static LabelHistory loadHistory() {
+    Path file = SnapshotStore.getFile(HISTORY_STORE_FILE);
+    if (file != null) {
+      try {
+        LabelHistory fromFile = LabelHistory.loadFromFile(file, HISTORY_STORE_MAGIC, Snapshot::toUnicode);
+        if (fromFile != null) {
+          logger.fine("Successful load of history from store");
+          return fromFile;
+        }
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, "Unable to load history of top level domains from store: " + file, e);
+      }
+    }
+    return LabelHistory.loadFromPreferences(updater.getPreferences(), HISTORY_PREFERENCES_KEY, Snapshot::toUnicode);
+  }
+
+  /**
+   * Stores the history to the {@link SnapshotStore} when configured, otherwise to preferences.
+   */
+  private static void saveHistory(LabelHistory labelHistory) throws IOException, BackingStoreException {
+    Path file = SnapshotStore.getFile(HISTORY_STORE_FILE);
+    if (file != null) {
+      try {
+        labelHistory.saveToFile(file, HISTORY_STORE_MAGIC);
+        return;
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, "Unable to save history of top level domains to store, saving to preferences: " + file, e);
+      }
+    }
+    labelHistory.saveToPreferences(updater.getPreferences(), HISTORY_PREFERENCES_KEY);
+  }
+
+  /**
+   * Gets the history, which is only the current snapshot until loaded by the first publication.
+   */
+  private static LabelHistory getHistory() {
+    LabelHistory h = history;
+    if (h == null) {
+      h = getSnapshot().getOwnHistory();
+    }
+    return h;
+  }
+
+  /**
+   * Notifies the listeners of a change, when any are registered.
+   */
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  static void fireSnapshotChanged(Snapshot oldSnapshot, Snapshot newSnapshot) {
+    if (!listeners.isEmpty()) {
+      SnapshotChange change = new SnapshotChange(oldSnapshot, newSnapshot);
+      for (SnapshotListener listener : listeners) {
+        try {
+          listener.snapshotChanged(change);
+        } catch (ThreadDeath td) {
+          throw td;
+        } catch (Throwable t) {
+          logger.log(Level.SEVERE, "Snapshot listener failed: " + listener, t);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets an unmodifiable list of the most recently retrieved top-level domains,
+   * in the case and order contained within
+   * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
+   *
+   * <p>Each element is canonical.</p>
+   *
+   * @see  Snapshot#getTopLevelDomains()
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static List<String> getTopLevelDomains() {
+    return getSnapshot().getTopLevelDomains();
+  }
+
+  /**
+   * Gets an unmodifiable list of the comments contained within
+   * <a href="https://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>.
+   * All lines starting with {@code "#"} are considered to be comments.
+   *
+   * @see  Snapshot#getComments()
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static List<String> getComments() {
+    return getSnapshot().getComments();
+  }
+
+  /**
+   * Gets the last time the list was updated, whether
    * successful or not.
    *
    * @see  Snapshot#getLastUpdatedTime()
@@ -680,7 +2011,7 @@ public final class TopLevelDomain {
   /**
    * Provides a way to get the top level domain based on label (case-insensitive).
    *
-   * <p>Any non-null returned value is {@link String#intern() interned}.</p>
+   * <p>Any non-null returned value is canonical.</p>
    *
    * @return  The top level domain based on label (case-insensitive) or {@code null} if no match.
    *
@@ -691,18 +2022,334 @@ public final class TopLevelDomain {
     return getSnapshot().getByLabel(label);
   }
 
+  /**
+   * Gets the top level domains starting with the given prefix (case-insensitive), such as to suggest top level
+   * domains as a domain is typed.
+   *
+   * @return  An unmodifiable view of the matching top level domains, each canonical, or an empty list if no match.
+   *
+   * @see  Snapshot#getByPrefix(java.lang.CharSequence)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static List<String> getByPrefix(CharSequence prefix) {
+    return getSnapshot().getByPrefix(prefix);
+  }
+
+  /**
+   * Gets the top level domain based on label (case-insensitive) at the given time, from the history of the list.
+   * This answers whether a label was a top level domain at a point in time, such as for audits, in memory.
+   * Internationalized top level domains are matched in either their ASCII (A-label) or Unicode (U-label) form,
+   * and are always returned in their ASCII form.
+   *
+   * <p>The history holds each version of the list published, effective from the time it was successfully retrieved
+   * until the next version.  It is stored alongside the current snapshot, delta-encoded, and is bounded to the most
+   * recent 1000 versions and to versions replaced within the last 10 years.  These are configured by the system
+   * properties {@code com.aoapps.tlds.TopLevelDomain.historyMaxCount} and
+   * {@code com.aoapps.tlds.TopLevelDomain.historyMaxAge}, in milliseconds.</p>
+   *
+   * <p>Until the history is loaded by the first background update, only the current snapshot is known.</p>
+   *
+   * @return  The top level domain, in the case of the list at the given time, or {@code null} if no match at the
+   *          given time or the given time is before {@link #getHistoryStart()}.
+   */
+  public static String getByLabel(String label, Instant instant) {
+    long time;
+    try {
+      time = instant.toEpochMilli();
+    } catch (ArithmeticException e) {
+      time = instant.isBefore(Instant.EPOCH) ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+    return getHistory().get(label, time);
+  }
+
+  /**
+   * Gets the time of the oldest version of the list in the history.
+   *
+   * @see  #getByLabel(java.lang.String, java.time.Instant)
+   */
+  public static Instant getHistoryStart() {
+    return Instant.ofEpochMilli(getHistory().getStartTime());
+  }
+
+  /**
+   * Provides a way to get the top level domain based on a range of characters (case-insensitive).
+   * Internationalized top level domains are matched in either their ASCII (A-label) or Unicode (U-label) form,
+   * and are always returned in their ASCII form.
+   *
+   * <p>Any non-null returned value is canonical.</p>
+   *
+   * @param  label  the characters containing the label
+   * @param  start  the index of the first character of the label, inclusive
+   * @param  end  the index of the last character of the label, exclusive
+   *
+   * @return  The top level domain based on label (case-insensitive) or {@code null} if no match.
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within {@code label}
+   *
+   * @see  Snapshot#getByLabel(java.lang.CharSequence, int, int)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static String getByLabel(CharSequence label, int start, int end) throws IndexOutOfBoundsException {
+    return getSnapshot().getByLabel(label, start, end);
+  }
+
+  /**
+   * Finds the top level domain of a hostname, scanning from the right.  A single trailing root dot is allowed.
+   * This performs no allocation.
+   *
+   * @return  The index of the first character of the top level domain or {@code -1} if the last label
+   *          is not a top level domain.
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within {@code hostname}
+   *
+   * @see  Snapshot#indexOfTopLevelDomain(java.lang.CharSequence, int, int)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static int indexOfTopLevelDomain(CharSequence hostname, int start, int end) throws IndexOutOfBoundsException {
+    return getSnapshot().indexOfTopLevelDomain(hostname, start, end);
+  }
+
+  /**
+   * Finds the top level domain of a hostname, scanning from the right.  A single trailing root dot is allowed.
+   * This performs no allocation.
+   *
+   * @return  The index of the first character of the top level domain or {@code -1} if the last label
+   *          is not a top level domain.
+   *
+   * @see  Snapshot#indexOfTopLevelDomain(java.lang.CharSequence)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static int indexOfTopLevelDomain(CharSequence hostname) {
+    return getSnapshot().indexOfTopLevelDomain(hostname);
+  }
+
+  /**
+   * Gets the top level domain of a hostname (case-insensitive), scanning from the right.
+   * A single trailing root dot is allowed.  This performs no allocation.
+   *
+   * <p>Any non-null returned value is canonical.</p>
+   *
+   * @return  The top level domain of the hostname or {@code null} if the last label is not a top level domain.
+   *
+   * @see  Snapshot#getByHostname(java.lang.CharSequence)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static String getByHostname(CharSequence hostname) {
+    return getSnapshot().getByHostname(hostname);
+  }
+
+  /**
+   * Finds the top level domain based on label (case-insensitive), telling which of its forms was matched.
+   * This performs no allocation.
+   *
+   * @return  The match or {@code null} if no match.
+   *
+   * @see  Snapshot#findByLabel(java.lang.CharSequence)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static Match findByLabel(CharSequence label) {
+    return getSnapshot().findByLabel(label);
+  }
+
+  /**
+   * Finds the top level domain based on a range of characters (case-insensitive), telling which of its forms was
+   * matched.  This performs no allocation.
+   *
+   * @param  label  the characters containing the label
+   * @param  start  the index of the first character of the label, inclusive
+   * @param  end  the index of the last character of the label, exclusive
+   *
+   * @return  The match or {@code null} if no match.
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within {@code label}
+   *
+   * @see  Snapshot#findByLabel(java.lang.CharSequence, int, int)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static Match findByLabel(CharSequence label, int start, int end) throws IndexOutOfBoundsException {
+    return getSnapshot().findByLabel(label, start, end);
+  }
+
+  /**
+   * Finds the top level domain of a hostname (case-insensitive), scanning from the right, telling which of its
+   * forms was matched.  A single trailing root dot is allowed.  This performs no allocation.
+   *
+   * @return  The match or {@code null} if the last label is not a top level domain.
+   *
+   * @see  Snapshot#findByHostname(java.lang.CharSequence)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static Match findByHostname(CharSequence hostname) {
+    return getSnapshot().findByHostname(hostname);
+  }
+
+  /**
+   * Provides a way to get the top level domain based on a range of ASCII bytes (case-insensitive).
+   * This performs no allocation.
+   *
+   * <p>Any non-null returned value is canonical.</p>
+   *
+   * @return  The top level domain based on label (case-insensitive) or {@code null} if no match.
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within {@code label}
+   *
+   * @see  Snapshot#getByLabel(byte[], int, int)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static String getByLabel(byte[] label, int off, int len) throws IndexOutOfBoundsException {
+    return getSnapshot().getByLabel(label, off, len);
+  }
+
+  /**
+   * Provides a way to get the top level domain based on the ASCII bytes between the
+   * position and limit of a buffer (case-insensitive).  The buffer position and limit are not modified.
+   * This performs no allocation.
+   *
+   * <p>Any non-null returned value is canonical.</p>
+   *
+   * @return  The top level domain based on label (case-insensitive) or {@code null} if no match.
+   *
+   * @see  Snapshot#getByLabel(java.nio.ByteBuffer)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static String getByLabel(ByteBuffer label) {
+    return getSnapshot().getByLabel(label);
+  }
+
+  /**
+   * Finds the top level domain of an ASCII-encoded hostname, scanning from the right.
+   * A single trailing root dot is allowed.  This performs no allocation.
+   *
+   * @return  The index within {@code hostname} of the first byte of the top level domain or {@code -1} if the last
+   *          label is not a top level domain.
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within {@code hostname}
+   *
+   * @see  Snapshot#indexOfTopLevelDomain(byte[], int, int)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static int indexOfTopLevelDomain(byte[] hostname, int off, int len) throws IndexOutOfBoundsException {
+    return getSnapshot().indexOfTopLevelDomain(hostname, off, len);
+  }
+
+  /**
+   * Finds the top level domain of the ASCII-encoded hostname between the position and limit of a buffer,
+   * scanning from the right.  A single trailing root dot is allowed.  The buffer position and limit are not
+   * modified.  This performs no allocation.
+   *
+   * @return  The absolute index within {@code hostname} of the first byte of the top level domain or {@code -1}
+   *          if the last label is not a top level domain.
+   *
+   * @see  Snapshot#indexOfTopLevelDomain(java.nio.ByteBuffer)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static int indexOfTopLevelDomain(ByteBuffer hostname) {
+    return getSnapshot().indexOfTopLevelDomain(hostname);
+  }
+
+  /**
+   * Gets the top level domain of an ASCII-encoded hostname (case-insensitive), scanning from the right.
+   * A single trailing root dot is allowed.  This performs no allocation.
+   *
+   * <p>Any non-null returned value is canonical.</p>
+   *
+   * @return  The top level domain of the hostname or {@code null} if the last label is not a top level domain.
+   *
+   * @throws  IndexOutOfBoundsException  when the range is not within {@code hostname}
+   *
+   * @see  Snapshot#getByHostname(byte[], int, int)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static String getByHostname(byte[] hostname, int off, int len) throws IndexOutOfBoundsException {
+    return getSnapshot().getByHostname(hostname, off, len);
+  }
+
+  /**
+   * Gets the top level domain of the ASCII-encoded hostname between the position and limit of a buffer
+   * (case-insensitive), scanning from the right.  A single trailing root dot is allowed.
+   * The buffer position and limit are not modified.  This performs no allocation.
+   *
+   * <p>Any non-null returned value is canonical.</p>
+   *
+   * @return  The top level domain of the hostname or {@code null} if the last label is not a top level domain.
+   *
+   * @see  Snapshot#getByHostname(java.nio.ByteBuffer)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static String getByHostname(ByteBuffer hostname) {
+    return getSnapshot().getByHostname(hostname);
+  }
+
+  /**
+   * Gets the top level domain for each label in a batch (case-insensitive).
+   * The snapshot is obtained once for the whole batch.
+   *
+   * @see  Snapshot#getByLabels(java.lang.CharSequence[], java.lang.String[])
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static void getByLabels(CharSequence[] labels, String[] results) throws IllegalArgumentException {
+    getSnapshot().getByLabels(labels, results);
+  }
+
+  /**
+   * Gets the top level domain for each label in a batch (case-insensitive).
+   * The snapshot is obtained once for the whole batch.
+   *
+   * @see  Snapshot#getByLabels(java.util.List, java.lang.String[])
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static void getByLabels(List<? extends CharSequence> labels, String[] results) throws IllegalArgumentException {
+    getSnapshot().getByLabels(labels, results);
+  }
+
+  /**
+   * Gets the top level domain for each label in a stream (case-insensitive).
+   * The snapshot is obtained once for the whole stream.
+   *
+   * @see  Snapshot#getByLabels(java.util.stream.Stream)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static Stream<String> getByLabels(Stream<? extends CharSequence> labels) {
+    return getSnapshot().getByLabels(labels);
+  }
+
+  /**
+   * Gets the top level domain of each hostname in a batch (case-insensitive), scanning each from the right.
+   * The snapshot is obtained once for the whole batch.
+   *
+   * @see  Snapshot#getByHostnames(java.lang.CharSequence[], java.lang.String[])
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static void getByHostnames(CharSequence[] hostnames, String[] results) throws IllegalArgumentException {
+    getSnapshot().getByHostnames(hostnames, results);
+  }
+
+  /**
+   * Gets the top level domain of each hostname in a batch (case-insensitive), scanning each from the right.
+   * The snapshot is obtained once for the whole batch.
+   *
+   * @see  Snapshot#getByHostnames(java.util.List, java.lang.String[])
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static void getByHostnames(List<? extends CharSequence> hostnames, String[] results) throws IllegalArgumentException {
+    getSnapshot().getByHostnames(hostnames, results);
+  }
+
+  /**
+   * Gets the top level domain of each hostname in a stream (case-insensitive), scanning each from the right.
+   * The snapshot is obtained once for the whole stream.
+   *
+   * @see  Snapshot#getByHostnames(java.util.stream.Stream)
+   * @see  TopLevelDomain#getSnapshot()
+   */
+  public static Stream<String> getByHostnames(Stream<? extends CharSequence> hostnames) {
+    return getSnapshot().getByHostnames(hostnames);
+  }
+
   /**
    * For interaction with testing, waits until no thread running.
    */
   static void waitUntilNoThread() throws InterruptedException {
-    synchronized (lock) {
-      if (updateThread != null) {
-        logger.info("Waiting for background update to complete");
-        do {
-          lock.wait();
-        } while (updateThread != null);
-        logger.info("Background update completed");
-      }
-    }
+    updater.waitUntilNoThread();
   }
 }
@@ -0,0 +1,196 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A host-wide lock that allows only one process at a time to update a list, so that processes sharing the same
+ * storage do not all download and save the list when their update times overlap.  The others wait for the lock, then
+ * adopt the snapshot stored by the process that held it.
+ *
+ * <p>The lock is a {@link FileLock} on a file next to the {@link SnapshotStore} when configured.  Otherwise, since
+ * processes of the same user share preferences, the file is in {@code .java/com.aoapps.tlds} within the preferences
+ * user root, which defaults to the home directory.  Where supported, the directory is created readable and writable
+ * only by the user, and the permissions of an existing directory are restricted the same way, so that other users can
+ * neither create the file nor hold the lock.  The file is never deleted, since deleting a lock file while another
+ * process is waiting on it would allow two processes to hold the lock at once.</p>
+ *
+ * <p>The time to wait for the lock is configured by the system property {@value #TIMEOUT_PROPERTY}, in milliseconds,
+ * and defaults to {@value #DEFAULT_TIMEOUT}, which is longer than the default timeout of a download.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class UpdateLock implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(UpdateLock.class.getName());
+
+  /**
+   * The system property that configures the time to wait for the lock, in milliseconds.
+   */
+  static final String TIMEOUT_PROPERTY = "com.aoapps.tlds.lockTimeout";
+
+  /**
+   * The default time to wait for the lock, in milliseconds.
+   */
+  static final long DEFAULT_TIMEOUT = 3L * 60 * 1000;
+
+  /**
+   * The number of milliseconds between attempts to acquire the lock.
+   */
+  private static final long POLL_INTERVAL = 50;
+
+  /**
+   * The system property of the root directory of user preferences, on platforms storing preferences in files.
+   */
+  private static final String USER_ROOT_PROPERTY = "java.util.prefs.userRoot";
+
+  private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+  /**
+   * Gets the directory of lock files when no {@link SnapshotStore} is configured.
+   */
+  private static Path getDefaultDirectory() {
+    return Paths.get(System.getProperty(USER_ROOT_PROPERTY, System.getProperty("user.home")), ".java",
+        "com.aoapps.tlds");
+  }
+
+  /**
+   * Gets the lock file of the given name, creating the default directory when needed.  Where supported, the default
+   * directory is readable and writable only by the user, restricting the permissions of an existing directory.
+   *
+   * @throws  IOException  when unable to create the default directory or to restrict its permissions
+   */
+  static Path getFile(String name) throws IOException {
+    Path file = SnapshotStore.getFile(name);
+    if (file != null) {
+      return file;
+    }
+    Path directory = getDefaultDirectory();
+    boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+    if (!Files.isDirectory(directory)) {
+      if (posix) {
+        Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+      } else {
+        Files.createDirectories(directory);
+      }
+    } else if (posix && !Files.getPosixFilePermissions(directory).equals(OWNER_ONLY)) {
+      if (logger.isLoggable(Level.INFO)) {
+        logger.info("Restricting permissions of lock directory to the user: " + directory);
+      }
+      Files.setPosixFilePermissions(directory, OWNER_ONLY);
+    }
+    return directory.resolve(name);
+  }
+
+  /**
+   * Acquires the lock, waiting up to the configured timeout.
+   *
+   * @return  the lock or {@code null} when not acquired within the timeout
+   *
+   * @throws  IOException  when unable to open the lock file
+   */
+  static UpdateLock acquire(String name) throws IOException, InterruptedException {
+    return acquire(getFile(name), Download.getTimeout(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT).toMillis());
+  }
+
+  /**
+   * Acquires the lock, waiting up to the given timeout.
+   *
+   * @return  the lock or {@code null} when not acquired within the timeout
+   *
+   * @throws  IOException  when unable to open the lock file
+   */
+  static UpdateLock acquire(Path file, long timeout) throws IOException, InterruptedException {
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    boolean acquired = false;
+    try {
+      long startNanos = System.nanoTime();
+      boolean waited = false;
+      while (true) {
+        FileLock lock;
+        try {
+          lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+          // Held within this process, such as by another copy of this library in a different class loader
+          lock = null;
+        }
+        if (lock != null) {
+          if (waited && logger.isLoggable(Level.FINE)) {
+            logger.fine("Acquired update lock after " + (System.nanoTime() - startNanos) / 1000000 + " ms: " + file);
+          }
+          acquired = true;
+          return new UpdateLock(channel, lock);
+        }
+        if (!waited) {
+          logger.fine("Waiting for update by another process: " + file);
+          waited = true;
+        }
+        long elapsed = (System.nanoTime() - startNanos) / 1000000;
+        if (elapsed >= timeout) {
+          return null;
+        }
+        Thread.sleep(Math.min(POLL_INTERVAL, timeout - elapsed));
+      }
+    } finally {
+      if (!acquired) {
+        channel.close();
+      }
+    }
+  }
+
+  private final FileChannel channel;
+  private final FileLock lock;
+
+  private UpdateLock(FileChannel channel, FileLock lock) {
+    this.channel = channel;
+    this.lock = lock;
+  }
+
+  /**
+   * Releases the lock.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      lock.release();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Proactively runs the background update of a list on a {@link ScheduledExecutorService}, instead of the update
+ * being triggered by the caller threads.
+ *
+ * <p>Each run performs the update when due, then returns the number of milliseconds until the next update is due,
+ * and is rescheduled for that time.  The delay is bounded by {@link #MIN_DELAY} and {@link #MAX_DELAY}, so a run
+ * that fails can not spin, and a large change of the system clock is noticed within {@link #MAX_DELAY}.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class UpdateScheduler {
+
+  private static final Logger logger = Logger.getLogger(UpdateScheduler.class.getName());
+
+  /**
+   * The minimum number of milliseconds between runs.
+   */
+  static final long MIN_DELAY = 60L * 1000; // 1 minute
+
+  /**
+   * The maximum number of milliseconds between runs.
+   */
+  static final long MAX_DELAY = 60L * 60 * 1000; // 1 hour
+
+  /**
+   * The first Java version with final virtual threads.
+   */
+  private static final int VIRTUAL_THREADS_VERSION = 21;
+
+  /**
+   * Creates a thread factory for the default executor.  On Java 21 or later, creates virtual threads.  Otherwise,
+   * creates daemon platform threads.
+   */
+  static ThreadFactory newThreadFactory(String name) {
+    if (Runtime.version().feature() >= VIRTUAL_THREADS_VERSION) {
+      try {
+        // Java 21: Thread.ofVirtual().name(name + "-", 0).factory()
+        Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+        return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+        logger.log(Level.WARNING, "Unable to create virtual thread factory, using platform threads", e);
+      }
+    }
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static class DefaultExecutorHolder {
+    private static final ScheduledExecutorService defaultExecutor;
+
+    static {
+      ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+          1,
+          newThreadFactory(UpdateScheduler.class.getName())
+      );
+      executor.setRemoveOnCancelPolicy(true);
+      defaultExecutor = executor;
+    }
+  }
+
+  /**
+   * Gets the default executor, which is shared by all lists.  Its single thread is virtual on Java 21 or later and is
+   * otherwise a daemon platform thread.  It is never shut down.
+   */
+  static ScheduledExecutorService getDefaultExecutor() {
+    return DefaultExecutorHolder.defaultExecutor;
+  }
+
+  private final ScheduledExecutorService executor;
+  private final LongSupplier task;
+  private final Runnable onRejected;
+  private final long minDelay;
+  private final long maxDelay;
+
+  /**
+   * The next scheduled run, guarded by {@code this}.
+   */
+  private ScheduledFuture<?> future;
+
+  /**
+   * Set once cancelled, guarded by {@code this}.
+   */
+  private boolean cancelled;
+
+  /**
+   * Creates a new scheduler, which does not run until {@linkplain #start() started}.
+   *
+   * @param  task  Performs the update when due, returning the number of milliseconds until the next update is due
+   * @param  onRejected  Called when the executor rejects a run, such as when shut down, after which this scheduler is
+   *                     cancelled
+   */
+  UpdateScheduler(ScheduledExecutorService executor, LongSupplier task, Runnable onRejected, long minDelay, long maxDelay) {
+    this.executor = executor;
+    this.task = task;
+    this.onRejected = onRejected;
+    this.minDelay = minDelay;
+    this.maxDelay = maxDelay;
+  }
+
+  UpdateScheduler(ScheduledExecutorService executor, LongSupplier task, Runnable onRejected) {
+    this(executor, task, onRejected, MIN_DELAY, MAX_DELAY);
+  }
+
+  /**
+   * Schedules the first run immediately.
+   */
+  void start() {
+    schedule(0);
+  }
+
+  private void schedule(long delay) {
+    boolean rejected = false;
+    synchronized (this) {
+      if (!cancelled) {
+        try {
+          future = executor.schedule(this::run, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+          logger.log(Level.WARNING, "Scheduled update rejected, scheduled updates stopped", e);
+          cancelled = true;
+          future = null;
+          rejected = true;
+        }
+      }
+    }
+    if (rejected) {
+      onRejected.run();
+    }
+  }
+
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  private void run() {
+    long delay;
+    try {
+      delay = task.getAsLong();
+    } catch (ThreadDeath td) {
+      throw td;
+    } catch (Throwable t) {
+      logger.log(Level.SEVERE, "Unable to perform scheduled update", t);
+      delay = minDelay;
+    }
+    schedule(Math.max(minDelay, Math.min(maxDelay, delay)));
+  }
+
+  /**
+   * Cancels the next run.  Does not interrupt any run in progress, and does not shut down the executor.
+   */
+  synchronized void cancel() {
+    cancelled = true;
+    if (future != null) {
+      future.cancel(false);
+      future = null;
+    }
+  }
+}
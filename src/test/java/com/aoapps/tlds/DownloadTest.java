@@ -0,0 +1,247 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests {@link Download} against a local server, including deliberately slow and stalled responses.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class DownloadTest {
+
+  private static final String CONTENT = "# Version 2026101700\nCOM\nNET\nORG\n\u00C9T\u00C9\n";
+
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+  private static String read(Download download) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    Reader in = download.getReader();
+    char[] buff = new char[16];
+    int numChars;
+    while ((numChars = in.read(buff)) != -1) {
+      sb.append(buff, 0, numChars);
+    }
+    return sb.toString();
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(bout)) {
+      out.write(bytes);
+    }
+    return bout.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] bytes, boolean nowrap) throws IOException {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (DeflaterOutputStream out = new DeflaterOutputStream(bout, new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap))) {
+      out.write(bytes);
+    }
+    return bout.toByteArray();
+  }
+
+  private static void testEncoding(String contentEncoding, byte[] body) throws IOException {
+    try (LocalHttpServer server = new LocalHttpServer((method, path, headers, out) -> {
+      assertTrue(headers.get("accept-encoding").contains(contentEncoding));
+      LocalHttpServer.respond(out, 200, "OK", body,
+          "Content-Type: text/plain; charset=utf-8",
+          "Content-Encoding: " + contentEncoding);
+    })) {
+      try (Download download = Download.get(server.getUrl("/"), null, null, StandardCharsets.US_ASCII,
+          CONNECT_TIMEOUT, Duration.ofSeconds(10))) {
+        assertEquals(CONTENT, read(download));
+      }
+    }
+  }
+
+  @org.junit.Test
+  public void testGzip() throws IOException {
+    System.out.println("gzip");
+    testEncoding("gzip", gzip(CONTENT.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @org.junit.Test
+  public void testDeflate() throws IOException {
+    System.out.println("deflate");
+    testEncoding("deflate", deflate(CONTENT.getBytes(StandardCharsets.UTF_8), false));
+  }
+
+  /**
+   * Some servers send raw deflate without the zlib wrapper.
+   */
+  @org.junit.Test
+  public void testRawDeflate() throws IOException {
+    System.out.println("rawDeflate");
+    testEncoding("deflate", deflate(CONTENT.getBytes(StandardCharsets.UTF_8), true));
+  }
+
+  @org.junit.Test
+  public void testUnsupportedEncoding() throws IOException {
+    System.out.println("unsupportedEncoding");
+    try (LocalHttpServer server = new LocalHttpServer((method, path, headers, out) ->
+        LocalHttpServer.respond(out, 200, "OK", new byte[] {1, 2, 3}, "Content-Encoding: br"))) {
+      try (Download download = Download.get(server.getUrl("/"), null, null, StandardCharsets.US_ASCII,
+          CONNECT_TIMEOUT, Duration.ofSeconds(10))) {
+        fail("Unsupported encoding accepted");
+      } catch (IOException e) {
+        assertTrue(e.getMessage().contains("br"));
+      }
+    }
+  }
+
+  @org.junit.Test
+  public void testUnexpectedStatus() throws IOException {
+    System.out.println("unexpectedStatus");
+    try (LocalHttpServer server = new LocalHttpServer((method, path, headers, out) ->
+        LocalHttpServer.respond(out, 503, "Service Unavailable", null))) {
+      try (Download download = Download.get(server.getUrl("/"), null, null, StandardCharsets.US_ASCII,
+          CONNECT_TIMEOUT, Duration.ofSeconds(10))) {
+        fail("Unexpected status accepted");
+      } catch (IOException e) {
+        assertTrue(e.getMessage().contains("503"));
+      }
+    }
+  }
+
+  /**
+   * A slow server that trickles its content within the timeout is read completely.
+   */
+  @org.junit.Test
+  public void testSlowWithinTimeout() throws IOException {
+    System.out.println("slowWithinTimeout");
+    byte[] body = CONTENT.getBytes(StandardCharsets.UTF_8);
+    try (LocalHttpServer server = new LocalHttpServer((method, path, headers, out) -> {
+      out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain; charset=utf-8\r\nContent-Length: " + body.length
+          + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+      out.flush();
+      for (byte b : body) {
+        out.write(b);
+        out.flush();
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    })) {
+      long startNanos = System.nanoTime();
+      try (Download download = Download.get(server.getUrl("/"), null, null, StandardCharsets.US_ASCII,
+          CONNECT_TIMEOUT, Duration.ofSeconds(10))) {
+        assertEquals(CONTENT, read(download));
+      }
+      System.out.println("\tlatency = " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms");
+    }
+  }
+
+  /**
+   * A server that never responds fails within the timeout.
+   */
+  @org.junit.Test
+  public void testStalledResponse() throws IOException, InterruptedException {
+    System.out.println("stalledResponse");
+    CountDownLatch release = new CountDownLatch(1);
+    try (LocalHttpServer server = new LocalHttpServer((method, path, headers, out) -> {
+      try {
+        release.await(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    })) {
+      long startNanos = System.nanoTime();
+      try (Download download = Download.get(server.getUrl("/"), null, null, StandardCharsets.US_ASCII,
+          CONNECT_TIMEOUT, Duration.ofMillis(500))) {
+        fail("Stalled response did not time out");
+      } catch (HttpTimeoutException e) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        System.out.println("\telapsed = " + elapsed + " ms");
+        assertTrue("Timed out too late: " + elapsed + " ms", elapsed < 5000);
+      } finally {
+        release.countDown();
+      }
+    }
+  }
+
+  /**
+   * A server that stalls part way through its content fails within the timeout, instead of blocking the reader
+   * indefinitely.
+   */
+  @org.junit.Test
+  public void testStalledContent() throws IOException, InterruptedException {
+    System.out.println("stalledContent");
+    byte[] body = CONTENT.getBytes(StandardCharsets.UTF_8);
+    CountDownLatch release = new CountDownLatch(1);
+    try (LocalHttpServer server = new LocalHttpServer((method, path, headers, out) -> {
+      out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain; charset=utf-8\r\nContent-Length: " + body.length
+          + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+      out.write(body, 0, body.length / 2);
+      out.flush();
+      try {
+        release.await(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    })) {
+      long startNanos = System.nanoTime();
+      try (Download download = Download.get(server.getUrl("/"), null, null, StandardCharsets.US_ASCII,
+          CONNECT_TIMEOUT, Duration.ofMillis(500))) {
+        assertNotNull(download.getReader());
+        read(download);
+        fail("Stalled content did not time out");
+      } catch (HttpTimeoutException e) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        System.out.println("\telapsed = " + elapsed + " ms");
+        assertTrue("Timed out too late: " + elapsed + " ms", elapsed < 5000);
+      } finally {
+        release.countDown();
+      }
+    }
+  }
+
+  @org.junit.Test
+  public void testGetCharset() {
+    System.out.println("getCharset");
+    assertEquals(StandardCharsets.UTF_8, Download.getCharset("text/plain; charset=UTF-8", StandardCharsets.US_ASCII));
+    assertEquals(StandardCharsets.UTF_8, Download.getCharset("text/plain; charset=\"utf-8\"; q=1", StandardCharsets.US_ASCII));
+    assertEquals(StandardCharsets.US_ASCII, Download.getCharset("text/plain", StandardCharsets.US_ASCII));
+    assertEquals(StandardCharsets.US_ASCII, Download.getCharset("text/plain; charset=bogus-charset", StandardCharsets.US_ASCII));
+    assertEquals(StandardCharsets.US_ASCII, Download.getCharset(null, StandardCharsets.US_ASCII));
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tests {@link FileWatcher}.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class FileWatcherTest {
+
+  private static final long TIMEOUT = 30;
+
+  private static void write(Path file, String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String read(Path file) throws IOException {
+    try {
+      return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  private static void deleteRecursive(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  @org.junit.Test
+  public void testWatch() throws IOException, InterruptedException {
+    System.out.println("watch");
+    Path directory = Files.createTempDirectory("FileWatcherTest");
+    try {
+      Path file = directory.resolve("tlds.txt");
+      BlockingQueue<String> runs = new LinkedBlockingQueue<>();
+      try (FileWatcher watcher = new FileWatcher(file, FileWatcher.DEFAULT_SETTLE_DELAY, () -> {
+        try {
+          String content = read(file);
+          runs.add(content == null ? "<missing>" : content);
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }, FileWatcherTest.class.getName())) {
+        watcher.start();
+        // Run immediately, even when the file does not exist
+        assertEquals("<missing>", runs.poll(TIMEOUT, TimeUnit.SECONDS));
+
+        // Created
+        long startNanos = System.nanoTime();
+        write(file, "COM\n");
+        assertEquals("COM\n", runs.poll(TIMEOUT, TimeUnit.SECONDS));
+        System.out.println("\tlatency = " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms");
+
+        // Modified in place
+        write(file, "COM\nNET\n");
+        assertEquals("COM\nNET\n", runs.poll(TIMEOUT, TimeUnit.SECONDS));
+
+        // Replaced by atomic rename
+        Path temp = directory.resolve("tlds.txt.tmp");
+        write(temp, "COM\nNET\nORG\n");
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        assertEquals("COM\nNET\nORG\n", runs.poll(TIMEOUT, TimeUnit.SECONDS));
+
+        // Other files in the directory are ignored
+        write(directory.resolve("other.txt"), "Other");
+        assertNull(runs.poll(FileWatcher.DEFAULT_SETTLE_DELAY * 5, TimeUnit.MILLISECONDS));
+      }
+      // Not run once closed
+      write(file, "COM\n");
+      assertNull(runs.poll(FileWatcher.DEFAULT_SETTLE_DELAY * 5, TimeUnit.MILLISECONDS));
+    } finally {
+      deleteRecursive(directory);
+    }
+  }
+
+  /**
+   * A burst of changes is coalesced into a single run.
+   */
+  @org.junit.Test
+  public void testCoalesce() throws IOException, InterruptedException {
+    System.out.println("coalesce");
+    Path directory = Files.createTempDirectory("FileWatcherTest");
+    try {
+      Path file = directory.resolve("tlds.txt");
+      write(file, "COM\n");
+      BlockingQueue<String> runs = new LinkedBlockingQueue<>();
+      try (FileWatcher watcher = new FileWatcher(file, 500, () -> {
+        try {
+          runs.add(read(file));
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }, FileWatcherTest.class.getName())) {
+        watcher.start();
+        assertEquals("COM\n", runs.poll(TIMEOUT, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+          write(file, "COM\nNET" + i + "\n");
+          Thread.sleep(20);
+        }
+        assertEquals("COM\nNET4\n", runs.poll(TIMEOUT, TimeUnit.SECONDS));
+        assertNull(runs.poll(1, TimeUnit.SECONDS));
+      }
+    } finally {
+      deleteRecursive(directory);
+    }
+  }
+
+  /**
+   * The task continues to be run after it fails.
+   */
+  @org.junit.Test
+  public void testTaskFailure() throws IOException, InterruptedException {
+    System.out.println("taskFailure");
+    Path directory = Files.createTempDirectory("FileWatcherTest");
+    try {
+      Path file = directory.resolve("tlds.txt");
+      BlockingQueue<Boolean> runs = new LinkedBlockingQueue<>();
+      try (FileWatcher watcher = new FileWatcher(file, FileWatcher.DEFAULT_SETTLE_DELAY, () -> {
+        runs.add(Boolean.TRUE);
+        throw new IllegalStateException("Test failure");
+      }, FileWatcherTest.class.getName())) {
+        watcher.start();
+        assertEquals(Boolean.TRUE, runs.poll(TIMEOUT, TimeUnit.SECONDS));
+        write(file, "COM\n");
+        assertEquals(Boolean.TRUE, runs.poll(TIMEOUT, TimeUnit.SECONDS));
+      }
+    } finally {
+      deleteRecursive(directory);
+    }
+  }
+
+  @org.junit.Test(expected = IOException.class)
+  public void testMissingDirectory() throws IOException {
+    System.out.println("missingDirectory");
+    Path directory = Files.createTempDirectory("FileWatcherTest");
+    Files.delete(directory);
+    try (FileWatcher watcher = new FileWatcher(directory.resolve("tlds.txt"), FileWatcher.DEFAULT_SETTLE_DELAY,
+        () -> { }, FileWatcherTest.class.getName())) {
+      fail("Watching missing directory");
+    }
+  }
+}
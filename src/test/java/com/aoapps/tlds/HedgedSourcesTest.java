@@ -0,0 +1,229 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests {@link HedgedSources} against local servers with injected delays and failures.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class HedgedSourcesTest {
+
+  private static final long HEDGE_DELAY = 200;
+
+  /**
+   * Creates a server that responds with the given list after a delay.
+   */
+  private static LocalHttpServer newServer(long delay, String list) throws IOException {
+    return new LocalHttpServer((method, path, headers, out) -> {
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      LocalHttpServer.respond(out, 200, "OK", list.getBytes(StandardCharsets.US_ASCII),
+          "Content-Type: text/plain; charset=us-ascii");
+    });
+  }
+
+  /**
+   * Creates a server that always fails.
+   */
+  private static LocalHttpServer newFailingServer() throws IOException {
+    return new LocalHttpServer((method, path, headers, out) ->
+        LocalHttpServer.respond(out, 503, "Service Unavailable", null));
+  }
+
+  private static TopLevelDomain.Snapshot fetch(HedgedSources sources) throws IOException, InterruptedException {
+    TopLevelDomain.Snapshot bootstrap = TopLevelDomain.parseBootstrap();
+    return sources.fetch(url -> TopLevelDomain.fetch(url, bootstrap, System.currentTimeMillis()));
+  }
+
+  private static long elapsedMillis(long startNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * A source slower than the hedge delay is raced by the next source, which wins.
+   */
+  @org.junit.Test
+  public void testHedge() throws IOException, InterruptedException {
+    System.out.println("hedge");
+    try (
+        LocalHttpServer slow = newServer(5000, "COM\nSLOW\n");
+        LocalHttpServer fast = newServer(0, "COM\nFAST\n")
+    ) {
+      HedgedSources sources = new HedgedSources(Arrays.asList(slow.getUrl("/"), fast.getUrl("/")), HEDGE_DELAY);
+      long startNanos = System.nanoTime();
+      TopLevelDomain.Snapshot snapshot = fetch(sources);
+      long elapsed = elapsedMillis(startNanos);
+      System.out.println("\telapsed = " + elapsed + " ms");
+      assertEquals(Arrays.asList("COM", "FAST"), snapshot.getTopLevelDomains());
+      assertTrue("Hedge too early: " + elapsed + " ms", elapsed >= HEDGE_DELAY);
+      assertTrue("Hedge too late: " + elapsed + " ms", elapsed < 2500);
+      // The measured source is now preferred over the one not yet measured
+      assertEquals(Arrays.asList(fast.getUrl("/"), slow.getUrl("/")), sources.getOrder());
+    }
+  }
+
+  /**
+   * A failing source is followed immediately by the next source, without waiting for the hedge delay, and is
+   * then tried last.
+   */
+  @org.junit.Test
+  public void testFailover() throws IOException, InterruptedException {
+    System.out.println("failover");
+    try (
+        LocalHttpServer failing = newFailingServer();
+        LocalHttpServer working = newServer(0, "COM\nNET\n")
+    ) {
+      HedgedSources sources = new HedgedSources(Arrays.asList(failing.getUrl("/"), working.getUrl("/")), 10000);
+      long startNanos = System.nanoTime();
+      TopLevelDomain.Snapshot snapshot = fetch(sources);
+      long elapsed = elapsedMillis(startNanos);
+      System.out.println("\telapsed = " + elapsed + " ms");
+      assertEquals(Arrays.asList("COM", "NET"), snapshot.getTopLevelDomains());
+      assertTrue("Failover waited for hedge delay: " + elapsed + " ms", elapsed < 5000);
+      assertEquals(Arrays.asList(working.getUrl("/"), failing.getUrl("/")), sources.getOrder());
+      // Working source is tried first
+      fetch(sources);
+      assertEquals(1, failing.getRequestCount());
+      assertEquals(2, working.getRequestCount());
+    }
+  }
+
+  /**
+   * A malformed response is not valid, so the next source is used.
+   */
+  @org.junit.Test
+  public void testInvalidResponse() throws IOException, InterruptedException {
+    System.out.println("invalidResponse");
+    try (
+        LocalHttpServer invalid = newServer(0, "<html>Not a list</html>\n");
+        LocalHttpServer valid = newServer(0, "COM\nNET\n")
+    ) {
+      HedgedSources sources = new HedgedSources(Arrays.asList(invalid.getUrl("/"), valid.getUrl("/")), 10000);
+      assertEquals(Arrays.asList("COM", "NET"), fetch(sources).getTopLevelDomains());
+    }
+  }
+
+  /**
+   * Sources are ordered by their measured latency.
+   */
+  @org.junit.Test
+  public void testOrderByLatency() throws IOException, InterruptedException {
+    System.out.println("orderByLatency");
+    try (
+        LocalHttpServer slower = newServer(300, "COM\n");
+        LocalHttpServer faster = newServer(50, "COM\n")
+    ) {
+      // Hedge delay long enough for each to be measured alone
+      HedgedSources sources = new HedgedSources(Collections.singletonList(slower.getUrl("/")), 10000);
+      fetch(sources);
+      sources = new HedgedSources(Arrays.asList(slower.getUrl("/"), faster.getUrl("/")), 10000);
+      assertEquals(Arrays.asList(slower.getUrl("/"), faster.getUrl("/")), sources.getOrder());
+      fetch(sources);
+      // Only slower measured, faster not yet measured, so configured order retained after slower
+      assertEquals(Arrays.asList(slower.getUrl("/"), faster.getUrl("/")), sources.getOrder());
+      // Race both by hedging immediately
+      HedgedSources racing = new HedgedSources(Arrays.asList(slower.getUrl("/"), faster.getUrl("/")), 0);
+      fetch(racing);
+      assertEquals(Arrays.asList(faster.getUrl("/"), slower.getUrl("/")), racing.getOrder());
+    }
+  }
+
+  /**
+   * When all sources fail, the failure of each is included.
+   */
+  @org.junit.Test
+  public void testAllFail() throws IOException, InterruptedException {
+    System.out.println("allFail");
+    try (
+        LocalHttpServer failing1 = newFailingServer();
+        LocalHttpServer failing2 = newFailingServer()
+    ) {
+      HedgedSources sources = new HedgedSources(Arrays.asList(failing1.getUrl("/"), failing2.getUrl("/")), HEDGE_DELAY);
+      try {
+        fetch(sources);
+        fail("All sources failed without exception");
+      } catch (IOException e) {
+        System.out.println("\t" + e);
+        assertEquals(2, e.getSuppressed().length);
+      }
+    }
+  }
+
+  /**
+   * File paths and {@code file:} URLs are sources, such as for hosts without egress.
+   */
+  @org.junit.Test
+  public void testFileSource() throws IOException, InterruptedException {
+    System.out.println("fileSource");
+    Path file = Files.createTempFile("HedgedSourcesTest", ".txt");
+    try {
+      Files.write(file, "COM\nNET\nORG\n".getBytes(StandardCharsets.US_ASCII));
+      assertEquals(file.toUri().toURL(), HedgedSources.parseSource(file.toString()));
+      assertEquals(file.toUri().toURL(), HedgedSources.parseSource(file.toUri().toString()));
+      URL unreachable = new URL("http://127.0.0.1:1/");
+      HedgedSources sources = new HedgedSources(
+          Arrays.asList(unreachable, HedgedSources.parseSource(file.toString())),
+          HEDGE_DELAY
+      );
+      assertEquals(Arrays.asList("COM", "NET", "ORG"), fetch(sources).getTopLevelDomains());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @org.junit.Test
+  public void testFromProperty() throws IOException {
+    System.out.println("fromProperty");
+    URL defaultUrl = new URL("https://data.iana.org/TLD/tlds-alpha-by-domain.txt");
+    String property = HedgedSourcesTest.class.getName() + ".sources";
+    System.clearProperty(property);
+    assertEquals(Collections.singletonList(defaultUrl), HedgedSources.fromProperty(property, defaultUrl).getOrder());
+    System.setProperty(property, " http://mirror.example/tlds.txt ,\n" + defaultUrl + " ");
+    try {
+      assertEquals(
+          Arrays.asList(new URL("http://mirror.example/tlds.txt"), defaultUrl),
+          HedgedSources.fromProperty(property, defaultUrl).getOrder()
+      );
+    } finally {
+      System.clearProperty(property);
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Tests {@link LabelHistory}.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class LabelHistoryTest {
+
+  private static final int MAGIC = 0x54455354; // "TEST"
+
+  private static final UnaryOperator<String> ALTERNATE_FORM = label -> "XN--P1AI".equalsIgnoreCase(label)
+      ? "\u0440\u0444"
+      : label;
+
+  /**
+   * Versions at times 100, 200, 300, and 400.
+   */
+  private static LabelHistory newHistory() {
+    LabelHistory history = LabelHistory.of(100, Arrays.asList("COM", "NET", "Info"), ALTERNATE_FORM);
+    history = history.append(200, Arrays.asList("COM", "NET", "INFO", "XN--P1AI"));
+    history = history.append(300, Arrays.asList("COM", "INFO", "XN--P1AI"));
+    return history.append(400, Arrays.asList("COM", "NET", "INFO"));
+  }
+
+  @org.junit.Test
+  public void testGet() {
+    System.out.println("get");
+    LabelHistory history = newHistory();
+    assertEquals(4, history.size());
+    assertEquals(100, history.getStartTime());
+    assertEquals(400, history.getLatestTime());
+    // Before the first version
+    assertNull(history.get("com", 99));
+    assertNull(history.get("com", Long.MIN_VALUE));
+    // Present throughout
+    assertEquals("COM", history.get("com", 100));
+    assertEquals("COM", history.get("Com", Long.MAX_VALUE));
+    // Case changed at 200
+    assertEquals("Info", history.get("INFO", 199));
+    assertEquals("INFO", history.get("info", 200));
+    // Removed at 300, added again at 400
+    assertEquals("NET", history.get("net", 299));
+    assertNull(history.get("net", 300));
+    assertNull(history.get("net", 399));
+    assertEquals("NET", history.get("net", 400));
+    // Added at 200, removed at 400, matched in alternate form
+    assertNull(history.get("xn--p1ai", 199));
+    assertEquals("XN--P1AI", history.get("xn--p1ai", 200));
+    assertEquals("XN--P1AI", history.get("\u0420\u0424", 399));
+    assertNull(history.get("\u0440\u0444", 400));
+    // Never present
+    assertNull(history.get("org", 250));
+  }
+
+  @org.junit.Test
+  public void testAppend() {
+    System.out.println("append");
+    LabelHistory history = newHistory();
+    // Not changed, even when reordered
+    assertSame(history, history.append(500, Arrays.asList("INFO", "NET", "COM")));
+    // Time not after last version
+    LabelHistory appended = history.append(50, Arrays.asList("COM"));
+    assertEquals(5, appended.size());
+    assertEquals(401, appended.getLatestTime());
+    assertEquals("NET", appended.get("net", 400));
+    assertNull(appended.get("net", 401));
+  }
+
+  @org.junit.Test
+  public void testPrune() {
+    System.out.println("prune");
+    LabelHistory history = newHistory();
+    assertSame(history, history.prune(4, 0));
+    assertSame(history, history.prune(10, 199));
+    // By count
+    LabelHistory pruned = history.prune(2, 0);
+    assertEquals(2, pruned.size());
+    assertEquals(300, pruned.getStartTime());
+    assertNull(pruned.get("com", 299));
+    assertNull(pruned.get("net", 300));
+    assertEquals("XN--P1AI", pruned.get("xn--p1ai", 300));
+    assertEquals("NET", pruned.get("net", 400));
+    // By age, retaining the version effective at the minimum time
+    pruned = history.prune(10, 250);
+    assertEquals(3, pruned.size());
+    assertEquals(200, pruned.getStartTime());
+    assertEquals("INFO", pruned.get("info", 200));
+    assertNull(pruned.get("info", 199));
+    // Last version always retained
+    pruned = history.prune(10, Long.MAX_VALUE);
+    assertEquals(1, pruned.size());
+    assertEquals(400, pruned.getStartTime());
+    assertEquals("NET", pruned.get("net", 400));
+    assertNull(pruned.get("xn--p1ai", 400));
+  }
+
+  private static void assertSameHistory(LabelHistory expected, LabelHistory actual) {
+    assertNotNull(actual);
+    assertEquals(expected.size(), actual.size());
+    for (long time = 0; time <= 500; time += 50) {
+      for (String label : Arrays.asList("com", "net", "info", "xn--p1ai", "\u0440\u0444", "org")) {
+        assertEquals(expected.get(label, time), actual.get(label, time));
+      }
+    }
+  }
+
+  @org.junit.Test
+  public void testReadWrite() throws IOException {
+    System.out.println("readWrite");
+    LabelHistory history = newHistory();
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bout)) {
+      history.writeTo(out);
+    }
+    System.out.println("\tbytes = " + bout.size());
+    ByteBuffer in = ByteBuffer.wrap(bout.toByteArray());
+    assertSameHistory(history, LabelHistory.readFrom(in, ALTERNATE_FORM));
+    assertEquals(0, in.remaining());
+    // Inconsistent versions
+    bout.reset();
+    try (DataOutputStream out = new DataOutputStream(bout)) {
+      out.writeInt(1);
+      out.writeLong(100);
+      out.writeInt(0);
+      out.writeInt(1);
+      SnapshotStore.writeString(out, "COM");
+    }
+    try {
+      LabelHistory.readFrom(ByteBuffer.wrap(bout.toByteArray()), ALTERNATE_FORM);
+      fail("Removed label not present");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  @org.junit.Test
+  public void testFile() throws IOException {
+    System.out.println("file");
+    LabelHistory history = newHistory();
+    Path file = Files.createTempFile("LabelHistoryTest", ".bin");
+    try {
+      history.saveToFile(file, MAGIC);
+      assertSameHistory(history, LabelHistory.loadFromFile(file, MAGIC, ALTERNATE_FORM));
+      assertNull(LabelHistory.loadFromFile(file, MAGIC + 1, ALTERNATE_FORM));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @org.junit.Test
+  public void testPreferences() throws IOException, BackingStoreException {
+    System.out.println("preferences");
+    Preferences prefs = Preferences.userNodeForPackage(LabelHistoryTest.class).node("LabelHistoryTest");
+    try {
+      assertNull(LabelHistory.loadFromPreferences(prefs, "history", ALTERNATE_FORM));
+      // Large enough to span several chunks
+      LabelHistory history = newHistory();
+      String[] labels = new String[2000];
+      for (int i = 0; i < labels.length; i++) {
+        labels[i] = "LABEL" + i;
+      }
+      history = history.append(500, Arrays.asList(labels));
+      history.saveToPreferences(prefs, "history");
+      System.out.println("\tnumChunks = " + prefs.getInt("history.numChunks", -1));
+      LabelHistory loaded = LabelHistory.loadFromPreferences(prefs, "history", ALTERNATE_FORM);
+      assertSameHistory(history, loaded);
+      assertEquals("LABEL1999", loaded.get("label1999", 500));
+      assertNull(loaded.get("label1999", 499));
+      // Inconsistent
+      prefs.putByteArray("history.0", new byte[] {1, 2, 3});
+      assertNull(LabelHistory.loadFromPreferences(prefs, "history", ALTERNATE_FORM));
+    } finally {
+      prefs.removeNode();
+    }
+  }
+}
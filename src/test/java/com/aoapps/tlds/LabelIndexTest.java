@@ -0,0 +1,183 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tests {@link LabelIndex}.
+ */
+public class LabelIndexTest {
+
+  /**
+   * Every label must be found in any ASCII case.
+   */
+  @org.junit.Test
+  public void testAllLabelsFound() {
+    List<String> tlds = TopLevelDomain.getSnapshot().getTopLevelDomains();
+    LabelIndex<String> index = LabelIndex.of(tlds);
+    assertEquals(tlds.size(), index.size());
+    for (String tld : tlds) {
+      assertSame(tld, index.get(tld));
+      assertSame(tld, index.get(tld.toLowerCase(Locale.ROOT)));
+      assertSame(tld, index.get(tld.toUpperCase(Locale.ROOT)));
+    }
+  }
+
+  /**
+   * Labels not in the index, including non-ASCII, must not be found.
+   */
+  @org.junit.Test
+  public void testMisses() {
+    LabelIndex<String> index = LabelIndex.of(TopLevelDomain.getSnapshot().getTopLevelDomains());
+    for (String label : new String[] {"", "c", "comm", "notatld", "xn--", "\u212Aim", "c\u00f6m", "com."}) {
+      assertNull(label, index.get(label));
+    }
+  }
+
+  /**
+   * Ranges of any {@link CharSequence} are found without taking a substring.
+   */
+  @org.junit.Test
+  public void testRange() {
+    LabelIndex<String> index = LabelIndex.of(TopLevelDomain.getSnapshot().getTopLevelDomains());
+    String hostname = "www.Example.CoM";
+    assertEquals("COM", index.get(hostname, 12, 15));
+    assertNull(index.get(hostname, 11, 15));
+    assertNull(index.get(hostname, 4, 11));
+    StringBuilder sb = new StringBuilder("mail.example.NeT.");
+    assertEquals("NET", index.get(sb, 13, 16));
+    assertNull(index.get(sb, 13, 17));
+    assertNull(index.get(sb, 16, 16));
+  }
+
+  /**
+   * Ranges outside of the sequence are rejected.
+   */
+  @org.junit.Test(expected = IndexOutOfBoundsException.class)
+  public void testRangeOutOfBounds() {
+    LabelIndex.of(Arrays.asList("COM")).get("com", 1, 4);
+  }
+
+  /**
+   * An empty index finds nothing.
+   */
+  @org.junit.Test
+  public void testEmpty() {
+    LabelIndex<String> index = LabelIndex.of(Collections.<String>emptyList());
+    assertEquals(0, index.size());
+    assertNull(index.get("com"));
+    assertNull(index.get(""));
+  }
+
+  /**
+   * When labels differ only by case, the last one is used.
+   */
+  @org.junit.Test
+  public void testDuplicates() {
+    LabelIndex<String> index = LabelIndex.of(Arrays.asList("COM", "net", "Com"));
+    assertEquals(2, index.size());
+    assertEquals("Com", index.get("com"));
+    assertEquals("net", index.get("NET"));
+  }
+
+  /**
+   * Non-ASCII labels are found with case folded, but never folded into ASCII.
+   */
+  @org.junit.Test
+  public void testNonAscii() {
+    LabelIndex<String> index = LabelIndex.of(Arrays.asList("COM", "\u0440\u0444", "k", "\ud801\udc00"));
+    assertEquals(4, index.size());
+    assertEquals("\u0440\u0444", index.get("\u0440\u0444"));
+    assertEquals("\u0440\u0444", index.get("\u0420\u0424"));
+    assertEquals("\u0440\u0444", index.get("x\u0420\u0424", 1, 3));
+    assertNull(index.get("\u0440"));
+    assertNull(index.get("\u0440\u0444\u0444"));
+    // KELVIN SIGN lower-cases to ASCII "k"
+    assertNull(index.get("\u212A"));
+    // Supplementary characters, with case folded
+    assertEquals("\ud801\udc00", index.get("\ud801\udc28"));
+    // Unpaired surrogates
+    assertNull(index.get("\ud801"));
+    assertNull(index.get("\ud801\udc00", 0, 1));
+    // Bytes are UTF-8
+    byte[] utf8 = "\u0440\u0444".getBytes(StandardCharsets.UTF_8);
+    assertEquals("\u0440\u0444", index.getValue(index.indexOf(utf8, 0, utf8.length)));
+    assertEquals(3, index.getMaxLength());
+    assertEquals(4, index.getMaxByteLength());
+  }
+
+  /**
+   * The compiled tables may be written and read back without constructing the perfect hash again.
+   */
+  @org.junit.Test
+  public void testWriteAndRead() throws IOException {
+    List<String> labels = TopLevelDomain.getSnapshot().getTopLevelDomains();
+    LabelIndex<String> index = LabelIndex.of(labels);
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bout)) {
+      index.writeTo(out);
+    }
+    Object[] values = new Object[index.size()];
+    for (int slot = 0; slot < values.length; slot++) {
+      values[slot] = index.getValue(slot);
+    }
+    ByteBuffer in = ByteBuffer.wrap(bout.toByteArray());
+    LabelIndex<String> read = LabelIndex.readFrom(in, values);
+    assertFalse(in.hasRemaining());
+    assertEquals(index.size(), read.size());
+    assertEquals(index.getMaxLength(), read.getMaxLength());
+    assertEquals(index.getMaxByteLength(), read.getMaxByteLength());
+    for (String label : labels) {
+      assertSame(label, read.get(label.toLowerCase(Locale.ROOT)));
+    }
+    assertNull(read.get("not-a-top-level-domain"));
+  }
+
+  /**
+   * Tables that do not match the number of values are rejected.
+   */
+  @org.junit.Test(expected = IOException.class)
+  public void testReadInconsistent() throws IOException {
+    LabelIndex<String> index = LabelIndex.of(Arrays.asList("com", "net", "org"));
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bout)) {
+      index.writeTo(out);
+    }
+    LabelIndex.readFrom(ByteBuffer.wrap(bout.toByteArray()), new Object[2]);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link ListReader}.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class ListReaderTest {
+
+  private static final String LIST = "# Comment\r\nCOM\r\rNET\n\u0440\u0444\r\n\nORG";
+
+  @org.junit.Test
+  public void testLines() throws IOException {
+    System.out.println("lines");
+    List<String> lines = new ArrayList<>();
+    List<Integer> offsets = new ArrayList<>();
+    ListReader reader = ListReader.read(new StringReader(LIST), 1024, 80, (line, lineNumber, offset) -> {
+      assertEquals(lines.size() + 1, lineNumber);
+      lines.add(line.toString());
+      offsets.add(offset);
+    });
+    assertEquals(Arrays.asList("# Comment", "COM", "", "NET", "\u0440\u0444", "", "ORG"), lines);
+    assertEquals(Arrays.asList(0, 11, 15, 16, 20, 26, 27), offsets);
+    byte[] source = LIST.getBytes(StandardCharsets.UTF_8);
+    assertArrayEquals(source, reader.getSource());
+    assertArrayEquals(ListReader.newMd5().digest(source), reader.getDigest().digest());
+  }
+
+  /**
+   * A carriage return and line feed split across reads is a single terminator.
+   */
+  @org.junit.Test
+  public void testSplitTerminator() throws IOException {
+    System.out.println("splitTerminator");
+    char[] chars = new char[4095];
+    Arrays.fill(chars, 'A');
+    String list = "#" + new String(chars, 0, 4093) + "\r\nCOM\n";
+    List<String> lines = new ArrayList<>();
+    ListReader reader = ListReader.read(new StringReader(list), 8192, 4096, (line, lineNumber, offset) -> lines.add(line.toString()));
+    assertEquals(2, lines.size());
+    assertEquals("COM", lines.get(1));
+    assertArrayEquals(list.getBytes(StandardCharsets.US_ASCII), reader.getSource());
+  }
+
+  @org.junit.Test
+  public void testMaxLineLength() throws IOException {
+    System.out.println("maxLineLength");
+    ListReader.read(new StringReader("COM\n1234\n"), 1024, 4, (line, lineNumber, offset) -> { });
+    try {
+      ListReader.read(new StringReader("COM\n12345\n"), 1024, 4, (line, lineNumber, offset) -> { });
+      fail("Long line accepted");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("Line 2"));
+    }
+  }
+
+  @org.junit.Test
+  public void testMaxLength() throws IOException {
+    System.out.println("maxLength");
+    assertEquals(8, ListReader.read(new StringReader("COM\nNET\n"), 8, 80, (line, lineNumber, offset) -> { }).getSource().length);
+    List<String> lines = new ArrayList<>();
+    try {
+      ListReader.read(new StringReader("COM\nNET\nORG\nEDU\n"), 8, 80, (line, lineNumber, offset) -> lines.add(line.toString()));
+      fail("Long list accepted");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("maximum length"));
+    }
+    // Rejected without reading further
+    assertEquals(Arrays.asList("COM", "NET", "ORG"), lines);
+  }
+
+  @org.junit.Test
+  public void testHandlerRejects() {
+    System.out.println("handlerRejects");
+    try {
+      ListReader.read(new StringReader("COM\nBAD\nNET\n"), 1024, 80, (line, lineNumber, offset) -> {
+        if ("BAD".contentEquals(line)) {
+          throw new IOException("Malformed line " + lineNumber);
+        }
+      });
+      fail("Rejected line accepted");
+    } catch (IOException e) {
+      assertEquals("Malformed line 2", e.getMessage());
+    }
+  }
+}
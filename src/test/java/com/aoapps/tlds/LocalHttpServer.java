@@ -0,0 +1,141 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal HTTP/1.1 server on the loopback interface for tests, answering each request on its own connection.
+ *
+ * @author  AO Industries, Inc.
+ */
+class LocalHttpServer implements Closeable {
+
+  /**
+   * Handles a single request.
+   */
+  @FunctionalInterface
+  interface Handler {
+    /**
+     * Writes the complete response.
+     *
+     * @param  headers  the request headers, with lower-case names
+     */
+    void handle(String method, String path, Map<String, String> headers, OutputStream out) throws IOException;
+  }
+
+  /**
+   * Writes a complete response with {@code Connection: close}.
+   *
+   * @param  headers  additional header lines, without line endings
+   * @param  body  the body or {@code null} for none
+   */
+  static void respond(OutputStream out, int status, String reason, byte[] body, String ... headers) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n");
+    for (String header : headers) {
+      sb.append(header).append("\r\n");
+    }
+    sb.append("Content-Length: ").append(body == null ? 0 : body.length).append("\r\n");
+    sb.append("Connection: close\r\n");
+    sb.append("\r\n");
+    out.write(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+    if (body != null) {
+      out.write(body);
+    }
+    out.flush();
+  }
+
+  private final ServerSocket serverSocket;
+  private final AtomicInteger requestCount = new AtomicInteger();
+
+  LocalHttpServer(Handler handler) throws IOException {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread thread = new Thread(
+        () -> {
+          while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+              BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+              String requestLine = in.readLine();
+              if (requestLine == null) {
+                continue;
+              }
+              String[] split = requestLine.split(" ");
+              Map<String, String> headers = new HashMap<>();
+              String line;
+              while ((line = in.readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon != -1) {
+                  headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+                }
+              }
+              requestCount.incrementAndGet();
+              handler.handle(split[0], split[1], headers, socket.getOutputStream());
+            } catch (SocketException e) {
+              // Closed
+            } catch (IOException e) {
+              e.printStackTrace(System.err);
+            }
+          }
+        },
+        LocalHttpServer.class.getName()
+    );
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Gets the URL of the given path on this server.
+   */
+  URL getUrl(String path) throws MalformedURLException {
+    return new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), serverSocket.getLocalPort(), path);
+  }
+
+  /**
+   * Gets the number of requests received.
+   */
+  int getRequestCount() {
+    return requestCount.get();
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+  }
+}
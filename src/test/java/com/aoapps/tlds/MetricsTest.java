@@ -0,0 +1,109 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Tests {@link Metrics} and {@link LatencyHistogram}.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class MetricsTest {
+
+  @org.junit.Test
+  public void testLatencyHistogram() {
+    System.out.println("latencyHistogram");
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0.0, histogram.getMeanMillis(), 0.0);
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(500));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(150));
+    histogram.record(TimeUnit.HOURS.toNanos(1));
+    histogram.record(-1);
+    long[] counts = histogram.getBucketCounts();
+    long[] bounds = histogram.getBucketUpperBoundsMillis();
+    assertEquals(bounds.length, counts.length);
+    assertEquals(Long.MAX_VALUE, bounds[bounds.length - 1]);
+    assertEquals(2, counts[0]);
+    assertEquals(1, counts[1]);
+    assertEquals(1, counts[7]);
+    assertEquals(1, counts[counts.length - 1]);
+    assertEquals(5, histogram.getCount());
+    assertEquals(TimeUnit.HOURS.toNanos(1), histogram.getMaxNanos());
+    // Bounds may not be modified through the returned array
+    bounds[0] = 0;
+    assertTrue(Arrays.equals(counts, histogram.getBucketCounts()));
+    assertEquals(1, histogram.getBucketUpperBoundsMillis()[0]);
+  }
+
+  @org.junit.Test
+  public void testLookupCounts() throws InterruptedException {
+    System.out.println("lookupCounts");
+    Metrics metrics = TopLevelDomain.getMetrics();
+    TopLevelDomain.Snapshot snapshot = TopLevelDomain.getSnapshot();
+    long hits = metrics.getLookupHits();
+    long misses = metrics.getLookupMisses();
+    snapshot.getByLabel("com");
+    snapshot.getByLabel("NOT-A-TLD");
+    snapshot.getByHostname("www.example.ORG");
+    snapshot.findByLabel("net");
+    snapshot.indexOfTopLevelDomain("example.invalid-tld");
+    assertTrue(metrics.getLookupHits() >= hits + 3);
+    assertTrue(metrics.getLookupMisses() >= misses + 2);
+    assertTrue(metrics.getLastSuccessfulUpdateTime() > 0);
+    assertTrue(metrics.getSnapshotAgeMillis() >= 0);
+    System.out.println("\t" + metrics);
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  @org.junit.Test
+  public void testMBean() throws JMException, InterruptedException {
+    System.out.println("mBean");
+    TopLevelDomain.getSnapshot();
+    TopLevelDomain.waitUntilNoThread();
+    Metrics metrics = TopLevelDomain.getMetrics();
+    // Registered by the first background update
+    metrics.register();
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("com.aoapps.tlds:type=Metrics,name=\"TopLevelDomain\"");
+    assertTrue(server.isRegistered(name));
+    assertEquals("TopLevelDomain", server.getAttribute(name, "Name"));
+    assertTrue((Long) server.getAttribute(name, "UpdateAttempts") >= 0);
+    assertEquals(-1L, server.getAttribute(name, "UpdateInProgressMillis"));
+    CompositeData load = (CompositeData) server.getAttribute(name, "LoadLatency");
+    assertEquals(metrics.getLoadLatency().getCount(), load.get("count"));
+    assertTrue((Long) load.get("count") > 0);
+    assertTrue(Arrays.equals(metrics.getLoadLatency().getBucketUpperBoundsMillis(), (long[]) load.get("bucketUpperBoundsMillis")));
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link PrefixIndex}.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class PrefixIndexTest {
+
+  private static final List<String> LABELS = Arrays.asList(
+      "COM", "Co", "COMPANY", "NET", "ORG", "\u0440\u0444", "\u00c9COLE", "\uD801\uDC00X", "COMCAST", "CAT"
+  );
+
+  private static final PrefixIndex INDEX;
+
+  static {
+    int[] values = new int[LABELS.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i;
+    }
+    INDEX = new PrefixIndex(LABELS, values);
+  }
+
+  private static List<String> search(String prefix) {
+    int from = INDEX.fromIndex(prefix, 0, prefix.length());
+    int to = INDEX.toIndex(prefix, 0, prefix.length());
+    List<String> results = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      results.add(LABELS.get(INDEX.getValue(i)));
+    }
+    return results;
+  }
+
+  /**
+   * Finds matches by the brute-force approach, for comparison.
+   */
+  private static List<String> scan(String prefix) {
+    String folded = LabelIndex.foldCase(prefix);
+    List<String> results = new ArrayList<>();
+    for (String label : LABELS) {
+      if (LabelIndex.foldCase(label).startsWith(folded)) {
+        results.add(label);
+      }
+    }
+    results.sort((a, b) -> LabelIndex.foldCase(a).compareTo(LabelIndex.foldCase(b)));
+    return results;
+  }
+
+  @org.junit.Test
+  public void testSearch() {
+    System.out.println("search");
+    assertEquals(LABELS.size(), INDEX.size());
+    assertEquals(Arrays.asList("CAT", "Co", "COM", "COMCAST", "COMPANY"), search("c"));
+    assertEquals(Arrays.asList("Co", "COM", "COMCAST", "COMPANY"), search("cO"));
+    assertEquals(Arrays.asList("COM", "COMCAST", "COMPANY"), search("Com"));
+    assertEquals(Arrays.asList("COMPANY"), search("compa"));
+    assertEquals(Arrays.asList(), search("companys"));
+    assertEquals(Arrays.asList(), search("a"));
+    assertEquals(Arrays.asList(), search("z"));
+    assertEquals(Arrays.asList("\u0440\u0444"), search("\u0420"));
+    assertEquals(Arrays.asList("\u00c9COLE"), search("\u00e9c"));
+    assertEquals(Arrays.asList("\uD801\uDC00X"), search("\uD801\uDC28"));
+    assertEquals(LABELS.size(), search("").size());
+  }
+
+  @org.junit.Test
+  public void testSearchMatchesScan() {
+    System.out.println("searchMatchesScan");
+    for (String label : LABELS) {
+      for (int len = 0; len <= label.length() + 1; len++) {
+        String prefix = (len <= label.length() ? label.substring(0, len) : label + "-").toUpperCase();
+        assertEquals(prefix, scan(prefix), search(prefix));
+      }
+    }
+  }
+
+  @org.junit.Test
+  public void testRange() {
+    System.out.println("range");
+    String text = "www.COMPANY.example";
+    int from = INDEX.fromIndex(text, 4, 7);
+    int to = INDEX.toIndex(text, 4, 7);
+    assertEquals(3, to - from);
+  }
+
+  @org.junit.Test(expected = IndexOutOfBoundsException.class)
+  public void testRangeOutOfBounds() {
+    System.out.println("rangeOutOfBounds");
+    INDEX.fromIndex("com", 1, 4);
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests {@link PublicSuffix}, using the bundled bootstrap list.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class PublicSuffixTest {
+
+  /**
+   * Checks the registrable domain, in the style of the
+   * <a href="https://raw.githubusercontent.com/publicsuffix/list/master/tests/test_psl.txt">Public Suffix List tests</a>.
+   */
+  private static void checkPublicSuffix(String hostname, String expected) {
+    String registrableDomain = PublicSuffix.getRegistrableDomain(hostname);
+    assertEquals(
+        hostname,
+        expected,
+        registrableDomain == null ? null : registrableDomain.toLowerCase(Locale.ROOT)
+    );
+  }
+
+  /**
+   * Test of getRules method, of class PublicSuffix.
+   */
+  @org.junit.Test
+  public void testGetRules() throws InterruptedException {
+    System.out.println("getRules");
+    assertTrue(PublicSuffix.getRules().contains("co.uk"));
+    assertTrue(PublicSuffix.getRules().contains("!www.ck"));
+    PublicSuffix.waitUntilNoThread();
+  }
+
+  /**
+   * The standard Public Suffix List checks.
+   */
+  @org.junit.Test
+  public void testCheckPublicSuffix() throws InterruptedException {
+    System.out.println("checkPublicSuffix");
+    // Mixed case
+    checkPublicSuffix("COM", null);
+    checkPublicSuffix("example.COM", "example.com");
+    checkPublicSuffix("WwW.example.COM", "example.com");
+    // Unlisted TLD
+    checkPublicSuffix("example", null);
+    checkPublicSuffix("example.example", "example.example");
+    checkPublicSuffix("b.example.example", "example.example");
+    checkPublicSuffix("a.b.example.example", "example.example");
+    // TLD with only 1 rule
+    checkPublicSuffix("biz", null);
+    checkPublicSuffix("domain.biz", "domain.biz");
+    checkPublicSuffix("b.domain.biz", "domain.biz");
+    checkPublicSuffix("a.b.domain.biz", "domain.biz");
+    // TLD with some 2-level rules
+    checkPublicSuffix("com", null);
+    checkPublicSuffix("example.com", "example.com");
+    checkPublicSuffix("b.example.com", "example.com");
+    checkPublicSuffix("a.b.example.com", "example.com");
+    checkPublicSuffix("uk.com", null);
+    checkPublicSuffix("example.uk.com", "example.uk.com");
+    checkPublicSuffix("b.example.uk.com", "example.uk.com");
+    checkPublicSuffix("a.b.example.uk.com", "example.uk.com");
+    checkPublicSuffix("test.ac", "test.ac");
+    // TLD with only 1 (wildcard) rule
+    checkPublicSuffix("mm", null);
+    checkPublicSuffix("c.mm", null);
+    checkPublicSuffix("b.c.mm", "b.c.mm");
+    checkPublicSuffix("a.b.c.mm", "b.c.mm");
+    // More complex TLD
+    checkPublicSuffix("jp", null);
+    checkPublicSuffix("test.jp", "test.jp");
+    checkPublicSuffix("www.test.jp", "test.jp");
+    checkPublicSuffix("ac.jp", null);
+    checkPublicSuffix("test.ac.jp", "test.ac.jp");
+    checkPublicSuffix("www.test.ac.jp", "test.ac.jp");
+    checkPublicSuffix("kyoto.jp", null);
+    checkPublicSuffix("test.kyoto.jp", "test.kyoto.jp");
+    checkPublicSuffix("ide.kyoto.jp", null);
+    checkPublicSuffix("b.ide.kyoto.jp", "b.ide.kyoto.jp");
+    checkPublicSuffix("a.b.ide.kyoto.jp", "b.ide.kyoto.jp");
+    checkPublicSuffix("c.kobe.jp", null);
+    checkPublicSuffix("b.c.kobe.jp", "b.c.kobe.jp");
+    checkPublicSuffix("a.b.c.kobe.jp", "b.c.kobe.jp");
+    checkPublicSuffix("city.kobe.jp", "city.kobe.jp");
+    checkPublicSuffix("www.city.kobe.jp", "city.kobe.jp");
+    // TLD with a wildcard rule and exceptions
+    checkPublicSuffix("ck", null);
+    checkPublicSuffix("test.ck", null);
+    checkPublicSuffix("b.test.ck", "b.test.ck");
+    checkPublicSuffix("a.b.test.ck", "b.test.ck");
+    checkPublicSuffix("www.ck", "www.ck");
+    checkPublicSuffix("www.www.ck", "www.ck");
+    // US K12
+    checkPublicSuffix("us", null);
+    checkPublicSuffix("test.us", "test.us");
+    checkPublicSuffix("www.test.us", "test.us");
+    checkPublicSuffix("ak.us", null);
+    checkPublicSuffix("test.ak.us", "test.ak.us");
+    checkPublicSuffix("www.test.ak.us", "test.ak.us");
+    checkPublicSuffix("k12.ak.us", null);
+    checkPublicSuffix("test.k12.ak.us", "test.k12.ak.us");
+    checkPublicSuffix("www.test.k12.ak.us", "test.k12.ak.us");
+    // IDN labels
+    checkPublicSuffix("\u98df\u72ee.com.cn", "\u98df\u72ee.com.cn");
+    checkPublicSuffix("\u98df\u72ee.\u516c\u53f8.cn", "\u98df\u72ee.\u516c\u53f8.cn");
+    checkPublicSuffix("www.\u98df\u72ee.\u516c\u53f8.cn", "\u98df\u72ee.\u516c\u53f8.cn");
+    checkPublicSuffix("shishi.\u516c\u53f8.cn", "shishi.\u516c\u53f8.cn");
+    checkPublicSuffix("\u516c\u53f8.cn", null);
+    checkPublicSuffix("\u98df\u72ee.\u4e2d\u56fd", "\u98df\u72ee.\u4e2d\u56fd");
+    checkPublicSuffix("www.\u98df\u72ee.\u4e2d\u56fd", "\u98df\u72ee.\u4e2d\u56fd");
+    checkPublicSuffix("shishi.\u4e2d\u56fd", "shishi.\u4e2d\u56fd");
+    checkPublicSuffix("\u4e2d\u56fd", null);
+    // Same as above, but punycoded
+    checkPublicSuffix("xn--85x722f.com.cn", "xn--85x722f.com.cn");
+    checkPublicSuffix("xn--85x722f.xn--55qx5d.cn", "xn--85x722f.xn--55qx5d.cn");
+    checkPublicSuffix("www.xn--85x722f.xn--55qx5d.cn", "xn--85x722f.xn--55qx5d.cn");
+    checkPublicSuffix("shishi.xn--55qx5d.cn", "shishi.xn--55qx5d.cn");
+    checkPublicSuffix("xn--55qx5d.cn", null);
+    checkPublicSuffix("xn--85x722f.xn--fiqs8s", "xn--85x722f.xn--fiqs8s");
+    checkPublicSuffix("www.xn--85x722f.xn--fiqs8s", "xn--85x722f.xn--fiqs8s");
+    checkPublicSuffix("shishi.xn--fiqs8s", "shishi.xn--fiqs8s");
+    checkPublicSuffix("xn--fiqs8s", null);
+    PublicSuffix.waitUntilNoThread();
+  }
+
+  /**
+   * Test of the index, public suffix, and trailing root dot handling, of class PublicSuffix.
+   */
+  @org.junit.Test
+  public void testHostname() throws InterruptedException {
+    System.out.println("hostname");
+    assertEquals(12, PublicSuffix.indexOfPublicSuffix("www.example.co.uk"));
+    assertEquals(4, PublicSuffix.indexOfRegistrableDomain("www.example.co.uk"));
+    assertEquals(5, PublicSuffix.indexOfRegistrableDomain("<www.example.co.uk.>", 1, 19));
+    assertEquals("co.UK", PublicSuffix.getPublicSuffix("www.Example.co.UK."));
+    assertEquals("Example.co.UK", PublicSuffix.getRegistrableDomain("www.Example.co.UK."));
+    assertTrue(PublicSuffix.isPublicSuffix("co.uk"));
+    assertFalse(PublicSuffix.isPublicSuffix("example.co.uk"));
+    assertNull(PublicSuffix.getPublicSuffix(""));
+    assertNull(PublicSuffix.getRegistrableDomain("example..com"));
+    PublicSuffix.waitUntilNoThread();
+  }
+
+  /**
+   * A snapshot may be loaded from local rules.
+   */
+  @org.junit.Test
+  public void testLoadFromReader() throws IOException {
+    PublicSuffix.Snapshot snapshot = PublicSuffix.Snapshot.loadFromReader(
+        new StringReader("// Comment\n\nuk\nco.uk  trailing text is ignored\n"),
+        System.currentTimeMillis(),
+        false
+    );
+    assertEquals(2, snapshot.getRules().size());
+    assertEquals("example.co.uk", snapshot.getRegistrableDomain("www.example.co.uk"));
+    assertEquals("com", snapshot.getPublicSuffix("www.example.com"));
+  }
+
+  /**
+   * A {@code 304 Not Modified} response reuses the compiled rules of the current snapshot.
+   */
+  @org.junit.Test
+  public void testConditionalFetch() throws IOException {
+    PublicSuffix.Snapshot current = PublicSuffix.Snapshot.loadFromReader(
+        new StringReader("uk\n"),
+        1000,
+        false
+    );
+    byte[] body = "// Updated\nuk\nco.uk\n".getBytes(StandardCharsets.UTF_8);
+    try (LocalHttpServer server = new LocalHttpServer((method, path, headers, out) -> {
+      if ("\"v2\"".equals(headers.get("if-none-match"))) {
+        LocalHttpServer.respond(out, 304, "Not Modified", null);
+      } else {
+        LocalHttpServer.respond(out, 200, "OK", body, "ETag: \"v2\"");
+      }
+    })) {
+      PublicSuffix.Snapshot first = PublicSuffix.fetch(server.getUrl("/public_suffix_list.dat"), current, 2000);
+      assertEquals(2, first.getRules().size());
+      assertEquals("example.co.uk", first.getRegistrableDomain("www.example.co.uk"));
+      PublicSuffix.Snapshot second = PublicSuffix.fetch(server.getUrl("/public_suffix_list.dat"), first, 3000);
+      assertSame(first.getRules(), second.getRules());
+      assertEquals(3000, second.getLastUpdatedTime());
+      assertEquals("example.co.uk", second.getRegistrableDomain("www.example.co.uk"));
+      assertEquals(2, server.getRequestCount());
+    }
+  }
+
+  /**
+   * A snapshot may be stored and loaded with its compiled trie.
+   */
+  @org.junit.Test
+  public void testStore() throws IOException {
+    PublicSuffix.Snapshot snapshot = PublicSuffix.Snapshot.loadFromReader(
+        new StringReader("uk\nco.uk\n*.ck\n!www.ck\n\u0440\u0444\n"),
+        System.currentTimeMillis(),
+        false
+    );
+    Path file = Files.createTempFile("PublicSuffixTest", ".bin");
+    try {
+      snapshot.saveToFile(file);
+      PublicSuffix.Snapshot loaded = PublicSuffix.Snapshot.loadFromFile(file);
+      assertEquals(snapshot.getRules(), loaded.getRules());
+      assertEquals(snapshot.getLastUpdatedTime(), loaded.getLastUpdatedTime());
+      assertEquals("example.co.uk", loaded.getRegistrableDomain("www.example.co.uk"));
+      assertEquals("www.ck", loaded.getRegistrableDomain("www.www.ck"));
+      assertEquals("a.b.ck", loaded.getRegistrableDomain("a.b.ck"));
+      assertEquals("example.xn--p1ai", loaded.getRegistrableDomain("www.example.xn--p1ai"));
+      assertTrue(loaded.isPublicSuffix("\u0420\u0424"));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * The bootstrap snapshot compiled by the build matches the bundled list.
+   */
+  @org.junit.Test
+  public void testCompiledBootstrap() throws IOException {
+    System.out.println("compiledBootstrap");
+    long startNanos = System.nanoTime();
+    PublicSuffix.Snapshot parsed = PublicSuffix.parseBootstrap();
+    System.out.println("\tparse elapsed = " + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos) + " \u00B5s");
+    startNanos = System.nanoTime();
+    PublicSuffix.Snapshot compiled = PublicSuffix.loadCompiledBootstrap();
+    System.out.println("\tcompiled elapsed = " + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos) + " \u00B5s");
+    assertNotNull("Compiled bootstrap not in build output", compiled);
+    assertTrue(compiled.isBootstrap());
+    assertEquals(parsed.getRules(), compiled.getRules());
+    assertEquals(parsed.getLastUpdatedTime(), compiled.getLastUpdatedTime());
+    assertEquals(parsed.getLastUpdateSuccessful(), compiled.getLastUpdateSuccessful());
+    assertEquals(parsed.getLastSuccessfulUpdateTime(), compiled.getLastSuccessfulUpdateTime());
+      assertEquals(parsed.getPublicSuffix("www.example.co.uk"), compiled.getPublicSuffix("www.example.co.uk"));
+    // Compiles the same content
+    Path directory = Files.createTempDirectory("PublicSuffixTest");
+    try {
+      PublicSuffix.compileBootstrap(directory);
+      Path file = directory.resolve(PublicSuffix.BOOTSTRAP_RESOURCE);
+      assertEquals(compiled.getRules(), PublicSuffix.Snapshot.loadFromFile(file).getRules());
+      Files.delete(file);
+    } finally {
+      Files.delete(directory);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests {@link StringPool}.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class StringPoolTest {
+
+  @org.junit.Test
+  @SuppressWarnings("RedundantStringConstructorCall")
+  public void testCanonicalize() {
+    System.out.println("canonicalize");
+    StringPool pool = new StringPool();
+    String first = new String("COM");
+    assertSame(first, pool.canonicalize(first));
+    assertSame(first, pool.canonicalize(new String("COM")));
+    assertSame(first, pool.canonicalize("COM"));
+    String other = new String("NET");
+    assertSame(other, pool.canonicalize(other));
+    assertEquals(2, pool.size());
+  }
+
+  /**
+   * The pool does not use the JVM string table.
+   */
+  @org.junit.Test
+  @SuppressWarnings("RedundantStringConstructorCall")
+  public void testNotInterned() {
+    System.out.println("notInterned");
+    StringPool pool = new StringPool();
+    String canonical = pool.canonicalize(new String("ORG"));
+    assertNotSame("ORG", canonical);
+    assertSame(canonical, pool.canonicalize("ORG"));
+  }
+
+  /**
+   * Threads canonicalizing equal strings at once all get the same instance.
+   */
+  @org.junit.Test
+  @SuppressWarnings("RedundantStringConstructorCall")
+  public void testConcurrent() throws InterruptedException {
+    System.out.println("concurrent");
+    final String[] values = {"COM", "NET", "ORG", "XN--P1AI"};
+    final int numThreads = 4;
+    final StringPool pool = new StringPool();
+    final String[][] results = new String[numThreads][values.length];
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Throwable> failures = new CopyOnWriteArrayList<>();
+    Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final int threadNum = t;
+      threads[t] = new Thread(() -> {
+        try {
+          start.await();
+          for (int i = 0; i < values.length; i++) {
+            results[threadNum][i] = pool.canonicalize(new String(values[i]));
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (Throwable t2) {
+          failures.add(t2);
+        }
+      });
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(Collections.emptyList(), failures);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(values[i], results[0][i]);
+      for (int t = 1; t < numThreads; t++) {
+        assertSame(results[0][i], results[t][i]);
+      }
+    }
+    assertEquals(values.length, pool.size());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+/**
+ * Tests {@link SuffixTrie} with a small set of local rules.
+ */
+public class SuffixTrieTest {
+
+  private static final SuffixTrie trie = new SuffixTrie(Arrays.asList(
+      "com",
+      "uk",
+      "co.uk",
+      "*.ck",
+      "!www.ck",
+      "jp",
+      "*.kobe.jp",
+      "!city.kobe.jp",
+      "\u516c\u53f8.cn"
+  ));
+
+  /**
+   * Gets the public suffix and registrable domain, separated by a space, or {@code "-"} when not found.
+   */
+  private static String find(String hostname) {
+    long found = trie.find(hostname, 0, hostname.length());
+    if (found == -1) {
+      return "-";
+    }
+    int suffixStart = (int) (found >>> 32);
+    int domainStart = (int) found;
+    int end = hostname.endsWith(".") ? hostname.length() - 1 : hostname.length();
+    return hostname.substring(suffixStart, end) + " " + (domainStart == -1 ? null : hostname.substring(domainStart, end));
+  }
+
+  /**
+   * Normal, multi-label, and default rules.
+   */
+  @org.junit.Test
+  public void testRules() {
+    assertEquals("com null", find("com"));
+    assertEquals("com example.com", find("example.com"));
+    assertEquals("COM example.COM", find("www.example.COM."));
+    assertEquals("co.uk null", find("co.uk"));
+    assertEquals("co.uk example.co.uk", find("a.b.example.co.uk"));
+    assertEquals("uk example.uk", find("www.example.uk"));
+    // Default rule "*"
+    assertEquals("notlisted null", find("notlisted"));
+    assertEquals("notlisted example.notlisted", find("www.example.notlisted"));
+  }
+
+  /**
+   * Wildcard and exception rules.
+   */
+  @org.junit.Test
+  public void testWildcards() {
+    assertEquals("ck null", find("ck"));
+    assertEquals("test.ck null", find("test.ck"));
+    assertEquals("test.ck b.test.ck", find("a.b.test.ck"));
+    assertEquals("ck www.ck", find("www.ck"));
+    assertEquals("ck www.ck", find("www.www.ck"));
+    assertEquals("c.kobe.jp b.c.kobe.jp", find("b.c.kobe.jp"));
+    assertEquals("kobe.jp city.kobe.jp", find("www.city.kobe.jp"));
+  }
+
+  /**
+   * Internationalized rules match in either form.
+   */
+  @org.junit.Test
+  public void testIdn() {
+    assertEquals("\u516c\u53f8.cn null", find("\u516c\u53f8.cn"));
+    assertEquals("\u516c\u53f8.cn \u98df\u72ee.\u516c\u53f8.cn", find("www.\u98df\u72ee.\u516c\u53f8.cn"));
+    assertEquals("xn--55qx5d.cn shishi.xn--55qx5d.cn", find("www.shishi.xn--55qx5d.cn"));
+    assertEquals("\u516c\u53f8\u3002cn a\u3002\u516c\u53f8\u3002cn", find("a\u3002\u516c\u53f8\u3002cn"));
+  }
+
+  /**
+   * Empty hostnames and labels are rejected.
+   */
+  @org.junit.Test
+  public void testInvalid() {
+    assertEquals("-", find(""));
+    assertEquals("-", find("."));
+    assertEquals("-", find("example..com"));
+    assertEquals("-", find("example.com.."));
+    assertEquals("-", find(".com"));
+  }
+
+  /**
+   * Malformed rules are rejected.
+   */
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void testMalformed() {
+    new SuffixTrie(Arrays.asList("com", "a.*.com"));
+  }
+}
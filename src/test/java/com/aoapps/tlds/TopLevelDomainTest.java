@@ -1,6 +1,6 @@
 /*
  * ao-tlds - Self-updating Java API to get top-level domains.
- * Copyright (C) 2016, 2020, 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2016, 2020, 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,10 +23,36 @@
 
 package com.aoapps.tlds;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * Tests {@link TopLevelDomain}.
@@ -93,4 +119,613 @@ public class TopLevelDomainTest {
     assertTrue(result >= 0);
     TopLevelDomain.waitUntilNoThread();
   }
+
+  /**
+   * Test of indexOfTopLevelDomain and getByHostname methods, of class TopLevelDomain.
+   */
+  @org.junit.Test
+  public void testHostname() throws InterruptedException {
+    System.out.println("hostname");
+    assertEquals(12, TopLevelDomain.indexOfTopLevelDomain("www.example.com"));
+    assertEquals(12, TopLevelDomain.indexOfTopLevelDomain("www.example.COM."));
+    assertEquals(0, TopLevelDomain.indexOfTopLevelDomain("Net"));
+    assertEquals(0, TopLevelDomain.indexOfTopLevelDomain("net."));
+    assertEquals(-1, TopLevelDomain.indexOfTopLevelDomain("www.example.notatld"));
+    assertEquals(-1, TopLevelDomain.indexOfTopLevelDomain("www.example.com.."));
+    assertEquals(-1, TopLevelDomain.indexOfTopLevelDomain("."));
+    assertEquals(-1, TopLevelDomain.indexOfTopLevelDomain(""));
+    assertEquals(-1, TopLevelDomain.indexOfTopLevelDomain("example.thisisalabellongerthananytopleveldomaincouldeverpossiblybe"));
+    assertEquals(17, TopLevelDomain.indexOfTopLevelDomain("user@www.example.org>", 5, 20));
+    assertEquals("COM", TopLevelDomain.getByHostname("www.example.Com."));
+    assertEquals("ORG", TopLevelDomain.getByHostname("org"));
+    assertNull(TopLevelDomain.getByHostname("localhost"));
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * Test of the byte[] and ByteBuffer lookup methods, of class TopLevelDomain.
+   */
+  @org.junit.Test
+  public void testBytes() throws InterruptedException {
+    System.out.println("bytes");
+    byte[] packet = "??www.Example.CoM.??".getBytes(StandardCharsets.US_ASCII);
+    assertEquals("COM", TopLevelDomain.getByLabel(packet, 14, 3));
+    assertNull(TopLevelDomain.getByLabel(packet, 14, 4));
+    assertEquals(14, TopLevelDomain.indexOfTopLevelDomain(packet, 2, 16));
+    assertEquals(14, TopLevelDomain.indexOfTopLevelDomain(packet, 2, 15));
+    assertEquals(-1, TopLevelDomain.indexOfTopLevelDomain(packet, 2, 17));
+    assertEquals("COM", TopLevelDomain.getByHostname(packet, 2, 16));
+    assertNull(TopLevelDomain.getByLabel(new byte[] {'c', (byte) 0xC3, (byte) 0xB6, 'm'}, 0, 4));
+    for (ByteBuffer buffer : new ByteBuffer[] {ByteBuffer.wrap(packet), ByteBuffer.allocateDirect(packet.length).put(packet)}) {
+      buffer.limit(18).position(2);
+      assertEquals(14, TopLevelDomain.indexOfTopLevelDomain(buffer));
+      assertEquals("COM", TopLevelDomain.getByHostname(buffer));
+      assertEquals(2, buffer.position());
+      assertEquals(18, buffer.limit());
+      buffer.position(14).limit(17);
+      assertEquals("COM", TopLevelDomain.getByLabel(buffer));
+      assertEquals(14, buffer.position());
+    }
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * Test of the internationalized (Unicode) lookups, of class TopLevelDomain.
+   */
+  @org.junit.Test
+  public void testIdn() throws InterruptedException {
+    System.out.println("idn");
+    // "\u0440\u0444" is XN--P1AI
+    assertEquals("XN--P1AI", TopLevelDomain.getByLabel("\u0440\u0444"));
+    assertEquals("XN--P1AI", TopLevelDomain.getByLabel("\u0420\u0424"));
+    assertEquals("XN--P1AI", TopLevelDomain.getByLabel("xn--p1ai"));
+    TopLevelDomain.Match match = TopLevelDomain.findByLabel("\u0420\u0444");
+    assertEquals("XN--P1AI", match.getTopLevelDomain());
+    assertEquals("\u0440\u0444", match.getUnicode());
+    assertTrue(match.isUnicode());
+    match = TopLevelDomain.findByLabel("Xn--P1ai");
+    assertEquals("XN--P1AI", match.getTopLevelDomain());
+    assertEquals("\u0440\u0444", match.getUnicode());
+    assertFalse(match.isUnicode());
+    match = TopLevelDomain.findByLabel("com");
+    assertEquals("COM", match.getUnicode());
+    assertFalse(match.isUnicode());
+    assertNull(TopLevelDomain.findByLabel("\u212Aim"));
+    // Hostnames, including the ideographic full stop
+    String hostname = "\u043f\u0440\u0438\u043c\u0435\u0440.\u0440\u0444";
+    assertEquals(7, TopLevelDomain.indexOfTopLevelDomain(hostname));
+    assertEquals("XN--P1AI", TopLevelDomain.getByHostname(hostname));
+    assertTrue(TopLevelDomain.findByHostname(hostname + '.').isUnicode());
+    assertEquals("XN--J1AMH", TopLevelDomain.getByHostname("\u4f8b\u3002\u0443\u043a\u0440\u3002"));
+    // UTF-8 bytes match the lower-case Unicode form
+    byte[] utf8 = hostname.getBytes(StandardCharsets.UTF_8);
+    assertEquals("XN--P1AI", TopLevelDomain.getByHostname(utf8, 0, utf8.length));
+    assertEquals(13, TopLevelDomain.indexOfTopLevelDomain(utf8, 0, utf8.length));
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * Test of the batch methods, of class TopLevelDomain, including batches large enough to be split.
+   */
+  @org.junit.Test
+  public void testBatch() throws InterruptedException {
+    System.out.println("batch");
+    String[] labels = {"com", "NET", "notatld", "Org"};
+    String[] expected = {"COM", "NET", null, "ORG"};
+    String[] results = new String[labels.length];
+    TopLevelDomain.getByLabels(labels, results);
+    assertArrayEquals(expected, results);
+    Arrays.fill(results, null);
+    TopLevelDomain.getByLabels(new LinkedList<>(Arrays.asList(labels)), results);
+    assertArrayEquals(expected, results);
+    assertArrayEquals(expected, TopLevelDomain.getByLabels(Arrays.stream(labels)).toArray(String[]::new));
+    // Large enough to be split across the common pool
+    int size = 100_000;
+    String[] hostnames = new String[size];
+    for (int i = 0; i < size; i++) {
+      hostnames[i] = "host" + i + ".example." + labels[i % labels.length];
+    }
+    results = new String[size];
+    TopLevelDomain.getByHostnames(Arrays.asList(hostnames), results);
+    for (int i = 0; i < size; i++) {
+      assertEquals(expected[i % expected.length], results[i]);
+    }
+    assertEquals(
+        size / labels.length,
+        TopLevelDomain.getByHostnames(Arrays.stream(hostnames).parallel()).filter("COM"::equals).count()
+    );
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * Batch results must be at least as long as the input.
+   */
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void testBatchResultsTooSmall() {
+    TopLevelDomain.getByLabels(new String[] {"com", "net"}, new String[1]);
+  }
+
+  /**
+   * Test of startScheduledUpdates method, of class TopLevelDomain.
+   */
+  @org.junit.Test
+  public void testScheduledUpdates() throws InterruptedException {
+    System.out.println("scheduledUpdates");
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    executor.setRemoveOnCancelPolicy(true);
+    try {
+      TopLevelDomain.startScheduledUpdates(executor);
+      try {
+        assertTrue(TopLevelDomain.isScheduledUpdates());
+        try {
+          TopLevelDomain.startScheduledUpdates(executor);
+          fail("Started twice");
+        } catch (IllegalStateException e) {
+          // Expected
+        }
+        // Wait for the first run to complete and reschedule
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (executor.getCompletedTaskCount() < 1 && System.currentTimeMillis() < deadline) {
+          Thread.sleep(10);
+        }
+        assertEquals(1, executor.getCompletedTaskCount());
+        assertEquals(1, executor.getQueue().size());
+        assertFalse(TopLevelDomain.getTopLevelDomains().isEmpty());
+      } finally {
+        TopLevelDomain.stopScheduledUpdates();
+      }
+      assertFalse(TopLevelDomain.isScheduledUpdates());
+      assertEquals(0, executor.getQueue().size());
+    } finally {
+      executor.shutdown();
+    }
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * Test of conditional download, of class TopLevelDomain.
+   */
+  @org.junit.Test
+  public void testConditionalFetch() throws IOException, InterruptedException {
+    System.out.println("conditionalFetch");
+    byte[] body = "# Version 2026101700, Last Updated Sat Oct 17 07:07:01 2026 UTC\nCOM\nNET\nORG\n".getBytes(StandardCharsets.US_ASCII);
+    List<Map<String, String>> requests = new CopyOnWriteArrayList<>();
+    try (LocalHttpServer server = new LocalHttpServer((method, path, headers, out) -> {
+      requests.add(headers);
+      if ("\"v1\"".equals(headers.get("if-none-match"))) {
+        LocalHttpServer.respond(out, 304, "Not Modified", null, "ETag: \"v1\"");
+      } else {
+        LocalHttpServer.respond(out, 200, "OK", body,
+            "Content-Type: text/plain; charset=us-ascii",
+            "ETag: \"v1\"",
+            "Last-Modified: Sat, 17 Oct 2026 07:07:01 GMT");
+      }
+    })) {
+      TopLevelDomain.Snapshot first = TopLevelDomain.fetch(server.getUrl("/tlds-alpha-by-domain.txt"), TopLevelDomain.getSnapshot(), 1000);
+      assertEquals(Arrays.asList("COM", "NET", "ORG"), first.getTopLevelDomains());
+      assertNull(requests.get(0).get("if-none-match"));
+      TopLevelDomain.Snapshot second = TopLevelDomain.fetch(server.getUrl("/tlds-alpha-by-domain.txt"), first, 2000);
+      assertEquals("\"v1\"", requests.get(1).get("if-none-match"));
+      assertEquals("Sat, 17 Oct 2026 07:07:01 GMT", requests.get(1).get("if-modified-since"));
+      assertSame(first.getTopLevelDomains(), second.getTopLevelDomains());
+      assertEquals(2000, second.getLastUpdatedTime());
+      assertEquals(2000, second.getLastSuccessfulUpdateTime());
+      assertTrue(second.getLastUpdateSuccessful());
+      assertEquals("NET", second.getByLabel("net"));
+    }
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * Number of lookups performed by each thread in {@link #testGetByLabelConcurrent()}.
+   */
+  private static final int CONCURRENT_LOOKUPS = 10_000;
+
+  /**
+   * Checks the results of {@link TopLevelDomain#getByLabel(java.lang.String)} while called concurrently by several
+   * threads.  Throughput is measured by {@code GetSnapshotBenchmark}.
+   */
+  @org.junit.Test
+  public void testGetByLabelConcurrent() throws InterruptedException {
+    System.out.println("getByLabelConcurrent");
+    final String[] labels = {"com", "NET", "Org", "notatld", "xn--p1ai", "co"};
+    final int numThreads = 4;
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Throwable> failures = new CopyOnWriteArrayList<>();
+    Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final int threadNum = t;
+      threads[t] = new Thread(() -> {
+        try {
+          start.await();
+          for (int i = 0; i < CONCURRENT_LOOKUPS; i++) {
+            String label = labels[(threadNum + i) % labels.length];
+            String tld = TopLevelDomain.getByLabel(label);
+            if ((tld == null) != "notatld".equals(label) || (tld != null && !tld.equalsIgnoreCase(label))) {
+              throw new AssertionError("Unexpected result for " + label + ": " + tld);
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (Throwable t2) {
+          failures.add(t2);
+        }
+      });
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(Collections.emptyList(), failures);
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * Test of the snapshot store, of class TopLevelDomain.
+   */
+  @org.junit.Test
+  public void testStore() throws IOException, InterruptedException {
+    System.out.println("store");
+    Path directory = Files.createTempDirectory("TopLevelDomainTest");
+    try {
+      Path file = directory.resolve("tlds-alpha-by-domain.bin");
+      assertNull(TopLevelDomain.Snapshot.loadFromFile(file));
+      TopLevelDomain.Snapshot snapshot = TopLevelDomain.getSnapshot();
+      snapshot.saveToFile(file);
+      try (Stream<Path> files = Files.list(directory)) {
+        assertEquals("Temporary file left behind", 1, files.count());
+      }
+      System.out.println("\tsize = " + Files.size(file));
+      TopLevelDomain.Snapshot loaded = TopLevelDomain.Snapshot.loadFromFile(file);
+      assertEquals(snapshot.getTopLevelDomains(), loaded.getTopLevelDomains());
+      assertEquals(snapshot.getComments(), loaded.getComments());
+      assertEquals(snapshot.getLastUpdatedTime(), loaded.getLastUpdatedTime());
+      assertEquals(snapshot.getLastUpdateSuccessful(), loaded.getLastUpdateSuccessful());
+      assertEquals(snapshot.getLastSuccessfulUpdateTime(), loaded.getLastSuccessfulUpdateTime());
+      for (String topLevelDomain : snapshot.getTopLevelDomains()) {
+        assertSame(topLevelDomain, loaded.getByLabel(topLevelDomain.toLowerCase(Locale.ROOT)));
+      }
+      TopLevelDomain.Match match = loaded.findByLabel("\u0420\u0444");
+      assertEquals("XN--P1AI", match.getTopLevelDomain());
+      assertEquals("\u0440\u0444", match.getUnicode());
+      assertTrue(match.isUnicode());
+      assertFalse(loaded.findByLabel("xn--p1ai").isUnicode());
+      assertEquals("COM", loaded.getByHostname("www.example.com"));
+      // Replaced atomically
+      loaded.saveToFile(file);
+      assertEquals(snapshot.getTopLevelDomains(), TopLevelDomain.Snapshot.loadFromFile(file).getTopLevelDomains());
+      // Truncated
+      byte[] bytes = Files.readAllBytes(file);
+      Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+      assertNull(TopLevelDomain.Snapshot.loadFromFile(file));
+      // A different list
+      PublicSuffix.getSnapshot().saveToFile(file);
+      assertNull(TopLevelDomain.Snapshot.loadFromFile(file));
+      PublicSuffix.waitUntilNoThread();
+    } finally {
+      try (Stream<Path> files = Files.list(directory)) {
+        for (Path file : (Iterable<Path>) files::iterator) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(directory);
+    }
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * The compact content splits lines as {@link java.io.BufferedReader#readLine()}, ignoring blank lines, materializes
+   * the top level domains as used, and survives the store.
+   */
+  @org.junit.Test
+  public void testCompactContent() throws IOException, InterruptedException {
+    System.out.println("compactContent");
+    Path file = Files.createTempFile("TopLevelDomainTest", ".txt");
+    try {
+      Files.write(file, "# Version 2026101700\r\nCOM\r\nNET\rXN--P1AI\n\n# Last\nORG".getBytes(StandardCharsets.US_ASCII));
+      TopLevelDomain.Snapshot snapshot = TopLevelDomain.fetch(file.toUri().toURL(), TopLevelDomain.getSnapshot(), 1000);
+      assertEquals(Arrays.asList("COM", "NET", "XN--P1AI", "ORG"), snapshot.getTopLevelDomains());
+      assertEquals(Arrays.asList("# Version 2026101700", "# Last"), snapshot.getComments());
+      assertSame(snapshot.getComments(), snapshot.getComments());
+      assertSame(snapshot.getByLabel("org"), snapshot.getTopLevelDomains().get(3));
+      assertSame(snapshot.getTopLevelDomains().get(2), snapshot.getByLabel("\u0420\u0424"));
+      assertSame(snapshot.findByLabel("xn--p1ai").getTopLevelDomain(), snapshot.findByLabel("\u0440\u0444").getTopLevelDomain());
+      assertSame(snapshot.findByLabel("Com"), snapshot.findByLabel("COM"));
+      assertNull(snapshot.getByLabel("# Last"));
+      try {
+        snapshot.getTopLevelDomains().get(4);
+        fail("Out of bounds element returned");
+      } catch (IndexOutOfBoundsException e) {
+        // Expected
+      }
+      Files.delete(file);
+      snapshot.saveToFile(file);
+      TopLevelDomain.Snapshot loaded = TopLevelDomain.Snapshot.loadFromFile(file);
+      assertEquals(snapshot.getTopLevelDomains(), loaded.getTopLevelDomains());
+      assertEquals(snapshot.getComments(), loaded.getComments());
+      assertEquals("XN--P1AI", loaded.getByHostname("example.\u0440\u0444"));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  private static void assertRejected(String list, String expectedMessage) throws IOException {
+    Path file = Files.createTempFile("TopLevelDomainTest", ".txt");
+    try {
+      Files.write(file, list.getBytes(StandardCharsets.UTF_8));
+      TopLevelDomain.fetch(file.toUri().toURL(), TopLevelDomain.getSnapshot(), 1000);
+      fail("Malformed list accepted");
+    } catch (IOException e) {
+      System.out.println("\t" + e.getMessage());
+      assertTrue(e.getMessage(), e.getMessage().contains(expectedMessage));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Malformed and oversized lists are rejected while reading.
+   */
+  @org.junit.Test
+  public void testRejectMalformed() throws IOException, InterruptedException {
+    System.out.println("rejectMalformed");
+    assertRejected("# Version 1\nCOM\nNOT A TLD\nNET\n", "line 3");
+    assertRejected("COM\n-NET\n", "line 2");
+    assertRejected("COM\nNET-\n", "line 2");
+    assertRejected("COM\n\u0440\u0444\n", "line 2");
+    char[] label = new char[64];
+    Arrays.fill(label, 'A');
+    assertRejected("COM\n" + new String(label) + "\n", "line 2");
+    char[] comment = new char[2000];
+    Arrays.fill(comment, 'x');
+    comment[0] = '#';
+    assertRejected("COM\n" + new String(comment) + "\n", "exceeds maximum length");
+    StringBuilder huge = new StringBuilder();
+    while (huge.length() <= (1 << 20)) {
+      huge.append("COM\n");
+    }
+    assertRejected(huge.toString(), "exceeds maximum length");
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * An unchanged top level domain is the same instance in the old and new snapshots.
+   */
+  @org.junit.Test
+  public void testCanonicalAcrossSnapshots() throws IOException, InterruptedException {
+    System.out.println("canonicalAcrossSnapshots");
+    Path file = Files.createTempFile("TopLevelDomainTest", ".txt");
+    try {
+      Files.write(file, "# Version 1\nCOM\nNET\n".getBytes(StandardCharsets.US_ASCII));
+      TopLevelDomain.Snapshot first = TopLevelDomain.fetch(file.toUri().toURL(), TopLevelDomain.getSnapshot(), 1000);
+      String net = first.getByLabel("net");
+      Files.write(file, "# Version 2\nCOM\nNET\nORG\n".getBytes(StandardCharsets.US_ASCII));
+      TopLevelDomain.Snapshot second = TopLevelDomain.fetch(file.toUri().toURL(), first, 2000);
+      assertSame(net, second.getTopLevelDomains().get(1));
+      assertSame(net, second.getByLabel("NET"));
+      assertSame(first.getTopLevelDomains().get(0), second.getByLabel("com"));
+    } finally {
+      Files.delete(file);
+    }
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * Test of startFileUpdates method, of class TopLevelDomain.
+   */
+  @org.junit.Test
+  public void testFileUpdates() throws IOException, InterruptedException {
+    System.out.println("fileUpdates");
+    TopLevelDomain.getSnapshot();
+    TopLevelDomain.waitUntilNoThread();
+    final TopLevelDomain.Snapshot original = TopLevelDomain.getSnapshot();
+    StringBuilder list = new StringBuilder();
+    for (String comment : original.getComments()) {
+      list.append(comment).append('\n');
+    }
+    for (String topLevelDomain : original.getTopLevelDomains()) {
+      list.append(topLevelDomain).append('\n');
+    }
+    Path directory = Files.createTempDirectory("TopLevelDomainTest");
+    Path file = directory.resolve("tlds-alpha-by-domain.txt");
+    Path temp = directory.resolve("tlds-alpha-by-domain.txt.tmp");
+    // Isolated from the storage of other tests, to verify nothing is saved
+    Path store = directory.resolve("store");
+    System.setProperty(SnapshotStore.DIRECTORY_PROPERTY, store.toString());
+    BlockingQueue<TopLevelDomain.SnapshotChange> changes = new LinkedBlockingQueue<>();
+    TopLevelDomain.SnapshotListener listener = changes::add;
+    TopLevelDomain.addSnapshotListener(listener);
+    try {
+      Files.write(file, (list + "ZZFILETEST\n").getBytes(StandardCharsets.UTF_8));
+      TopLevelDomain.startFileUpdates(file);
+      try {
+        assertTrue(TopLevelDomain.isFileUpdates());
+        try {
+          TopLevelDomain.startFileUpdates(file);
+          fail("Started twice");
+        } catch (IllegalStateException e) {
+          // Expected
+        }
+        try {
+          TopLevelDomain.startScheduledUpdates();
+          fail("Scheduled updates started with file updates");
+        } catch (IllegalStateException e) {
+          // Expected
+        }
+        // Parsed immediately
+        TopLevelDomain.SnapshotChange change = changes.poll(60, TimeUnit.SECONDS);
+        assertNotNull(change);
+        assertEquals(Arrays.asList("ZZFILETEST"), change.getAdded());
+        assertEquals("ZZFILETEST", TopLevelDomain.getByLabel("zzfiletest"));
+        assertEquals("ZZFILETEST", TopLevelDomain.getByLabel("zzfiletest", Instant.now()));
+        // Replaced by atomic rename
+        long startNanos = System.nanoTime();
+        Files.write(temp, list.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        change = changes.poll(60, TimeUnit.SECONDS);
+        System.out.println("\tlatency = " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms");
+        assertNotNull(change);
+        assertEquals(Arrays.asList("ZZFILETEST"), change.getRemoved());
+        assertNull(TopLevelDomain.getByLabel("zzfiletest"));
+        // Invalid file retains current snapshot
+        Files.write(file, "<html>Not a list</html>\n".getBytes(StandardCharsets.UTF_8));
+        assertNull(changes.poll(1, TimeUnit.SECONDS));
+        assertEquals(original.getTopLevelDomains(), TopLevelDomain.getTopLevelDomains());
+      } finally {
+        TopLevelDomain.stopFileUpdates();
+      }
+      assertFalse(TopLevelDomain.isFileUpdates());
+      // Neither the snapshots nor their history are saved
+      assertFalse(Files.exists(store));
+    } finally {
+      TopLevelDomain.removeSnapshotListener(listener);
+      System.clearProperty(SnapshotStore.DIRECTORY_PROPERTY);
+      Files.deleteIfExists(temp);
+      Files.deleteIfExists(file);
+      Files.delete(directory);
+    }
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * Test of getByPrefix method, of class TopLevelDomain.
+   */
+  @org.junit.Test
+  public void testGetByPrefix() throws InterruptedException {
+    System.out.println("getByPrefix");
+    TopLevelDomain.Snapshot snapshot = TopLevelDomain.getSnapshot();
+    List<String> result = snapshot.getByPrefix("Co");
+    System.out.println("\tresult = " + result);
+    assertEquals("CO", result.get(0));
+    for (String topLevelDomain : result) {
+      assertTrue(topLevelDomain.toLowerCase(Locale.ROOT).startsWith("co"));
+      assertSame(snapshot.getByLabel(topLevelDomain), topLevelDomain);
+    }
+    long expected = snapshot.getTopLevelDomains().stream()
+        .filter(topLevelDomain -> topLevelDomain.toLowerCase(Locale.ROOT).startsWith("co"))
+        .count();
+    assertEquals(expected, result.size());
+    assertEquals(snapshot.getTopLevelDomains().size(), snapshot.getByPrefix("").size());
+    assertEquals(Arrays.asList("COM"), snapshot.getByPrefix("www.com", 4, 7).subList(0, 1));
+    assertTrue(snapshot.getByPrefix("notatld").isEmpty());
+    // Unicode form only searched with non-ASCII prefix
+    assertEquals(Arrays.asList("XN--P1AI"), snapshot.getByPrefix("\u0420\u0444"));
+    assertTrue(snapshot.getByPrefix("xn--p1").contains("XN--P1AI"));
+    try {
+      result.add("TEST");
+      fail("Modifiable view");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+    assertEquals(result, TopLevelDomain.getByPrefix("co"));
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * Test of getByLabel method with a time, of class TopLevelDomain.
+   */
+  @org.junit.Test
+  public void testHistory() throws InterruptedException {
+    System.out.println("history");
+    TopLevelDomain.getSnapshot();
+    TopLevelDomain.waitUntilNoThread();
+    Instant start = TopLevelDomain.getHistoryStart();
+    System.out.println("\tstart = " + start);
+    assertTrue(start.toEpochMilli() <= TopLevelDomain.getLastSuccessfulUpdateTime());
+    assertEquals("COM", TopLevelDomain.getByLabel("com", Instant.now()));
+    assertEquals("COM", TopLevelDomain.getByLabel("Com", start));
+    assertEquals("COM", TopLevelDomain.getByLabel("com", Instant.MAX));
+    assertNull(TopLevelDomain.getByLabel("com", start.minusMillis(1)));
+    assertNull(TopLevelDomain.getByLabel("com", Instant.MIN));
+    assertNull(TopLevelDomain.getByLabel("notatld", Instant.now()));
+    // Unicode form
+    assertEquals("XN--P1AI", TopLevelDomain.getByLabel("\u0440\u0444", Instant.now()));
+  }
+
+  /**
+   * Test of SnapshotChange, of class TopLevelDomain.
+   */
+  @org.junit.Test
+  public void testSnapshotChange() throws IOException, InterruptedException {
+    System.out.println("snapshotChange");
+    Path file = Files.createTempFile("TopLevelDomainTest", ".txt");
+    try {
+      Files.write(file, "# Version 1\nCOM\nNET\nBIZ\nInfo\n".getBytes(StandardCharsets.US_ASCII));
+      TopLevelDomain.Snapshot first = TopLevelDomain.fetch(file.toUri().toURL(), TopLevelDomain.getSnapshot(), 1000);
+      Files.write(file, "# Version 2\nORG\nCOM\nINFO\nAERO\n".getBytes(StandardCharsets.US_ASCII));
+      TopLevelDomain.Snapshot second = TopLevelDomain.fetch(file.toUri().toURL(), first, 2000);
+      TopLevelDomain.SnapshotChange change = new TopLevelDomain.SnapshotChange(first, second);
+      assertSame(first, change.getOldSnapshot());
+      assertSame(second, change.getNewSnapshot());
+      assertEquals(Arrays.asList("ORG", "AERO"), change.getAdded());
+      assertEquals(Arrays.asList("NET", "BIZ"), change.getRemoved());
+      assertEquals(Arrays.asList("INFO"), change.getCaseChanged());
+      assertTrue(change.isListChanged());
+      // Same content
+      TopLevelDomain.Snapshot third = TopLevelDomain.fetch(file.toUri().toURL(), second, 3000);
+      change = new TopLevelDomain.SnapshotChange(second, third);
+      assertTrue(change.getAdded().isEmpty());
+      assertTrue(change.getRemoved().isEmpty());
+      assertTrue(change.getCaseChanged().isEmpty());
+      assertFalse(change.isListChanged());
+      // Listeners are notified in order, and a failing listener does not prevent others
+      List<TopLevelDomain.SnapshotChange> changes = new CopyOnWriteArrayList<>();
+      TopLevelDomain.SnapshotListener failing = c -> {
+        throw new IllegalStateException("Test failure");
+      };
+      TopLevelDomain.SnapshotListener listener = changes::add;
+      TopLevelDomain.addSnapshotListener(failing);
+      TopLevelDomain.addSnapshotListener(listener);
+      try {
+        TopLevelDomain.fireSnapshotChanged(first, second);
+      } finally {
+        assertTrue(TopLevelDomain.removeSnapshotListener(failing));
+        assertTrue(TopLevelDomain.removeSnapshotListener(listener));
+      }
+      assertFalse(TopLevelDomain.removeSnapshotListener(listener));
+      assertEquals(1, changes.size());
+      assertEquals(Arrays.asList("ORG", "AERO"), changes.get(0).getAdded());
+      TopLevelDomain.fireSnapshotChanged(second, first);
+      assertEquals(1, changes.size());
+    } finally {
+      Files.delete(file);
+    }
+    TopLevelDomain.waitUntilNoThread();
+  }
+
+  /**
+   * The bootstrap snapshot compiled by the build matches the bundled list.
+   */
+  @org.junit.Test
+  public void testCompiledBootstrap() throws IOException {
+    System.out.println("compiledBootstrap");
+    long startNanos = System.nanoTime();
+    TopLevelDomain.Snapshot parsed = TopLevelDomain.parseBootstrap();
+    System.out.println("\tparse elapsed = " + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos) + " \u00B5s");
+    startNanos = System.nanoTime();
+    TopLevelDomain.Snapshot compiled = TopLevelDomain.loadCompiledBootstrap();
+    System.out.println("\tcompiled elapsed = " + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos) + " \u00B5s");
+    assertNotNull("Compiled bootstrap not in build output", compiled);
+    assertTrue(compiled.isBootstrap());
+    assertEquals(parsed.getTopLevelDomains(), compiled.getTopLevelDomains());
+    assertEquals(parsed.getLastUpdatedTime(), compiled.getLastUpdatedTime());
+    assertEquals(parsed.getLastUpdateSuccessful(), compiled.getLastUpdateSuccessful());
+    assertEquals(parsed.getLastSuccessfulUpdateTime(), compiled.getLastSuccessfulUpdateTime());
+    for (String topLevelDomain : parsed.getTopLevelDomains()) {
+      assertSame(topLevelDomain, compiled.getByLabel(topLevelDomain.toLowerCase(Locale.ROOT)));
+    }
+    assertEquals(parsed.getComments(), compiled.getComments());
+    // Compiles the same content
+    Path directory = Files.createTempDirectory("TopLevelDomainTest");
+    try {
+      TopLevelDomain.compileBootstrap(directory);
+      Path file = directory.resolve(TopLevelDomain.BOOTSTRAP_RESOURCE);
+      assertEquals(compiled.getTopLevelDomains(), TopLevelDomain.Snapshot.loadFromFile(file).getTopLevelDomains());
+      Files.delete(file);
+    } finally {
+      Files.delete(directory);
+    }
+  }
 }
@@ -0,0 +1,202 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tests {@link UpdateLock}, including single-flight updates across multiple processes.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class UpdateLockTest {
+
+  private static final String CONTENT = "# Version 2026101700\nCOM\nNET\nORG\n";
+
+  /**
+   * The number of processes updating at once.
+   */
+  private static final int PROCESSES = 4;
+
+  /**
+   * Downloads in a separate process, printing the last updated time of the resulting snapshot.
+   *
+   * @param  args  the URL of the list
+   */
+  public static void main(String[] args) throws IOException {
+    TopLevelDomain.Snapshot snapshot = TopLevelDomain.download(
+        new HedgedSources(Collections.singletonList(new URL(args[0])), HedgedSources.DEFAULT_HEDGE_DELAY),
+        TopLevelDomain.parseBootstrap(),
+        System.currentTimeMillis()
+    );
+    System.out.println("lastUpdatedTime=" + snapshot.getLastUpdatedTime());
+    System.out.println("topLevelDomains=" + snapshot.getTopLevelDomains());
+    System.out.println("adopted=" + TopLevelDomain.getMetrics().getUpdateAdopted());
+    System.exit(snapshot.getLastUpdateSuccessful() ? 0 : 1);
+  }
+
+  private static void deleteRecursively(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @org.junit.Test
+  public void testTimeout() throws IOException, InterruptedException {
+    System.out.println("timeout");
+    Path directory = Files.createTempDirectory("UpdateLockTest");
+    try {
+      Path file = directory.resolve("test.lock");
+      try (UpdateLock lock = UpdateLock.acquire(file, 1000)) {
+        assertNotNull(lock);
+        long startNanos = System.nanoTime();
+        assertNull(UpdateLock.acquire(file, 200));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        System.out.println("\telapsed = " + elapsed + " ms");
+        assertTrue(elapsed >= 200);
+      }
+      // Released
+      try (UpdateLock lock = UpdateLock.acquire(file, 0)) {
+        assertNotNull(lock);
+      }
+    } finally {
+      deleteRecursively(directory);
+    }
+  }
+
+  /**
+   * The default directory is restricted to the user, including when it already exists.
+   */
+  @org.junit.Test
+  public void testDefaultDirectoryPermissions() throws IOException {
+    System.out.println("defaultDirectoryPermissions");
+    Path directory = Files.createTempDirectory("UpdateLockTest");
+    if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      deleteRecursively(directory);
+      System.out.println("\tPOSIX file permissions not supported");
+      return;
+    }
+    String userRoot = System.getProperty("java.util.prefs.userRoot");
+    String store = System.getProperty(SnapshotStore.DIRECTORY_PROPERTY);
+    try {
+      System.setProperty("java.util.prefs.userRoot", directory.toString());
+      System.clearProperty(SnapshotStore.DIRECTORY_PROPERTY);
+      Path lockDirectory = directory.resolve(".java").resolve("com.aoapps.tlds");
+      // Created
+      assertEquals(lockDirectory.resolve("test.lock"), UpdateLock.getFile("test.lock"));
+      assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(lockDirectory));
+      // Restricted when already existing
+      Files.setPosixFilePermissions(lockDirectory, PosixFilePermissions.fromString("rwxrwxrwx"));
+      assertEquals(lockDirectory.resolve("test.lock"), UpdateLock.getFile("test.lock"));
+      assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(lockDirectory));
+    } finally {
+      if (userRoot == null) {
+        System.clearProperty("java.util.prefs.userRoot");
+      } else {
+        System.setProperty("java.util.prefs.userRoot", userRoot);
+      }
+      if (store != null) {
+        System.setProperty(SnapshotStore.DIRECTORY_PROPERTY, store);
+      }
+      deleteRecursively(directory);
+    }
+  }
+
+  /**
+   * Multiple processes sharing a store, updating at once, download the list only once.
+   */
+  @org.junit.Test
+  public void testSingleFlightAcrossProcesses() throws IOException, InterruptedException {
+    System.out.println("singleFlightAcrossProcesses");
+    Path directory = Files.createTempDirectory("UpdateLockTest");
+    try (LocalHttpServer server = new LocalHttpServer((method, path, headers, out) -> {
+      try {
+        // Slow enough for the other processes to wait on the lock
+        Thread.sleep(500);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      LocalHttpServer.respond(out, 200, "OK", CONTENT.getBytes(StandardCharsets.US_ASCII),
+          "Content-Type: text/plain; charset=us-ascii");
+    })) {
+      List<Process> processes = new ArrayList<>();
+      for (int i = 0; i < PROCESSES; i++) {
+        processes.add(new ProcessBuilder(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"),
+            "-D" + SnapshotStore.DIRECTORY_PROPERTY + "=" + directory.resolve("store"),
+            "-Djava.util.prefs.userRoot=" + directory.resolve("prefs"),
+            UpdateLockTest.class.getName(),
+            server.getUrl("/tlds-alpha-by-domain.txt").toString()
+        ).redirectErrorStream(true).start());
+      }
+      Set<String> lastUpdatedTimes = new HashSet<>();
+      int adopted = 0;
+      for (Process process : processes) {
+        String output;
+        try (InputStream in = process.getInputStream()) {
+          output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue("Process did not exit", process.waitFor(60, TimeUnit.SECONDS));
+        assertEquals(output, 0, process.exitValue());
+        for (String line : output.split("\\R")) {
+          if (line.startsWith("lastUpdatedTime=")) {
+            lastUpdatedTimes.add(line);
+          } else if (line.startsWith("topLevelDomains=")) {
+            assertEquals("topLevelDomains=[COM, NET, ORG]", line);
+          } else if (line.startsWith("adopted=")) {
+            adopted += Integer.parseInt(line.substring("adopted=".length()));
+          }
+        }
+      }
+      System.out.println("\trequests = " + server.getRequestCount() + ", adopted = " + adopted);
+      assertEquals(1, server.getRequestCount());
+      assertEquals(PROCESSES - 1, adopted);
+      assertEquals(lastUpdatedTimes.toString(), 1, lastUpdatedTimes.size());
+    } finally {
+      deleteRecursively(directory);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * ao-tlds - Self-updating Java API to get top-level domains.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-tlds.
+ *
+ * ao-tlds is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-tlds is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-tlds.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.tlds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests {@link UpdateScheduler}.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class UpdateSchedulerTest {
+
+  /**
+   * Runs are rescheduled, bounded by the minimum delay, until cancelled.
+   */
+  @org.junit.Test
+  public void testReschedules() throws InterruptedException {
+    System.out.println("reschedules");
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    executor.setRemoveOnCancelPolicy(true);
+    try {
+      CountDownLatch runs = new CountDownLatch(5);
+      AtomicInteger count = new AtomicInteger();
+      UpdateScheduler scheduler = new UpdateScheduler(
+          executor,
+          () -> {
+            count.incrementAndGet();
+            runs.countDown();
+            // Due immediately, as if every update failed
+            return -1;
+          },
+          () -> {
+            throw new AssertionError("Unexpected rejection");
+          },
+          10,
+          50
+      );
+      scheduler.start();
+      assertTrue(runs.await(10, TimeUnit.SECONDS));
+      scheduler.cancel();
+      Thread.sleep(100);
+      int cancelledCount = count.get();
+      Thread.sleep(100);
+      assertEquals(cancelledCount, count.get());
+      assertEquals(0, executor.getQueue().size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A task that throws is rescheduled.
+   */
+  @org.junit.Test
+  public void testTaskThrows() throws InterruptedException {
+    System.out.println("taskThrows");
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    try {
+      CountDownLatch runs = new CountDownLatch(2);
+      UpdateScheduler scheduler = new UpdateScheduler(
+          executor,
+          () -> {
+            runs.countDown();
+            throw new IllegalStateException("Test failure");
+          },
+          () -> {
+            throw new AssertionError("Unexpected rejection");
+          },
+          10,
+          50
+      );
+      scheduler.start();
+      assertTrue(runs.await(10, TimeUnit.SECONDS));
+      scheduler.cancel();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * When the executor is shut down, the owner is notified.
+   */
+  @org.junit.Test
+  public void testRejected() {
+    System.out.println("rejected");
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    executor.shutdown();
+    AtomicInteger rejected = new AtomicInteger();
+    new UpdateScheduler(executor, () -> 0, rejected::incrementAndGet).start();
+    assertEquals(1, rejected.get());
+  }
+
+  /**
+   * The default executor uses virtual threads on Java 21 or later, and daemon threads otherwise.
+   */
+  @org.junit.Test
+  public void testThreadFactory() throws ReflectiveOperationException {
+    System.out.println("threadFactory");
+    Thread thread = UpdateScheduler.newThreadFactory("test").newThread(() -> { });
+    boolean isVirtual = Runtime.version().feature() >= 21
+        && (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    System.out.println("\tthread = " + thread + ", isVirtual = " + isVirtual);
+    assertTrue(thread.isDaemon());
+    assertEquals(Runtime.version().feature() >= 21, isVirtual);
+    assertTrue(thread.getName().startsWith("test-"));
+  }
+}